@@ -0,0 +1,97 @@
+/** BenchDatabases.java
+ *
+ * The databases the benchmarks run against.
+ *
+ * The generated databases have one table, events, with 10k, 1M or 10M rows. They are written once to
+ * java.io.tmpdir/nisqlite-bench and reused by later runs. The sample databases are the ones in src/, found
+ * through the nisqlite.src system property or the current directory, and copied there too, because opening
+ * a database switches it to WAL mode.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class BenchDatabases {
+
+	/**
+	 * path - The file of a database by its benchmark name: 10k, 1M, 10M, sample_db1 or sample_db2
+	 */
+	public static Path path(String name) throws IOException, SQLException {
+		switch (name) {
+		case "10k":
+			return generated(10000);
+		case "1M":
+			return generated(1000000);
+		case "10M":
+			return generated(10000000);
+		default:
+			return sample(name + ".sqlite");
+		}
+	}
+
+	/**
+	 * table - The table the benchmarks read from
+	 */
+	public static String table(String name) {
+		switch (name) {
+		case "sample_db1":
+			return "people";
+		case "sample_db2":
+			return "dvds";
+		default:
+			return "events";
+		}
+	}
+
+	private static Path sample(String file) throws IOException {
+		String dir = System.getProperty("nisqlite.src");
+		Path[] candidates = dir != null ? new Path[] { Paths.get(dir, file) }
+				: new Path[] { Paths.get("src", file), Paths.get("..", "src", file) };
+		for (Path p : candidates) {
+			if (Files.isRegularFile(p)) {
+				Path copies = Files.createDirectories(Paths.get(System.getProperty("java.io.tmpdir"), "nisqlite-bench"));
+				return Files.copy(p, copies.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		throw new IOException("Sample database not found: " + file + ", set -Dnisqlite.src=<path to src>");
+	}
+
+	/**
+	 * generated - A database with rows rows in events, created when it does not exist yet
+	 */
+	private static synchronized Path generated(int rows) throws IOException, SQLException {
+		Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "nisqlite-bench");
+		Files.createDirectories(dir);
+		Path file = dir.resolve("events-" + rows + ".db");
+		if (Files.isRegularFile(file))
+			return file;
+
+		Path tmp = dir.resolve("events-" + rows + ".db.tmp");
+		Files.deleteIfExists(tmp);
+		try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + tmp);
+				Statement statement = conn.createStatement()) {
+			statement.execute("PRAGMA journal_mode=OFF");
+			statement.execute("PRAGMA synchronous=OFF");
+			statement.execute("CREATE TABLE events (id INTEGER PRIMARY KEY, ts INTEGER, name TEXT, val REAL)");
+			statement.execute("CREATE INDEX events_ts ON events(ts)");
+			statement.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + rows + ") "
+					+ "INSERT INTO events SELECT i, 1400000000 + i * 7, 'name' || (i % 1000), i * 0.5 FROM n");
+		}
+		Files.move(tmp, file);
+		return file;
+	}
+}
@@ -0,0 +1,128 @@
+/** ParallelScanBenchmark.java
+ *
+ * Benchmarks of full table operations with one cursor against a ParallelScan over the readers: reading
+ * every row into a ResultStore, and exporting every row as CSV to a writer that drops the text.
+ *
+ * The parallel scan uses one thread per reader connection, ConnectionManager.DEFAULT_READERS, so the
+ * difference depends on the cores of the machine.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar ParallelScanBenchmark -p database=10M
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class ParallelScanBenchmark {
+
+	@Param({ "10k", "1M", "10M" })
+	public String database;
+
+	private SqliteJdbc sq;
+	private String table;
+
+	@Setup(Level.Trial)
+	public void open() throws Exception {
+		sq = new SqliteJdbc(BenchDatabases.path(database).toString());
+		if (!sq.isLoaded())
+			throw new IllegalStateException("Could not open " + database);
+		table = BenchDatabases.table(database);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		sq.close();
+	}
+
+	/**
+	 * NullWriter - Drops the text, so the export measures reading and formatting only
+	 */
+	private static class NullWriter extends Writer {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * fetchSerial - Reads every row into a ResultStore with one cursor
+	 */
+	@Benchmark
+	public ResultStore fetchSerial() throws Exception {
+		sq.runSql("SELECT * FROM " + SqliteJdbc.quote(table));
+		ResultSet rs = sq.getResult();
+		ResultStore store = ResultStore.forResultSet(rs);
+		while (rs.next()) {
+			store.addRow(rs);
+		}
+		sq.initialize();
+		return store;
+	}
+
+	/**
+	 * fetchParallel - Reads every row into a ResultStore in rowid order with a parallel scan
+	 */
+	@Benchmark
+	public ResultStore fetchParallel() throws Exception {
+		return new ParallelScan(sq, table).fetch();
+	}
+
+	/**
+	 * exportSerial - Writes every row as CSV with one cursor
+	 */
+	@Benchmark
+	public long exportSerial() throws Exception {
+		sq.runSql("SELECT * FROM " + SqliteJdbc.quote(table));
+		try {
+			return new ResultExporter(ResultExporter.Format.CSV).export(sq.getResult(), new NullWriter(),
+					(done, total) -> {
+					});
+		} finally {
+			sq.initialize();
+		}
+	}
+
+	/**
+	 * exportParallel - Writes every row as CSV with a parallel scan, in the order the parts finish
+	 */
+	@Benchmark
+	public long exportParallel() throws Exception {
+		return new ResultExporter(ResultExporter.Format.CSV).exportTable(new ParallelScan(sq, table),
+				new NullWriter(), false, (done, total) -> {
+				});
+	}
+}
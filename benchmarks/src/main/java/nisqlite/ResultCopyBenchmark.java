@@ -0,0 +1,115 @@
+/** ResultCopyBenchmark.java
+ *
+ * Benchmarks of the way rows get from a result set to the table of results: the copy into a ResultStore
+ * that QueryTask does, and the cell text that the table reads for the visible rows.
+ *
+ * The copy reads at most FETCH_LIMIT rows, so the 10M rows database measures the same work as the 1M one
+ * plus a bigger file.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar ResultCopyBenchmark -p database=1M
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class ResultCopyBenchmark {
+
+	private static final int FETCH_LIMIT = 1000000; // rows copied per invocation at most
+	private static final int VISIBLE_ROWS = 40; // rows the table shows at once
+
+	@Param({ "10k", "1M", "10M", "sample_db1", "sample_db2" })
+	public String database;
+
+	private SqliteJdbc sq;
+	private String sql;
+	private ResultStore rows; // a full result, as the table of results sees it
+
+	@Setup(Level.Trial)
+	public void open() throws Exception {
+		sq = new SqliteJdbc(BenchDatabases.path(database).toString());
+		if (!sq.isLoaded())
+			throw new IllegalStateException("Could not open " + database);
+		sql = "SELECT * FROM " + SqliteJdbc.quote(BenchDatabases.table(database)) + " LIMIT " + FETCH_LIMIT;
+		rows = fetch();
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		sq.close();
+	}
+
+	private ResultStore fetch() throws Exception {
+		sq.runSql(sql);
+		ResultSet rs = sq.getResult();
+		ResultStore store = ResultStore.forResultSet(rs);
+		while (rs.next()) {
+			store.addRow(rs);
+		}
+		return store;
+	}
+
+	/**
+	 * fetchIntoStore - Runs the query and copies all its rows into a ResultStore
+	 */
+	@Benchmark
+	public ResultStore fetchIntoStore() throws Exception {
+		return fetch();
+	}
+
+	/**
+	 * renderVisibleCells - Reads the text of every cell of a screen of rows from the middle of the result
+	 */
+	@Benchmark
+	public void renderVisibleCells(Blackhole bh) {
+		int columns = rows.getColumnCount();
+		int first = Math.max(0, rows.getRowCount() / 2 - VISIBLE_ROWS / 2);
+		int last = Math.min(rows.getRowCount(), first + VISIBLE_ROWS);
+		for (int i = first; i < last; i++) {
+			ResultRow row = rows.getRow(i); // what ResultRowList.get hands to the table
+			for (int c = 0; c < columns; c++) {
+				bh.consume(row.getString(c));
+			}
+		}
+	}
+
+	/**
+	 * renderAllCells - Reads the text of every cell of the result, the worst case of scrolling through all of it
+	 */
+	@Benchmark
+	public void renderAllCells(Blackhole bh) {
+		int columns = rows.getColumnCount();
+		for (int i = 0; i < rows.getRowCount(); i++) {
+			for (int c = 0; c < columns; c++) {
+				bh.consume(rows.getString(i, c));
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/** SqliteJdbcBenchmark.java
+ *
+ * Benchmarks of the SqliteJdbc calls the GUI makes for every query and every table click.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar SqliteJdbcBenchmark -p database=1M
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqliteJdbcBenchmark {
+
+	@Param({ "10k", "1M", "10M", "sample_db1", "sample_db2" })
+	public String database;
+
+	private SqliteJdbc sq;
+	private String table;
+	private String pointSql; // one row by primary key
+	private String scanSql; // the whole table, only the first step is run
+
+	@Setup(Level.Trial)
+	public void open() throws Exception {
+		sq = new SqliteJdbc(BenchDatabases.path(database).toString());
+		if (!sq.isLoaded())
+			throw new IllegalStateException("Could not open " + database);
+		table = BenchDatabases.table(database);
+		pointSql = "SELECT * FROM " + SqliteJdbc.quote(table) + " WHERE rowid = 1";
+		scanSql = "SELECT * FROM " + SqliteJdbc.quote(table);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		sq.close();
+	}
+
+	/**
+	 * runSqlPoint - A query that reads one row
+	 */
+	@Benchmark
+	public boolean runSqlPoint() throws Exception {
+		sq.runSql(pointSql);
+		return sq.getResult().next();
+	}
+
+	/**
+	 * runSqlScan - Starting a SELECT * the way the GUI does, up to the first row
+	 */
+	@Benchmark
+	public boolean runSqlScan() throws Exception {
+		sq.runSql(scanSql);
+		return sq.getResult().next();
+	}
+
+	/**
+	 * getFields - The columns of the table, as asked for on every table click
+	 */
+	@Benchmark
+	public List<String> getFields() {
+		return sq.getFields(table);
+	}
+
+	/**
+	 * getTableList - The tables of the database, as asked for after every query that is not a SELECT
+	 */
+	@Benchmark
+	public List<String> getTableList() {
+		return sq.getTableList();
+	}
+}
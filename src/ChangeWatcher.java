@@ -0,0 +1,175 @@
+/** ChangeWatcher.java
+ *
+ * Notices the commits to a database, those of other programs included, so what is shown of it can follow.
+ *
+ * PRAGMA data_version of the monitor connection of the ConnectionManager changes whenever any connection
+ * commits. Reading it costs a few microseconds, but only tells something when it is read, so a thread reads it
+ * after every event of a WatchService on the directory of the database, for its file, its WAL and its journal,
+ * and at the latest every POLL_MILLIS, for file systems whose WatchService is slow or does not see the writes
+ * of other machines. Events come in bursts, one per write of a commit; after the first, the thread waits
+ * SETTLE_MILLIS for the burst to end, so a commit is reported once, and a stream of commits at most every
+ * SETTLE_MILLIS.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ChangeWatcher {
+
+	/**
+	 * Listener - Told of the commits. Called on the thread of the watcher.
+	 */
+	public interface Listener {
+		void changed(long dataVersion);
+	}
+
+	public static final long POLL_MILLIS = 1000; // data_version is read at least this often
+	private static final long SETTLE_MILLIS = 100; // quiet time after a file event before data_version is read
+
+	private final ConnectionManager connections;
+	private final Path directory; // of the database file, null for an in-memory database
+	private final List<String> names; // the files of the database in the directory
+	private final Listener listener;
+	private WatchService watchService = null; // null when the directory cannot be watched
+	private Thread thread = null;
+	private volatile boolean closed = false;
+	private volatile long changes = 0; // commits reported
+
+	public ChangeWatcher(SqliteJdbc sq, Listener listener) {
+		this.connections = sq.getConnectionManager();
+		this.listener = listener;
+		String path = sq.getFilename();
+		Path file = path == null || path.isEmpty() || path.startsWith(":memory:") || path.startsWith("file:") ? null
+				: Paths.get(path).toAbsolutePath();
+		directory = file != null ? file.getParent() : null;
+		String name = file != null ? file.getFileName().toString() : "";
+		names = Arrays.asList(name, name + "-wal", name + "-journal");
+	}
+
+	/**
+	 * start - Starts the thread of the watcher. Without a directory to watch it only polls.
+	 */
+	public synchronized void start() {
+		if (thread != null || closed || connections == null)
+			return;
+		if (directory != null) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+				directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+			} catch (IOException | UnsupportedOperationException e) {
+				closeWatchService(); // polling alone still sees every commit
+			}
+		}
+		thread = new Thread(() -> watch(), "nisqlite-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * watch - Waits for a file event or the poll interval, and reports data_version when it changed
+	 */
+	private void watch() {
+		WatchService events = watchService; // set before the thread started
+		long version = connections.getDataVersion();
+		try {
+			while (!closed) {
+				if (events == null) {
+					Thread.sleep(POLL_MILLIS);
+				} else if (waitForEvent(events, POLL_MILLIS)) {
+					Thread.sleep(SETTLE_MILLIS);
+					while (waitForEvent(events, 0)) {
+						// the rest of the burst
+					}
+				}
+				long now = connections.getDataVersion();
+				if (now != version && now != -1 && !closed) {
+					version = now;
+					changes++;
+					listener.changed(now);
+				}
+			}
+		} catch (InterruptedException e) {
+			// closed
+		} catch (RuntimeException e) {
+			System.err.println("Change watcher stopped: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * waitForEvent - Waits up to millis for the events of the directory, and tells if one was for a file of the
+	 * database
+	 */
+	private boolean waitForEvent(WatchService events, long millis) throws InterruptedException {
+		WatchKey key;
+		try {
+			key = events.poll(millis, TimeUnit.MILLISECONDS);
+		} catch (ClosedWatchServiceException e) {
+			return false;
+		}
+		if (key == null)
+			return false;
+		boolean ours = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			Object context = event.context();
+			// An overflow has no file name, it may have been ours
+			ours |= context == null || names.contains(context.toString());
+		}
+		key.reset();
+		return ours;
+	}
+
+	/**
+	 * close - Stops the thread
+	 */
+	public synchronized void close() {
+		closed = true;
+		closeWatchService();
+		if (thread != null)
+			thread.interrupt();
+	}
+
+	private void closeWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// nothing left to do
+			}
+			watchService = null;
+		}
+	}
+
+	/**
+	 * isWatchingFiles - File events wake the watcher, not only the poll interval
+	 */
+	public boolean isWatchingFiles() {
+		return watchService != null;
+	}
+
+	/**
+	 * getChanges - Commits reported so far; commits close together are reported once
+	 *
+	 * @return changes
+	 */
+	public long getChanges() {
+		return changes;
+	}
+}
@@ -0,0 +1,357 @@
+/** ChunkedDml.java
+ *
+ * Runs a large UPDATE or DELETE of one table as many small ones, each committed on its own.
+ *
+ * One DELETE FROM events WHERE ts < 1000 of millions of rows holds the write lock of the file, and grows the
+ * journal, until it is done, and every other writer waits. Here the table is walked in rowid order: the
+ * rowid that closes the next chunkRows matching rows is looked up, and the statement runs again with
+ * "rowid BETWEEN from AND to" added to its WHERE. Every chunk is one short transaction, and between two
+ * chunks the lock is free for a while, so other writers only wait for one chunk. Rows are visited once,
+ * even when an UPDATE leaves them matching the WHERE, as long as their rowid stays: an UPDATE that sets the
+ * rowid, or the INTEGER PRIMARY KEY column that is the rowid, could move a row into a later chunk, and is not
+ * chunked.
+ *
+ * The run can be paused and resumed between chunks, and cancelled; the chunks committed before a cancel stay
+ * committed, so the statement is not atomic any more. Only a plain UPDATE or DELETE of a table with a rowid
+ * qualifies: no WITH, ORDER BY, LIMIT, RETURNING, UPDATE ... FROM or parameters. A subquery would see the
+ * chunks already committed, and random(), 'now' and the like give every chunk other values, so a statement
+ * with them is not chunked either. Inside a transaction begun by the user the chunks are not committed until
+ * it is.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ChunkedDml {
+
+	public static final int DEFAULT_CHUNK_ROWS = 10000;
+	private static final long GAP_MILLIS = 10; // time between chunks in which other writers get the lock
+	private static final List<String> VOLATILE_FUNCTIONS = Arrays.asList("random", "randomblob", "changes",
+			"total_changes", "last_insert_rowid");
+
+	private final SqliteJdbc sq;
+	private final String sql; // the statement as typed
+	private final String table;
+	private final String head; // the statement up to its WHERE
+	private final String where; // the condition of the WHERE, null if there is none
+	private final int chunkRows;
+	private volatile boolean cancelled = false;
+	private volatile boolean paused = false;
+	private volatile PreparedStatement running = null; // statement executing now, for cancel
+	private volatile long changes = 0; // rows updated or deleted so far
+	private volatile long chunks = 0; // chunks committed so far
+	private volatile double fraction = 0; // part of the rowid range done
+
+	private ChunkedDml(SqliteJdbc sq, String sql, String table, String head, String where, int chunkRows) {
+		this.sq = sq;
+		this.sql = sql;
+		this.table = table;
+		this.head = head;
+		this.where = where;
+		this.chunkRows = Math.max(1, chunkRows);
+	}
+
+	/**
+	 * parse - A chunked run of the statement, or null if it is not an UPDATE or DELETE that can be chunked
+	 */
+	public static ChunkedDml parse(SqliteJdbc sq, String sql, int chunkRows) {
+		List<SqlScript.Statement> statements = SqlScript.split(sql);
+		if (statements.size() != 1)
+			return null;
+		List<SqlScript.Token> tokens = statements.get(0).getTokens();
+		int i; // position of the table name
+		boolean update = tokens.get(0).is("UPDATE");
+		if (update) {
+			i = tokens.size() > 2 && tokens.get(1).is("OR") ? 3 : 1;
+		} else if (tokens.get(0).is("DELETE") && tokens.size() > 1 && tokens.get(1).is("FROM")) {
+			i = 2;
+		} else {
+			return null;
+		}
+		if (i + 1 > tokens.size())
+			return null;
+		SqlScript.Token name = tokens.get(i);
+		if (name.type != SqlScript.TokenType.WORD && name.type != SqlScript.TokenType.QUOTED)
+			return null;
+		// Right after the name: SET for an UPDATE, WHERE or the end for a DELETE; no alias, schema or INDEXED BY
+		SqlScript.Token after = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+		if (update ? after == null || !after.is("SET") : after != null && !after.is("WHERE"))
+			return null;
+
+		int whereAt = -1;
+		int depth = 0;
+		for (int k = i + 1; k < tokens.size(); k++) {
+			SqlScript.Token token = tokens.get(k);
+			if (token.type == SqlScript.TokenType.PARAM || token.is("SELECT") || isVolatile(tokens, k))
+				return null;
+			if (token.text.equals("("))
+				depth++;
+			else if (token.text.equals(")"))
+				depth--;
+			else if (depth == 0 && (token.is("ORDER") || token.is("LIMIT") || token.is("RETURNING")
+					|| token.is("FROM")))
+				return null;
+			else if (depth == 0 && whereAt < 0 && token.is("WHERE"))
+				whereAt = k;
+		}
+		String table = SqlScript.unquote(name);
+		if (!sq.hasRowid(table))
+			return null;
+		if (update && setsRowid(sq, table, tokens.subList(i + 2, whereAt < 0 ? tokens.size() : whereAt)))
+			return null;
+		List<SqlScript.Token> headTokens = tokens.subList(0, whereAt < 0 ? tokens.size() : whereAt);
+		String where = whereAt < 0 ? null : SqlScript.text(tokens.subList(whereAt + 1, tokens.size()));
+		return new ChunkedDml(sq, sql, table, SqlScript.text(headTokens), where, chunkRows);
+	}
+
+	/**
+	 * isVolatile - The token at k gives another value on every chunk: a call of a function like random(), a
+	 * CURRENT_TIMESTAMP or a 'now' of the date functions
+	 */
+	private static boolean isVolatile(List<SqlScript.Token> tokens, int k) {
+		SqlScript.Token token = tokens.get(k);
+		if (token.type == SqlScript.TokenType.STRING)
+			return token.text.equalsIgnoreCase("'now'");
+		if (token.type != SqlScript.TokenType.WORD)
+			return false;
+		String word = token.text.toLowerCase(Locale.ROOT);
+		if (word.startsWith("current_"))
+			return true;
+		return VOLATILE_FUNCTIONS.contains(word) && k + 1 < tokens.size() && tokens.get(k + 1).text.equals("(");
+	}
+
+	/**
+	 * setsRowid - The assignments of an UPDATE, after its SET, give the rowid a value: by rowid, oid or _rowid_,
+	 * or by the INTEGER PRIMARY KEY column. A target is a name before the = of an assignment, alone or in a
+	 * parenthesized list.
+	 */
+	private static boolean setsRowid(SqliteJdbc sq, String table, List<SqlScript.Token> assignments) {
+		List<String> names = new ArrayList<String>(Arrays.asList("rowid", "oid", "_rowid_"));
+		try {
+			SchemaCatalog.Column alias = sq.getCatalog().getTable(table).getRowidAlias();
+			if (alias != null)
+				names.add(alias.name.toLowerCase(Locale.ROOT));
+		} catch (SQLException e) {
+			return true; // cannot tell, so do not chunk
+		}
+		int depth = 0;
+		boolean target = true; // before the = of an assignment
+		for (SqlScript.Token token : assignments) {
+			if (token.text.equals("("))
+				depth++;
+			else if (token.text.equals(")"))
+				depth--;
+			else if (depth == 0 && token.text.equals(","))
+				target = true;
+			else if (depth == 0 && token.text.equals("="))
+				target = false;
+			else if (target && (token.type == SqlScript.TokenType.WORD || token.type == SqlScript.TokenType.QUOTED)
+					&& names.contains(SqlScript.unquote(token).toLowerCase(Locale.ROOT)))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * run - Runs the chunks, and returns the rows updated or deleted. Stops after the chunk that runs when it is
+	 * cancelled.
+	 */
+	public long run(ProgressListener listener) throws SQLException {
+		String quoted = SqliteJdbc.quote(table);
+		String cond = where != null ? " AND (" + where + ")" : "";
+		// NOT INDEXED: walk the table in rowid order, an index of the WHERE would sort all the matching rows
+		String boundSql = "SELECT rowid FROM " + quoted + " NOT INDEXED WHERE rowid >= ?" + cond
+				+ " ORDER BY rowid LIMIT 1 OFFSET " + (chunkRows - 1);
+		String chunkSql = head + " WHERE rowid BETWEEN ? AND ?" + cond;
+		try {
+			long[] bounds = getBounds();
+			if (bounds == null)
+				return 0;
+			long from = bounds[0];
+			while (!cancelled) {
+				waitWhilePaused();
+				if (cancelled)
+					break;
+				Long bound = querySingle(boundSql, from);
+				long to = bound != null ? bound : Long.MAX_VALUE; // the last chunk takes the rest
+				changes += update(chunkSql, from, to);
+				chunks++;
+				fraction = bound == null || bounds[1] <= bounds[0] ? 1
+						: Math.min(1, (double) (to - bounds[0]) / (bounds[1] - bounds[0]));
+				listener.progress(changes, -1);
+				if (bound == null || to == Long.MAX_VALUE)
+					break;
+				from = to + 1;
+				Thread.sleep(GAP_MILLIS);
+			}
+		} catch (InterruptedException e) {
+			cancelled = true;
+			Thread.currentThread().interrupt();
+		} finally {
+			running = null;
+			sq.invalidateResults();
+		}
+		return changes;
+	}
+
+	private long[] getBounds() throws SQLException {
+		StatementCache statements = sq.getStatementCache();
+		String boundsSql = "SELECT min(rowid), max(rowid) FROM " + SqliteJdbc.quote(table);
+		PreparedStatement statement = statements.acquire(boundsSql);
+		try (ResultSet rs = statement.executeQuery()) {
+			if (!rs.next() || rs.getObject(1) == null)
+				return null;
+			return new long[] { rs.getLong(1), rs.getLong(2) };
+		} finally {
+			statements.release(boundsSql, statement);
+		}
+	}
+
+	private Long querySingle(String query, long from) throws SQLException {
+		StatementCache statements = sq.getStatementCache();
+		PreparedStatement statement = statements.acquire(query);
+		try {
+			running = statement;
+			statement.setLong(1, from);
+			try (ResultSet rs = statement.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : null;
+			}
+		} finally {
+			running = null;
+			statements.release(query, statement);
+		}
+	}
+
+	private int update(String update, long from, long to) throws SQLException {
+		StatementCache statements = sq.getStatementCache();
+		PreparedStatement statement = statements.acquire(update);
+		try {
+			running = statement;
+			statement.setLong(1, from);
+			statement.setLong(2, to);
+			return statement.executeUpdate(); // a transaction of its own, in autocommit
+		} finally {
+			running = null;
+			statements.release(update, statement);
+		}
+	}
+
+	private synchronized void waitWhilePaused() throws InterruptedException {
+		while (paused && !cancelled) {
+			wait();
+		}
+	}
+
+	/**
+	 * pause - Stops after the chunk that runs now, until resume or cancel
+	 */
+	public void pause() {
+		paused = true;
+	}
+
+	/**
+	 * resume - Goes on after a pause
+	 */
+	public synchronized void resume() {
+		paused = false;
+		notifyAll();
+	}
+
+	/**
+	 * cancel - Stops the run. The chunk that runs now is interrupted and rolled back, the ones before stay.
+	 */
+	public void cancel() {
+		cancelled = true;
+		synchronized (this) {
+			notifyAll();
+		}
+		PreparedStatement statement = running;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * isPaused
+	 *
+	 * @return paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getChanges - Rows updated or deleted so far, safe to call from any thread
+	 *
+	 * @return changes
+	 */
+	public long getChanges() {
+		return changes;
+	}
+
+	/**
+	 * getChunks - Chunks committed so far
+	 *
+	 * @return chunks
+	 */
+	public long getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * getFraction - Part of the table done, from 0 to 1
+	 *
+	 * @return fraction
+	 */
+	public double getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * getTable
+	 *
+	 * @return table
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * getSql - The statement as it was typed
+	 *
+	 * @return sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	@Override
+	public String toString() {
+		return changes + " rows in " + chunks + " chunks of " + chunkRows;
+	}
+}
@@ -0,0 +1,260 @@
+/** ConnectionManager.java
+ *
+ * The connections to one database: a writer and a pool of read-only readers.
+ *
+ * The database is put in WAL mode, so readers see the last committed data and neither block the writer nor
+ * are blocked by it. The writer runs the SQL typed by the user, which may write or hold a transaction open.
+ * Readers are opened read-only and are borrowed with acquireReader and given back with releaseReader, one
+ * borrower at a time; every connection has its own statement cache. Table windows, metadata lookups and
+ * exports run on readers, in parallel with each other and with the query on the writer.
+ *
+ * An in-memory database cannot be shared between connections, so it has no readers and acquireReader hands
+ * out the writer; its callers then have to run on the query worker, like everything else that uses the
+ * writer. A database that cannot be switched to WAL, like one on read-only media, keeps its journal mode.
+ * Opened read-only, the writer is read-only as well and the journal mode of the file is left as it is.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.sqlite.SQLiteConfig;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ConnectionManager {
+
+	public static final int DEFAULT_READERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static final int BUSY_TIMEOUT = 5000; // milliseconds to wait for a lock held by another connection
+	private static final long ACQUIRE_SECONDS = 30; // how long to wait for a free reader
+
+	/**
+	 * Reader - A connection and its statement cache, borrowed by one job at a time
+	 */
+	public static class Reader {
+		private final Connection conn;
+		private final StatementCache statements;
+
+		Reader(Connection conn) {
+			this.conn = conn;
+			this.statements = new StatementCache(conn, StatementCache.DEFAULT_CAPACITY);
+		}
+
+		/**
+		 * getConnection
+		 *
+		 * @return conn
+		 */
+		public Connection getConnection() {
+			return conn;
+		}
+
+		/**
+		 * getStatementCache
+		 *
+		 * @return statements
+		 */
+		public StatementCache getStatementCache() {
+			return statements;
+		}
+
+		void close() {
+			statements.close();
+			try {
+				conn.close();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
+	}
+
+	private final String url;
+	private final Reader writer;
+	private final List<Reader> readers = new ArrayList<Reader>();
+	private final BlockingQueue<Reader> idle; // readers nobody has borrowed
+	private final Connection monitor; // reads PRAGMA data_version, which changes when any other connection commits
+	private final boolean wal;
+	private volatile boolean closed = false;
+
+	public ConnectionManager(String path, int readerCount) throws SQLException {
+		this(path, readerCount, false);
+	}
+
+	public ConnectionManager(String path, int readerCount, boolean readOnly) throws SQLException {
+		url = "jdbc:sqlite:" + path.replace("\\", "/");
+		boolean memory = path.isEmpty() || path.startsWith(":memory:") || path.startsWith("file::memory:");
+		Connection conn = readOnly && !memory ? openReader() : memory ? openWriter(false) : openWriter(true);
+		writer = new Reader(conn);
+		wal = !memory && "wal".equalsIgnoreCase(journalMode(conn));
+		// Fair, so the parts of a long scan cannot starve the windows and lookups waiting for a reader
+		idle = new ArrayBlockingQueue<Reader>(Math.max(1, readerCount), true);
+		try {
+			if (!memory) {
+				for (int i = 0; i < readerCount; i++) {
+					Reader reader = new Reader(openReader());
+					readers.add(reader);
+					idle.add(reader);
+				}
+				monitor = openReader();
+			} else {
+				monitor = conn;
+			}
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * openWriter - Opens the writer, in WAL mode if asked and possible
+	 */
+	private Connection openWriter(boolean walMode) throws SQLException {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setBusyTimeout(BUSY_TIMEOUT);
+		if (walMode) {
+			config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+			try {
+				return config.createConnection(url);
+			} catch (SQLException e) {
+				// Read-only media, or not a database at all: open it as it is and let the caller find out
+				return openWriter(false);
+			}
+		}
+		return config.createConnection(url);
+	}
+
+	private Connection openReader() throws SQLException {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setReadOnly(true);
+		config.setBusyTimeout(BUSY_TIMEOUT);
+		return config.createConnection(url);
+	}
+
+	private static String journalMode(Connection conn) {
+		try (Statement statement = conn.createStatement();
+				ResultSet rsMode = statement.executeQuery("PRAGMA journal_mode")) {
+			return rsMode.next() ? rsMode.getString(1) : "";
+		} catch (SQLException e) {
+			return "";
+		}
+	}
+
+	/**
+	 * getWriter - The connection that runs the SQL of the user and all the writes
+	 */
+	public Connection getWriter() {
+		return writer.conn;
+	}
+
+	/**
+	 * getWriterStatements - The statement cache of the writer
+	 */
+	public StatementCache getWriterStatements() {
+		return writer.statements;
+	}
+
+	/**
+	 * acquireReader - Borrows a reader, waiting for one to be free. Hands out the writer when there are no
+	 * readers.
+	 */
+	public Reader acquireReader() throws SQLException {
+		if (closed)
+			throw new SQLException("Database is closed");
+		if (readers.isEmpty())
+			return writer;
+		try {
+			Reader reader = idle.poll(ACQUIRE_SECONDS, TimeUnit.SECONDS);
+			if (reader == null)
+				throw new SQLException("No reader connection was free for " + ACQUIRE_SECONDS + " s");
+			return reader;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a reader connection");
+		}
+	}
+
+	/**
+	 * releaseReader - Gives back a borrowed reader. Its result sets must be closed. A reader given back after
+	 * close is closed.
+	 */
+	public void releaseReader(Reader reader) {
+		if (reader == null || reader == writer)
+			return;
+		if (closed) {
+			reader.close();
+			return;
+		}
+		idle.offer(reader);
+		if (closed && idle.remove(reader))
+			reader.close(); // closed while it was given back
+	}
+
+	/**
+	 * getDataVersion - PRAGMA data_version of the database as seen from the other connections, -1 if it
+	 * cannot be read. It changes whenever a connection commits, the writer included.
+	 */
+	public synchronized long getDataVersion() {
+		if (closed)
+			return -1;
+		try (Statement statement = monitor.createStatement();
+				ResultSet rsVersion = statement.executeQuery("PRAGMA data_version")) {
+			return rsVersion.next() ? rsVersion.getLong(1) : -1;
+		} catch (SQLException e) {
+			return -1; // cannot tell
+		}
+	}
+
+	/**
+	 * getReaderCount - Read-only connections in the pool, 0 for an in-memory database
+	 */
+	public int getReaderCount() {
+		return readers.size();
+	}
+
+	/**
+	 * isWal - The database is in WAL mode, so readers and the writer do not block each other
+	 *
+	 * @return wal
+	 */
+	public boolean isWal() {
+		return wal;
+	}
+
+	/**
+	 * close - Closes the writer and the idle readers. Borrowed readers are closed when they are given back.
+	 */
+	public synchronized void close() {
+		if (closed)
+			return;
+		closed = true;
+		Reader reader;
+		while ((reader = idle.poll()) != null) {
+			reader.close();
+		}
+		if (monitor != null && monitor != writer.conn) {
+			try {
+				monitor.close();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
+		writer.close();
+	}
+
+	@Override
+	public String toString() {
+		return "Connections: writer" + (wal ? " (WAL)" : "") + " and " + readers.size() + " readers, "
+				+ idle.size() + " idle";
+	}
+}
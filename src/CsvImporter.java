@@ -0,0 +1,479 @@
+/** CsvImporter.java
+ *
+ * Streams a CSV or TSV file into a table.
+ *
+ * The file is parsed as it is read, so its size does not matter. The column types are inferred from the
+ * first rows unless they are given, and the table is created if it does not exist. Rows are inserted through
+ * one prepared statement in JDBC batches, and committed every commitRows rows inside explicit transactions,
+ * instead of one transaction (and one fsync) per row. In a transaction begun by the user the rows go into a
+ * savepoint of it instead, and are committed when the user commits. A byte order mark at the start of the
+ * file is skipped. A file with more columns than an existing table is refused; rows with more fields than the
+ * columns are imported without the extra fields, and counted.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class CsvImporter {
+
+	private static final int SAMPLE_ROWS = 1000; // rows looked at to infer the column types
+	private static final String SAVEPOINT = "nisqlite_import"; // of the rows, in a transaction of the user
+
+	private final SqliteJdbc sq;
+	private final Path file;
+	private final String table;
+	private char delimiter;
+	private boolean header = true; // the first row holds the column names
+	private List<String> types = null; // column types, null to infer them
+	private int batchSize = 1000; // rows per executeBatch
+	private int commitRows = 50000; // rows per transaction
+	private volatile boolean cancelled = false;
+	private volatile long rowCount = 0; // rows inserted so far
+	private volatile long committedRows = 0; // rows inserted and committed so far
+	private volatile long widerRows = 0; // rows with more fields than the columns, whose extra fields were dropped
+	private boolean nested = false; // in a transaction begun by the user, the rows are not committed here
+
+	public CsvImporter(SqliteJdbc sq, Path file, String table) {
+		this.sq = sq;
+		this.file = file;
+		this.table = table;
+		String name = file.getFileName().toString().toLowerCase();
+		this.delimiter = name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',';
+	}
+
+	/**
+	 * tableName - A table name made from a file name: the name without extension
+	 */
+	public static String tableName(Path file) {
+		String name = file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+
+	/**
+	 * importFile - Imports the whole file and returns the number of rows imported.
+	 *
+	 * On an error or a cancel the rows of the current transaction are rolled back, the ones committed before
+	 * stay in the table.
+	 */
+	public long importFile(ProgressListener listener) throws IOException, SQLException {
+		Connection conn = sq.getConnection();
+		long totalBytes = Files.size(file);
+		try (CountingReader counter = new CountingReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+			counter.skipByteOrderMark();
+			CsvReader reader = new CsvReader(counter, delimiter);
+
+			// Column names and types, from the header and the first rows
+			List<String[]> sample = new ArrayList<String[]>();
+			String[] first = reader.next();
+			if (first == null)
+				return 0;
+			List<String> columns = new ArrayList<String>();
+			for (int i = 0; i < first.length; i++) {
+				columns.add(header && !first[i].trim().isEmpty() ? first[i].trim() : "c" + (i + 1));
+			}
+			if (!header)
+				sample.add(first);
+			String[] row;
+			while (sample.size() < SAMPLE_ROWS && (row = reader.next()) != null) {
+				sample.add(row);
+			}
+			List<String> columnTypes = types != null ? types : inferTypes(sample, columns.size());
+
+			try (Statement control = conn.createStatement()) {
+				// In a transaction the user began the rows go into a savepoint of it, and are committed with it
+				nested = !begin(control);
+				if (nested)
+					control.execute("SAVEPOINT " + SAVEPOINT);
+				try {
+					columns = createTable(conn, columns, columnTypes);
+					columnTypes = columnTypes.subList(0, columns.size());
+					String sql = insertSql(columns);
+					try (PreparedStatement insert = conn.prepareStatement(sql)) {
+						for (String[] values : sample) {
+							addRow(control, insert, values, columnTypes, counter, totalBytes, listener);
+						}
+						while (!cancelled && (row = reader.next()) != null) {
+							addRow(control, insert, row, columnTypes, counter, totalBytes, listener);
+						}
+						if (cancelled) {
+							rollback(control);
+						} else {
+							insert.executeBatch();
+							control.execute(nested ? "RELEASE " + SAVEPOINT : "COMMIT");
+							committedRows = rowCount;
+						}
+					}
+				} catch (SQLException | IOException | RuntimeException e) {
+					rollback(control);
+					throw e;
+				} finally {
+					sq.invalidateCatalog();
+					sq.invalidateResults();
+				}
+			}
+			listener.progress(totalBytes, totalBytes);
+			return committedRows;
+		}
+	}
+
+	/**
+	 * begin - Begins a transaction. Returns false if one is already open.
+	 */
+	private static boolean begin(Statement control) {
+		try {
+			control.execute("BEGIN");
+			return true;
+		} catch (SQLException e) {
+			return false; // cannot start a transaction within a transaction
+		}
+	}
+
+	/**
+	 * rollback - Rolls back the rows not committed yet: the transaction, or the savepoint in a transaction of
+	 * the user, which stays open
+	 */
+	private void rollback(Statement control) {
+		try {
+			if (nested) {
+				control.execute("ROLLBACK TO " + SAVEPOINT);
+				control.execute("RELEASE " + SAVEPOINT);
+			} else {
+				control.execute("ROLLBACK");
+			}
+		} catch (SQLException e) {
+			System.err.println(e.getMessage()); // SQLite may have rolled it back already, after an I/O error
+		}
+	}
+
+	/**
+	 * addRow - Binds one row, runs the batch when it is full and commits every commitRows rows, unless it is in
+	 * a transaction of the user. The fields past the columns are dropped and the row is counted as wider.
+	 */
+	private void addRow(Statement control, PreparedStatement insert, String[] values, List<String> columnTypes,
+			CountingReader counter, long totalBytes, ProgressListener listener) throws SQLException {
+		for (int i = columnTypes.size(); i < values.length; i++) {
+			if (!values[i].isEmpty()) {
+				widerRows++;
+				break;
+			}
+		}
+		for (int i = 0; i < columnTypes.size(); i++) {
+			String value = i < values.length ? values[i] : "";
+			if (value.isEmpty()) {
+				insert.setNull(i + 1, java.sql.Types.NULL);
+			} else if (columnTypes.get(i).equals("INTEGER") && isInteger(value)) {
+				insert.setLong(i + 1, Long.parseLong(value.trim()));
+			} else if (columnTypes.get(i).equals("REAL") && isReal(value)) {
+				insert.setDouble(i + 1, Double.parseDouble(value.trim()));
+			} else {
+				insert.setString(i + 1, value);
+			}
+		}
+		insert.addBatch();
+		rowCount++;
+		if (rowCount % batchSize == 0) {
+			insert.executeBatch();
+		}
+		if (rowCount % commitRows == 0) {
+			insert.executeBatch();
+			if (!nested) {
+				control.execute("COMMIT");
+				control.execute("BEGIN");
+				committedRows = rowCount;
+			}
+			listener.progress(counter.getCount(), totalBytes);
+		}
+	}
+
+	/**
+	 * createTable - Creates the table if it does not exist, and returns the columns to insert into
+	 */
+	private List<String> createTable(Connection conn, List<String> columns, List<String> columnTypes)
+			throws SQLException {
+		SchemaCatalog.Table existing = sq.getCatalog().getTable(table);
+		if (existing != null) {
+			// Insert by position into the columns the table has
+			List<String> names = existing.getColumnNames();
+			if (columns.size() > names.size())
+				throw new SQLException("The file has " + columns.size() + " columns, the table " + table
+						+ " has only " + names.size());
+			return names.subList(0, columns.size());
+		}
+		StringBuilder sql = new StringBuilder("CREATE TABLE ").append(SqliteJdbc.quote(table)).append(" (");
+		for (int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "" : ", ").append(SqliteJdbc.quote(columns.get(i))).append(' ')
+					.append(columnTypes.get(i));
+		}
+		sql.append(")");
+		try (Statement statement = conn.createStatement()) {
+			statement.execute(sql.toString());
+		}
+		return columns;
+	}
+
+	private String insertSql(List<String> columns) {
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(SqliteJdbc.quote(table)).append(" (");
+		StringBuilder params = new StringBuilder();
+		for (int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "" : ", ").append(SqliteJdbc.quote(columns.get(i)));
+			params.append(i == 0 ? "?" : ", ?");
+		}
+		return sql.append(") VALUES (").append(params).append(")").toString();
+	}
+
+	/**
+	 * inferTypes - INTEGER if all the non-empty values of a column are integers, REAL if they are numbers,
+	 * TEXT otherwise
+	 */
+	public static List<String> inferTypes(List<String[]> rows, int columnCount) {
+		List<String> res = new ArrayList<String>();
+		for (int i = 0; i < columnCount; i++) {
+			boolean integer = true;
+			boolean real = true;
+			for (String[] row : rows) {
+				if (i >= row.length || row[i].isEmpty())
+					continue;
+				integer = integer && isInteger(row[i]);
+				real = real && isReal(row[i]);
+			}
+			res.add(integer ? "INTEGER" : real ? "REAL" : "TEXT");
+		}
+		return res;
+	}
+
+	private static boolean isInteger(String value) {
+		String v = value.trim();
+		int start = v.startsWith("-") || v.startsWith("+") ? 1 : 0;
+		if (v.length() == start || v.length() - start > 18)
+			return false;
+		for (int i = start; i < v.length(); i++) {
+			if (!Character.isDigit(v.charAt(i)))
+				return false;
+		}
+		return !(v.length() - start > 1 && v.charAt(start) == '0'); // keep zip codes and ids like 007 as text
+	}
+
+	private static boolean isReal(String value) {
+		String v = value.trim();
+		if (v.isEmpty() || !(Character.isDigit(v.charAt(v.length() - 1)) || v.endsWith(".")))
+			return false;
+		int start = v.startsWith("-") || v.startsWith("+") ? 1 : 0;
+		if (v.length() > start + 1 && v.charAt(start) == '0' && Character.isDigit(v.charAt(start + 1)))
+			return false; // leading zeros, like integers
+
+		try {
+			Double.parseDouble(v);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * cancel - Stops the import, the rows of the current transaction are rolled back
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public void setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	public void setHeader(boolean header) {
+		this.header = header;
+	}
+
+	public void setTypes(List<String> types) {
+		this.types = types;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	public void setCommitRows(int commitRows) {
+		this.commitRows = Math.max(1, commitRows);
+	}
+
+	/**
+	 * getRowCount - Rows inserted so far, safe to call from any thread
+	 *
+	 * @return rowCount
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * getCommittedRows - Rows committed so far, safe to call from any thread
+	 *
+	 * @return committedRows
+	 */
+	public long getCommittedRows() {
+		return committedRows;
+	}
+
+	/**
+	 * getWiderRows - Rows with more fields than the columns of the table; their extra fields were dropped
+	 *
+	 * @return widerRows
+	 */
+	public long getWiderRows() {
+		return widerRows;
+	}
+
+	/**
+	 * isNested - The import ran in a transaction begun by the user, so its rows are only committed with it
+	 *
+	 * @return nested
+	 */
+	public boolean isNested() {
+		return nested;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * CsvReader - Splits a character stream into records. Fields may be quoted with double quotes, and quoted
+	 * fields may hold delimiters, doubled quotes and line breaks.
+	 */
+	static class CsvReader {
+		private final Reader in;
+		private final char delimiter;
+		private final char[] buf = new char[1 << 16];
+		private int pos = 0;
+		private int len = 0;
+		private final StringBuilder field = new StringBuilder();
+
+		CsvReader(Reader in, char delimiter) {
+			this.in = in;
+			this.delimiter = delimiter;
+		}
+
+		private int read() throws IOException {
+			if (pos == len) {
+				len = in.read(buf, 0, buf.length);
+				pos = 0;
+				if (len <= 0) {
+					len = 0;
+					return -1;
+				}
+			}
+			return buf[pos++];
+		}
+
+		/**
+		 * next - The fields of the next record, null at the end of the stream. Empty lines are skipped.
+		 */
+		String[] next() throws IOException {
+			List<String> fields = new ArrayList<String>();
+			field.setLength(0);
+			boolean quoted = false; // inside a quoted field
+			boolean any = false; // read anything of this record
+			int c;
+			while ((c = read()) != -1) {
+				if (quoted) {
+					if (c == '"') {
+						int d = read();
+						if (d == '"') {
+							field.append('"');
+						} else {
+							quoted = false;
+							if (d == -1)
+								break;
+							pos--; // look at it again outside the quotes
+						}
+					} else {
+						field.append((char) c);
+					}
+				} else if (c == '"' && field.length() == 0) {
+					quoted = true;
+					any = true;
+				} else if (c == delimiter) {
+					fields.add(field.toString());
+					field.setLength(0);
+					any = true;
+				} else if (c == '\n' || c == '\r') {
+					if (c == '\r') {
+						int d = read();
+						if (d != '\n' && d != -1)
+							pos--;
+					}
+					if (any || field.length() > 0)
+						break;
+				} else {
+					field.append((char) c);
+					any = true;
+				}
+			}
+			if (!any && field.length() == 0)
+				return null;
+			fields.add(field.toString());
+			return fields.toArray(new String[fields.size()]);
+		}
+	}
+
+	/**
+	 * CountingReader - Counts the characters read, to report the progress through the file
+	 */
+	static class CountingReader extends Reader {
+		private final BufferedReader in;
+		private volatile long count = 0;
+
+		CountingReader(BufferedReader in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int n = in.read(cbuf, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+
+		/**
+		 * skipByteOrderMark - Skips a U+FEFF at the start, which would be a part of the first column name
+		 */
+		void skipByteOrderMark() throws IOException {
+			in.mark(1);
+			if (in.read() != '\uFEFF')
+				in.reset();
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
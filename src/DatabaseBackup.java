@@ -0,0 +1,212 @@
+/** DatabaseBackup.java
+ *
+ * Copies an open database to a file with the online backup API of SQLite, while it is in use.
+ *
+ * The pages are copied pagesPerStep at a time from a reader connection, with a pause after every step, so the
+ * copy shares the disk with the queries and writers instead of taking all of it. In WAL mode the reader
+ * holds one read transaction for the whole copy: the copy is the database as it was when it started, and
+ * writers go on all along, their commits go to the WAL. Without WAL the read lock is only held during a
+ * step, so writers commit between two steps; a commit from another connection makes SQLite start the copy
+ * over, and after MAX_RESTARTS restarts the pauses are dropped, so the copy gets through between the writes.
+ *
+ * The copy goes to a .part file next to the target, which is renamed to the target once it is complete, so
+ * an hourly snapshot is never left half written. sqlite-jdbc runs all the steps in one native call, so a
+ * cancel cannot stop it part way: it drops the pauses, and the .part file is deleted when the copy is done.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class DatabaseBackup {
+
+	public static final int DEFAULT_PAGES_PER_STEP = 1000; // 4 MB with the default page size
+	public static final long DEFAULT_PAUSE_MILLIS = 10; // time between steps in which others use the disk
+	private static final int BUSY_SLEEP_MILLIS = 100; // wait after a step found the source locked
+	private static final int BUSY_RETRIES = 50; // locked steps in a row before the copy fails
+	private static final int MAX_RESTARTS = 3; // restarts with pauses, before the copy runs without them
+
+	private final SqliteJdbc sq;
+	private final Path target;
+	private int pagesPerStep = DEFAULT_PAGES_PER_STEP;
+	private long pauseMillis = DEFAULT_PAUSE_MILLIS;
+	private volatile boolean cancelled = false;
+	private volatile long pages = 0; // pages copied, counted again after a restart
+	private volatile long totalPages = 0; // pages of the database
+	private volatile int restarts = 0;
+	private volatile boolean snapshot = false; // copied in one read transaction
+	private long remaining = -1; // pages left after the last step
+	private long startNanos = 0;
+	private volatile long nanos = 0; // time of the copy so far
+
+	public DatabaseBackup(SqliteJdbc sq, Path target) {
+		this.sq = sq;
+		this.target = target;
+	}
+
+	/**
+	 * setPagesPerStep - Pages copied between two pauses
+	 */
+	public void setPagesPerStep(int pagesPerStep) {
+		this.pagesPerStep = Math.max(1, pagesPerStep);
+	}
+
+	/**
+	 * setPauseMillis - Time between two steps, 0 for none
+	 */
+	public void setPauseMillis(long pauseMillis) {
+		this.pauseMillis = Math.max(0, pauseMillis);
+	}
+
+	/**
+	 * run - Copies the database to the target, and returns the pages of the copy. The target is left as it
+	 * was if the copy fails or is cancelled.
+	 */
+	public long run(ProgressListener listener) throws SQLException, IOException {
+		Path part = target.resolveSibling(target.getFileName() + ".part");
+		Files.deleteIfExists(part);
+		startNanos = System.nanoTime();
+		try {
+			int rc = sq.read((reader, statements) -> {
+				DB db = reader.unwrap(SQLiteConnection.class).getDatabase();
+				ConnectionManager manager = sq.getConnectionManager();
+				snapshot = manager != null && manager.isWal() && sq.hasReaders();
+				if (snapshot) {
+					reader.setAutoCommit(false);
+					try (Statement statement = reader.createStatement();
+							ResultSet rs = statement.executeQuery("SELECT count(*) FROM sqlite_master")) {
+						rs.next(); // the read transaction starts with the first read
+					}
+				}
+				try {
+					return db.backup("main", part.toString(), (left, total) -> step(left, total, listener),
+							BUSY_SLEEP_MILLIS, BUSY_RETRIES, pagesPerStep);
+				} finally {
+					if (snapshot) {
+						reader.commit();
+						reader.setAutoCommit(true);
+					}
+				}
+			});
+			nanos = System.nanoTime() - startNanos;
+			if (rc != 0)
+				throw new SQLException("SQLite error " + rc + " in the copy"
+						+ (rc == 5 || rc == 6 ? " (the database stayed locked)" : ""));
+			if (cancelled) {
+				Files.deleteIfExists(part);
+				return pages;
+			}
+			try {
+				Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return totalPages;
+		} catch (SQLException | IOException | RuntimeException e) {
+			Files.deleteIfExists(part);
+			throw e;
+		}
+	}
+
+	/**
+	 * step - Called by SQLite after every step, with the pages left and the pages of the database
+	 */
+	private void step(int left, int total, ProgressListener listener) {
+		if (remaining >= 0 && left > remaining)
+			restarts++; // another connection wrote to the database, SQLite starts over
+		pages += remaining < 0 || left > remaining ? total - left : remaining - left;
+		remaining = left;
+		totalPages = total;
+		nanos = System.nanoTime() - startNanos;
+		listener.progress(total - left, total);
+		if (left > 0 && pauseMillis > 0 && restarts < MAX_RESTARTS && !cancelled) {
+			try {
+				Thread.sleep(pauseMillis);
+			} catch (InterruptedException e) {
+				cancelled = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * cancel - Drops the pauses; the copy is deleted once SQLite is done with it
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getPages - Pages copied so far, the pages copied again after a restart included
+	 *
+	 * @return pages
+	 */
+	public long getPages() {
+		return pages;
+	}
+
+	/**
+	 * getTotalPages - Pages of the database, 0 until the first step
+	 *
+	 * @return totalPages
+	 */
+	public long getTotalPages() {
+		return totalPages;
+	}
+
+	/**
+	 * getRestarts - Times the copy started over because another connection wrote
+	 *
+	 * @return restarts
+	 */
+	public int getRestarts() {
+		return restarts;
+	}
+
+	/**
+	 * isSnapshot - The copy was made in one read transaction, as the database was when it started
+	 *
+	 * @return snapshot
+	 */
+	public boolean isSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * getPagesPerSecond - Pages copied per second of the copy, the pauses included
+	 */
+	public double getPagesPerSecond() {
+		return nanos > 0 ? pages * 1e9 / nanos : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d of %d pages in %.1f s (%.0f pages/s)", pages, totalPages, nanos / 1e9,
+				getPagesPerSecond()) + (restarts > 0 ? ", " + restarts + " restarts" : "")
+				+ (snapshot ? ", snapshot" : "");
+	}
+}
@@ -0,0 +1,649 @@
+/** DatabaseDiff.java
+ *
+ * Compares two databases and writes the SQL script that turns the first one into the second.
+ *
+ * The schemas are matched by the names in sqlite_master: objects only in one database, or with another CREATE
+ * statement, become DROP and CREATE statements. A table whose CREATE statement changed is dropped and filled
+ * again with the rows of the second database. The rows of the tables that are the same in both are compared
+ * in one pass over two cursors in key order, rowid or the primary key of a WITHOUT ROWID table, merged like
+ * the two halves of a merge sort: a key only in the first is a DELETE, only in the second an INSERT, and in
+ * both with other values an UPDATE of the columns that differ.
+ *
+ * Tables with a rowid are cut in chunks of at most MAX_CHUNK_ROWS rows, by rowid ranges that are the same on
+ * both sides. Every chunk is first hashed on both sides, SQLite joining the quoted values into one text, and
+ * only the chunks whose hashes differ are merged row by row; builds that differ in a few rows read little
+ * more than the two texts. Nothing holds more than one chunk, so tables of any size diff in bounded memory.
+ *
+ * All the triggers of the first database are dropped at the start of the script and those of the second
+ * created at its end, so the script does not fire them. sqlite_sequence, sqlite_stat1 and virtual tables with
+ * their shadow tables are not compared. Rows of rowid tables are matched by rowid, so a table without an
+ * INTEGER PRIMARY KEY whose rowids were renumbered, by a VACUUM, shows up as all rows changed.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class DatabaseDiff {
+
+	public static final int MAX_CHUNK_ROWS = 10000; // rows of a chunk hashed at a time
+	private static final long CHUNK_BYTES = 4L << 20; // text of a chunk hashed at a time, about
+	private static final int SAMPLE_ROWS = 1000; // rows read for the size of a row
+
+	/**
+	 * SchemaObject - A row of sqlite_master
+	 */
+	private static class SchemaObject {
+		final String type;
+		final String name;
+		final String table;
+		final String sql;
+
+		SchemaObject(String type, String name, String table, String sql) {
+			this.type = type;
+			this.name = name;
+			this.table = table;
+			this.sql = sql;
+		}
+
+		boolean same(SchemaObject other) {
+			return other != null && type.equals(other.type)
+					&& StatementCache.normalize(sql).equals(StatementCache.normalize(other.sql));
+		}
+
+		boolean isVirtual() {
+			return type.equals("table") && sql.toUpperCase(Locale.ROOT).startsWith("CREATE VIRTUAL");
+		}
+	}
+
+	/**
+	 * Key - How the rows of a table are matched and written
+	 */
+	private static class Key {
+		final String table;
+		final List<String> columns;
+		final boolean rowid; // value 0 of a row is the rowid, the columns follow
+		final boolean alias; // the rowid is an INTEGER PRIMARY KEY column, not written on its own
+		final int[] positions; // of the key in a row
+
+		Key(SchemaCatalog.Table table) {
+			this.table = table.name;
+			columns = table.getColumnNames();
+			rowid = table.hasRowid();
+			List<SchemaCatalog.Column> primaryKey = new ArrayList<SchemaCatalog.Column>();
+			for (SchemaCatalog.Column column : table.columns) {
+				if (column.primaryKey > 0)
+					primaryKey.add(column);
+			}
+			primaryKey.sort((a, b) -> Integer.compare(a.primaryKey, b.primaryKey));
+			alias = rowid && primaryKey.size() == 1 && primaryKey.get(0).type.equalsIgnoreCase("INTEGER");
+			if (rowid) {
+				positions = new int[] { 0 };
+			} else {
+				positions = new int[primaryKey.size()];
+				for (int i = 0; i < positions.length; i++) {
+					positions[i] = columns.indexOf(primaryKey.get(i).name);
+				}
+			}
+		}
+
+		/**
+		 * select - The select list of a row
+		 */
+		String select() {
+			StringBuilder sb = new StringBuilder(rowid ? "rowid" : "");
+			for (String column : columns) {
+				sb.append(sb.length() == 0 ? "" : ", ").append(SqliteJdbc.quote(column));
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * first - Position of the first column in a row
+		 */
+		int first() {
+			return rowid ? 1 : 0;
+		}
+	}
+
+	private final SqliteJdbc from;
+	private final SqliteJdbc to;
+	private final Writer out;
+	private final MessageDigest digest;
+	private volatile boolean cancelled = false;
+	private volatile long tables = 0; // tables whose rows were compared
+	private volatile long added = 0;
+	private volatile long removed = 0;
+	private volatile long changed = 0;
+	private volatile long chunks = 0;
+	private volatile long identical = 0; // chunks skipped because their hashes were the same
+	private final List<String> schemaChanges = new ArrayList<String>();
+
+	public DatabaseDiff(SqliteJdbc from, SqliteJdbc to, Writer out) {
+		this.from = from;
+		this.to = to;
+		this.out = out;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every Java has SHA-256
+		}
+	}
+
+	/**
+	 * run - Compares the databases and writes the script. The listener gets the tables done of all of them.
+	 */
+	public void run(ProgressListener listener) throws SQLException, IOException {
+		Map<String, SchemaObject> a = objects(from);
+		Map<String, SchemaObject> b = objects(to);
+		Set<String> skipped = shadowTables(a);
+		skipped.addAll(shadowTables(b));
+		SchemaCatalog catalog = to.getCatalog();
+
+		out.write("-- Turns " + from.getFilename() + " into " + to.getFilename() + "\n");
+		out.write("PRAGMA defer_foreign_keys = ON;\nBEGIN;\n");
+		// Drops, first of what depends on the tables
+		for (SchemaObject obj : a.values()) {
+			if (obj.type.equals("trigger"))
+				out.write("DROP TRIGGER IF EXISTS " + SqliteJdbc.quote(obj.name) + ";\n");
+		}
+		for (String type : new String[] { "view", "index" }) {
+			for (SchemaObject obj : a.values()) {
+				if (obj.type.equals(type) && !obj.same(b.get(key(obj.name)))) {
+					change(type + " " + obj.name + (b.containsKey(key(obj.name)) ? " changed" : " removed"));
+					out.write("DROP " + type.toUpperCase(Locale.ROOT) + " IF EXISTS " + SqliteJdbc.quote(obj.name) + ";\n");
+				}
+			}
+		}
+
+		// Tables: dropped, rebuilt, created, or compared row by row
+		List<SchemaObject> compared = new ArrayList<SchemaObject>();
+		Set<String> rebuilt = new HashSet<String>();
+		for (SchemaObject obj : a.values()) {
+			if (!obj.type.equals("table") || skipped.contains(key(obj.name)))
+				continue;
+			SchemaObject other = b.get(key(obj.name));
+			if (other == null || !other.type.equals("table")) {
+				change("table " + obj.name + " removed");
+				out.write("DROP TABLE IF EXISTS " + SqliteJdbc.quote(obj.name) + ";\n");
+			} else if (!obj.same(other)) {
+				change("table " + obj.name + " changed, rebuilt");
+				out.write("DROP TABLE IF EXISTS " + SqliteJdbc.quote(obj.name) + ";\n");
+				rebuilt.add(key(obj.name));
+			} else if (!obj.isVirtual()) {
+				compared.add(other);
+			}
+		}
+		long total = compared.size() + rebuilt.size();
+		long done = 0;
+		for (SchemaObject obj : b.values()) {
+			if (!obj.type.equals("table") || skipped.contains(key(obj.name)) || cancelled)
+				continue;
+			boolean created = !a.containsKey(key(obj.name));
+			if (created || rebuilt.contains(key(obj.name))) {
+				if (created) {
+					change("table " + obj.name + " added");
+					total++;
+				}
+				out.write(obj.sql + ";\n");
+				if (!obj.isVirtual())
+					copyRows(new Key(catalog.getTable(obj.name)));
+				listener.progress(++done, total);
+			}
+		}
+		for (SchemaObject obj : compared) {
+			if (cancelled)
+				break;
+			diffRows(new Key(catalog.getTable(obj.name)));
+			tables++;
+			listener.progress(++done, total);
+		}
+
+		// Creates, last of what depends on the tables
+		for (String type : new String[] { "index", "view", "trigger" }) {
+			for (SchemaObject obj : b.values()) {
+				if (!obj.type.equals(type) || skipped.contains(key(obj.table)))
+					continue;
+				SchemaObject other = a.get(key(obj.name));
+				if (type.equals("trigger") || !obj.same(other) || rebuilt.contains(key(obj.table))) {
+					if (other == null)
+						change(type + " " + obj.name + " added");
+					out.write(obj.sql + ";\n");
+				}
+			}
+		}
+		out.write(cancelled ? "ROLLBACK; -- the comparison was cancelled\n" : "COMMIT;\n");
+		out.flush();
+	}
+
+	/**
+	 * objects - The tables, indexes, views and triggers of a database by lower case name
+	 */
+	private static Map<String, SchemaObject> objects(SqliteJdbc sq) throws SQLException {
+		return sq.read((reader, statements) -> {
+			Map<String, SchemaObject> res = new LinkedHashMap<String, SchemaObject>();
+			try (Statement statement = reader.createStatement();
+					ResultSet rs = statement.executeQuery("SELECT type, name, tbl_name, sql FROM sqlite_master "
+							+ "WHERE sql IS NOT NULL AND name NOT LIKE 'sqlite\\_%' ESCAPE '\\' ORDER BY rowid")) {
+				while (rs.next()) {
+					SchemaObject obj = new SchemaObject(rs.getString(1), rs.getString(2), rs.getString(3),
+							rs.getString(4));
+					res.put(key(obj.name), obj);
+				}
+			}
+			return res;
+		});
+	}
+
+	/**
+	 * shadowTables - The virtual tables and the tables that hold their data, like fts_data of fts
+	 */
+	private static Set<String> shadowTables(Map<String, SchemaObject> objects) {
+		Set<String> res = new HashSet<String>();
+		for (SchemaObject obj : objects.values()) {
+			if (!obj.isVirtual())
+				continue;
+			res.add(key(obj.name));
+			for (SchemaObject other : objects.values()) {
+				if (other.type.equals("table") && key(other.name).startsWith(key(obj.name) + "_"))
+					res.add(key(other.name));
+			}
+		}
+		return res;
+	}
+
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private void change(String text) throws IOException {
+		schemaChanges.add(text);
+		out.write("-- " + text + "\n");
+	}
+
+	/**
+	 * copyRows - Inserts all the rows of a table of the second database
+	 */
+	private void copyRows(Key key) throws SQLException, IOException {
+		String sql = "SELECT " + key.select() + " FROM " + SqliteJdbc.quote(key.table);
+		try {
+			to.read((reader, statements) -> {
+				try (Statement statement = reader.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+					Object[] row;
+					while (!cancelled && (row = next(rs)) != null) {
+						insert(key, row);
+					}
+				}
+				return null;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * diffRows - Compares the rows of a table that is the same in both databases
+	 */
+	private void diffRows(Key key) throws SQLException, IOException {
+		if (!key.rowid) {
+			String order = "";
+			for (int position : key.positions) {
+				order += (order.isEmpty() ? "" : ", ") + SqliteJdbc.quote(key.columns.get(position)) + " COLLATE BINARY";
+			}
+			merge(key, "SELECT " + key.select() + " FROM " + SqliteJdbc.quote(key.table) + " ORDER BY " + order,
+					null);
+			return;
+		}
+		int chunkRows = Math.min(chunkRows(from, key), chunkRows(to, key));
+		String boundSql = "SELECT rowid FROM " + SqliteJdbc.quote(key.table)
+				+ " WHERE rowid >= ? ORDER BY rowid LIMIT 1 OFFSET " + (chunkRows - 1);
+		// The rows of the subquery come in rowid order, the order of its scan; a third faster than ORDER BY in
+		// group_concat, which sorts them again. Were the order ever not kept, chunks would only be merged for nothing.
+		String hashSql = "SELECT count(*), group_concat(r, char(10)) FROM (SELECT " + quotedRow(key) + " AS r FROM "
+				+ SqliteJdbc.quote(key.table) + " WHERE rowid BETWEEN ? AND ? ORDER BY rowid)";
+		String rangeSql = "SELECT " + key.select() + " FROM " + SqliteJdbc.quote(key.table)
+				+ " WHERE rowid BETWEEN ? AND ? ORDER BY rowid";
+		long start = Long.MIN_VALUE;
+		while (!cancelled) {
+			// The chunk ends where the first side has its chunkRows rows, so neither has more
+			Long endFrom = single(from, boundSql, start);
+			Long endTo = single(to, boundSql, start);
+			long end = endFrom == null ? (endTo == null ? Long.MAX_VALUE : endTo)
+					: endTo == null ? endFrom : Math.min(endFrom, endTo);
+			chunks++;
+			if (Arrays.equals(hash(from, hashSql, start, end), hash(to, hashSql, start, end)))
+				identical++;
+			else
+				merge(key, rangeSql, new long[] { start, end });
+			if (end == Long.MAX_VALUE)
+				break;
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * chunkRows - Rows of a chunk, so its text stays around CHUNK_BYTES; octet_length does not read the values
+	 */
+	private static int chunkRows(SqliteJdbc sq, Key key) throws SQLException {
+		StringBuilder size = new StringBuilder("16");
+		for (String column : key.columns) {
+			size.append(" + 2 * coalesce(octet_length(").append(SqliteJdbc.quote(column)).append("), 4)");
+		}
+		String sql = "SELECT avg(size) FROM (SELECT " + size + " AS size FROM " + SqliteJdbc.quote(key.table)
+				+ " LIMIT " + SAMPLE_ROWS + ")";
+		double bytes = sq.read((reader, statements) -> {
+			try (Statement statement = reader.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+				return rs.next() ? rs.getDouble(1) : 0;
+			}
+		});
+		return (int) Math.max(1, Math.min(MAX_CHUNK_ROWS, CHUNK_BYTES / Math.max(1, bytes)));
+	}
+
+	/**
+	 * quotedRow - The SQL of a row as one text, the quoted values joined with commas
+	 */
+	private static String quotedRow(Key key) {
+		StringBuilder sb = new StringBuilder(key.alias ? "" : "quote(rowid)");
+		for (String column : key.columns) {
+			sb.append(sb.length() == 0 ? "" : " || ',' || ").append("quote(").append(SqliteJdbc.quote(column)).append(")");
+		}
+		return sb.toString();
+	}
+
+	private static Long single(SqliteJdbc sq, String sql, long start) throws SQLException {
+		return sq.read((reader, statements) -> {
+			PreparedStatement statement = statements.acquire(sql);
+			try {
+				statement.setLong(1, start);
+				try (ResultSet rs = statement.executeQuery()) {
+					return rs.next() ? rs.getLong(1) : null;
+				}
+			} finally {
+				statements.release(sql, statement);
+			}
+		});
+	}
+
+	/**
+	 * hash - The SHA-256 of the rows of a chunk and their number
+	 */
+	private byte[] hash(SqliteJdbc sq, String sql, long start, long end) throws SQLException {
+		return sq.read((reader, statements) -> {
+			PreparedStatement statement = statements.acquire(sql);
+			try {
+				statement.setLong(1, start);
+				statement.setLong(2, end);
+				try (ResultSet rs = statement.executeQuery()) {
+					rs.next();
+					digest.reset();
+					digest.update(Long.toString(rs.getLong(1)).getBytes());
+					byte[] text = rs.getBytes(2); // the UTF-8 of the text, without a String of it
+					if (text != null)
+						digest.update(text);
+					return digest.digest();
+				}
+			} finally {
+				statements.release(sql, statement);
+			}
+		});
+	}
+
+	/**
+	 * merge - Compares the rows of two cursors in key order, of a rowid range when range is not null
+	 */
+	private void merge(Key key, String sql, long[] range) throws SQLException, IOException {
+		try {
+			from.read((readerFrom, statementsFrom) -> to.read((readerTo, statementsTo) -> {
+				PreparedStatement statementFrom = readerFrom.prepareStatement(sql);
+				PreparedStatement statementTo = readerTo.prepareStatement(sql);
+				try {
+					if (range != null) {
+						for (PreparedStatement statement : new PreparedStatement[] { statementFrom, statementTo }) {
+							statement.setLong(1, range[0]);
+							statement.setLong(2, range[1]);
+						}
+					}
+					try (ResultSet rsFrom = statementFrom.executeQuery(); ResultSet rsTo = statementTo.executeQuery()) {
+						Object[] a = next(rsFrom);
+						Object[] b = next(rsTo);
+						while ((a != null || b != null) && !cancelled) {
+							int cmp = a == null ? 1 : b == null ? -1 : compareKeys(a, b, key.positions);
+							if (cmp < 0) {
+								delete(key, a);
+								a = next(rsFrom);
+							} else if (cmp > 0) {
+								insert(key, b);
+								b = next(rsTo);
+							} else {
+								update(key, a, b);
+								a = next(rsFrom);
+								b = next(rsTo);
+							}
+						}
+					}
+				} finally {
+					statementFrom.close();
+					statementTo.close();
+				}
+				return null;
+			}));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static Object[] next(ResultSet rs) throws SQLException {
+		if (!rs.next())
+			return null;
+		Object[] row = new Object[rs.getMetaData().getColumnCount()];
+		for (int i = 0; i < row.length; i++) {
+			Object value = rs.getObject(i + 1);
+			row[i] = value instanceof Integer ? Long.valueOf((Integer) value) : value;
+		}
+		return row;
+	}
+
+	private void insert(Key key, Object[] row) {
+		StringBuilder sb = new StringBuilder("INSERT INTO ").append(SqliteJdbc.quote(key.table)).append(" (");
+		int first = key.alias ? 1 : 0; // the rowid is written on its own only without an INTEGER PRIMARY KEY
+		for (int i = first; i < row.length; i++) {
+			sb.append(i == first ? "" : ", ").append(i == 0 && key.rowid ? "rowid" : SqliteJdbc.quote(columnOf(key, i)));
+		}
+		sb.append(") VALUES (");
+		for (int i = first; i < row.length; i++) {
+			sb.append(i == first ? "" : ", ").append(ResultExporter.sqlLiteral(row[i]));
+		}
+		write(sb.append(");\n").toString());
+		added++;
+	}
+
+	private void delete(Key key, Object[] row) {
+		write("DELETE FROM " + SqliteJdbc.quote(key.table) + " WHERE " + where(key, row) + ";\n");
+		removed++;
+	}
+
+	private void update(Key key, Object[] a, Object[] b) {
+		StringBuilder set = new StringBuilder();
+		for (int i = key.first(); i < b.length; i++) {
+			if (!same(a[i], b[i]))
+				set.append(set.length() == 0 ? "" : ", ").append(SqliteJdbc.quote(columnOf(key, i))).append(" = ")
+						.append(ResultExporter.sqlLiteral(b[i]));
+		}
+		if (set.length() == 0)
+			return;
+		write("UPDATE " + SqliteJdbc.quote(key.table) + " SET " + set + " WHERE " + where(key, a) + ";\n");
+		changed++;
+	}
+
+	private static String columnOf(Key key, int position) {
+		return key.columns.get(position - key.first());
+	}
+
+	private static String where(Key key, Object[] row) {
+		if (key.rowid)
+			return "rowid = " + row[0];
+		StringBuilder sb = new StringBuilder();
+		for (int position : key.positions) {
+			sb.append(sb.length() == 0 ? "" : " AND ").append(SqliteJdbc.quote(key.columns.get(position)))
+					.append(" = ").append(ResultExporter.sqlLiteral(row[position]));
+		}
+		return sb.toString();
+	}
+
+	private void write(String text) {
+		try {
+			out.write(text);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * same - Values of the same storage class and value; 1 and 1.0 differ
+	 */
+	static boolean same(Object a, Object b) {
+		if (a == null || b == null)
+			return a == b;
+		if (a instanceof byte[] && b instanceof byte[])
+			return Arrays.equals((byte[]) a, (byte[]) b);
+		return a.getClass() == b.getClass() && a.equals(b);
+	}
+
+	/**
+	 * compareKeys - The order of ORDER BY ... COLLATE BINARY: NULL, numbers, text by its UTF-8 bytes, blobs
+	 */
+	static int compareKeys(Object[] a, Object[] b, int[] positions) {
+		for (int position : positions) {
+			int cmp = compareValue(a[position], b[position]);
+			if (cmp != 0)
+				return cmp;
+		}
+		return 0;
+	}
+
+	private static int compareValue(Object a, Object b) {
+		int ka = kind(a);
+		int kb = kind(b);
+		if (ka != kb || ka == 0)
+			return Integer.compare(ka, kb);
+		if (ka == 1) {
+			if (a instanceof Long && b instanceof Long)
+				return Long.compare((Long) a, (Long) b);
+			return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+		}
+		if (ka == 2) {
+			// By code points, the order of UTF-8 bytes; compareTo of String goes by UTF-16 units
+			String sa = (String) a;
+			String sb = (String) b;
+			int i = 0;
+			int j = 0;
+			while (i < sa.length() && j < sb.length()) {
+				int ca = sa.codePointAt(i);
+				int cb = sb.codePointAt(j);
+				if (ca != cb)
+					return Integer.compare(ca, cb);
+				i += Character.charCount(ca);
+				j += Character.charCount(cb);
+			}
+			return Integer.compare(sa.length() - i, sb.length() - j);
+		}
+		byte[] ba = (byte[]) a;
+		byte[] bb = (byte[]) b;
+		for (int i = 0; i < Math.min(ba.length, bb.length); i++) {
+			if (ba[i] != bb[i])
+				return Integer.compare(ba[i] & 0xff, bb[i] & 0xff);
+		}
+		return Integer.compare(ba.length, bb.length);
+	}
+
+	private static int kind(Object value) {
+		return value == null ? 0 : value instanceof Number ? 1 : value instanceof byte[] ? 3 : 2;
+	}
+
+	/**
+	 * cancel - Stops after the row compared now; the script ends with a ROLLBACK
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getAdded - Rows inserted by the script, of new and rebuilt tables as well
+	 *
+	 * @return added
+	 */
+	public long getAdded() {
+		return added;
+	}
+
+	/**
+	 * getRemoved - Rows only in the first database
+	 *
+	 * @return removed
+	 */
+	public long getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * getChanged - Rows in both with other values
+	 *
+	 * @return changed
+	 */
+	public long getChanged() {
+		return changed;
+	}
+
+	/**
+	 * getSchemaChanges - Tables, indexes, views and triggers added, removed or changed
+	 *
+	 * @return schemaChanges
+	 */
+	public List<String> getSchemaChanges() {
+		return schemaChanges;
+	}
+
+	/**
+	 * isIdentical - Neither the schema nor any row differs
+	 */
+	public boolean isIdentical() {
+		return schemaChanges.isEmpty() && added == 0 && removed == 0 && changed == 0;
+	}
+
+	@Override
+	public String toString() {
+		return tables + " tables compared: " + added + " rows added, " + removed + " removed, " + changed
+				+ " changed, " + identical + " of " + chunks + " chunks identical; " + schemaChanges.size()
+				+ " schema changes";
+	}
+}
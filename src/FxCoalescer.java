@@ -0,0 +1,40 @@
+/** FxCoalescer.java
+ *
+ * Coalesces GUI updates requested from background threads.
+ *
+ * Any number of requests made before the JavaFX thread gets to run the update result in a single
+ * Platform.runLater call, so a fast worker cannot flood the event queue.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class FxCoalescer {
+
+	private final AtomicBoolean scheduled = new AtomicBoolean(false); // an update is waiting on the FX thread
+	private final Runnable update; // the update, it should read the latest state when it runs
+
+	public FxCoalescer(Runnable update) {
+		this.update = update;
+	}
+
+	/**
+	 * request - Schedules the update unless one is already pending. Safe to call from any thread.
+	 */
+	public void request() {
+		if (scheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				scheduled.set(false);
+				update.run();
+			});
+		}
+	}
+}
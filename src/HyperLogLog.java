@@ -0,0 +1,111 @@
+/** HyperLogLog.java
+ *
+ * Counts the distinct values of a column approximately, in a fixed, small memory.
+ *
+ * Every value is hashed to 64 bits. The first PRECISION bits choose one of 2^PRECISION registers, which keeps
+ * the longest run of leading zeros seen in the rest of the hash. The more distinct values, the longer the
+ * runs, and the harmonic mean of the registers gives the count. With 4096 registers, 4 KB, the error is
+ * about 1.6% for any count; small counts, where registers are still empty, are counted exactly enough by
+ * linear counting. Values SQLite holds equal, like 1 and 1.0, hash the same; text and a blob of the same
+ * bytes do not.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.nio.charset.StandardCharsets;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class HyperLogLog {
+
+	private static final int PRECISION = 12;
+	private static final int REGISTERS = 1 << PRECISION;
+	private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+	private final byte[] registers = new byte[REGISTERS];
+
+	/**
+	 * add - Adds a value as it comes from getObject of a ResultSet. NULL is not a value and is skipped.
+	 */
+	public void add(Object value) {
+		if (value == null)
+			return;
+		if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			long l = (long) d;
+			addHash(l == d ? mix(l) : mix(Double.doubleToLongBits(d) ^ 0x5bd1e995L));
+		} else if (value instanceof Number) {
+			addHash(mix(((Number) value).longValue()));
+		} else if (value instanceof byte[]) {
+			addHash(hash((byte[]) value, 0x27d4eb2f165667c5L));
+		} else {
+			addHash(hash(value.toString().getBytes(StandardCharsets.UTF_8), 0x9e3779b97f4a7c15L));
+		}
+	}
+
+	/**
+	 * addHash - Adds a value by its 64 bit hash
+	 */
+	public void addHash(long hash) {
+		int register = (int) (hash >>> (64 - PRECISION));
+		// Leading zeros of the bits after the register, plus one; the 1 bit at the end bounds it
+		int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+		if (rank > registers[register])
+			registers[register] = (byte) rank;
+	}
+
+	/**
+	 * merge - Adds the values counted by another one
+	 */
+	public void merge(HyperLogLog other) {
+		for (int i = 0; i < REGISTERS; i++) {
+			if (other.registers[i] > registers[i])
+				registers[i] = other.registers[i];
+		}
+	}
+
+	/**
+	 * estimate - The number of distinct values added
+	 */
+	public long estimate() {
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0)
+				zeros++;
+		}
+		double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+		if (estimate <= 2.5 * REGISTERS && zeros > 0)
+			estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+		return Math.round(estimate);
+	}
+
+	private static long hash(byte[] bytes, long seed) {
+		long h = seed ^ bytes.length;
+		for (byte b : bytes) {
+			h = (h ^ (b & 0xff)) * 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * mix - The finalizer of MurmurHash3, every bit of the input changes about half the bits of the output
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		return "~" + estimate();
+	}
+}
@@ -0,0 +1,503 @@
+/** IndexAdvisor.java
+ *
+ * Suggests CREATE INDEX statements for the queries in the history of a database.
+ *
+ * The schema, and the sqlite_stat1 statistics if there are any, are copied without the data to an in-memory
+ * scratch database, so the planner makes the same choices there as on the real one. For every table a query
+ * reads with a full scan, or sorts in a temp B-tree, indexes are made up from the columns the query compares
+ * (equalities first, then a range) and sorts on. Each one is created on the scratch copy and the queries of
+ * the history that use its table are planned again. An index is suggested when a query then uses it and a
+ * full scan, a sort or an automatic index goes away, and nothing gets worse; the estimated benefit is the
+ * rows of the tables not scanned any more, times the runs of the queries.
+ *
+ * The column references are read from the tokens of the query, which is enough to make up candidates; the
+ * planner decides whether a candidate helps.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.sqlite.SQLiteConfig;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class IndexAdvisor {
+
+	private static final String PROBE = "nisqlite_advisor_probe"; // name of the index being tried
+	private static final int MAX_COLUMNS = 3; // columns of a suggested index at most
+	private static final int MAX_EXAMPLES = 3; // queries shown with a suggestion
+
+	// Words after a table name that are not its alias
+	private static final Set<String> NOT_ALIAS = new HashSet<String>(Arrays.asList("WHERE", "JOIN", "INNER", "LEFT",
+			"RIGHT", "FULL", "OUTER", "CROSS", "NATURAL", "ON", "USING", "ORDER", "GROUP", "HAVING", "LIMIT", "UNION",
+			"EXCEPT", "INTERSECT", "SET", "INDEXED", "NOT", "WINDOW", "VALUES", "DEFAULT", "SELECT", "RETURNING"));
+
+	/**
+	 * Suggestion - An index and what it saves
+	 */
+	public static class Suggestion {
+		private final String table;
+		private final List<String> columns;
+		private long queries = 0; // queries of the history it helps
+		private long runs = 0; // runs of those queries
+		private long rowsAvoided = 0; // rows not scanned any more, over all the runs
+		private long sortsAvoided = 0; // sorts and automatic indexes not needed any more, over all the runs
+		private final Set<String> helped = new HashSet<String>(); // normalized SQL of the queries it helps
+		private final List<String> examples = new ArrayList<String>();
+
+		Suggestion(String table, List<String> columns) {
+			this.table = table;
+			this.columns = columns;
+		}
+
+		/**
+		 * getSql - The CREATE INDEX statement
+		 */
+		public String getSql() {
+			StringBuilder name = new StringBuilder("idx_" + table);
+			for (String column : columns) {
+				name.append('_').append(column);
+			}
+			return getSql(name.toString().replaceAll("\\W", "_"));
+		}
+
+		String getSql(String name) {
+			StringBuilder cols = new StringBuilder();
+			for (String column : columns) {
+				cols.append(cols.length() == 0 ? "" : ", ").append(SqliteJdbc.quote(column));
+			}
+			return "CREATE INDEX " + SqliteJdbc.quote(name) + " ON " + SqliteJdbc.quote(table) + " (" + cols + ")";
+		}
+
+		/**
+		 * getTable
+		 *
+		 * @return table
+		 */
+		public String getTable() {
+			return table;
+		}
+
+		/**
+		 * getColumns
+		 *
+		 * @return columns
+		 */
+		public List<String> getColumns() {
+			return columns;
+		}
+
+		/**
+		 * getRowsAvoided - Estimated rows not scanned any more, over all the runs of the history
+		 *
+		 * @return rowsAvoided
+		 */
+		public long getRowsAvoided() {
+			return rowsAvoided;
+		}
+
+		/**
+		 * getSortsAvoided - Sorts and automatic indexes not needed any more, over all the runs of the history
+		 *
+		 * @return sortsAvoided
+		 */
+		public long getSortsAvoided() {
+			return sortsAvoided;
+		}
+
+		/**
+		 * getExamples - Some of the queries it helps
+		 *
+		 * @return examples
+		 */
+		public List<String> getExamples() {
+			return examples;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(getSql()).append(";\n  -- helps ").append(queries)
+					.append(queries == 1 ? " query" : " queries").append(" run ").append(runs).append(" times");
+			if (rowsAvoided > 0)
+				sb.append(", about ").append(rowsAvoided).append(" rows less scanned");
+			if (sortsAvoided > 0)
+				sb.append(", ").append(sortsAvoided).append(" sorts less");
+			for (String example : examples) {
+				sb.append("\n  -- ").append(example.replaceAll("\\s+", " "));
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Query - A query of the history, with its plan on the scratch copy and the columns it refers to
+	 */
+	private static class Query {
+		final String sql;
+		final long runs;
+		final QueryPlan before;
+		final Map<String, String> tables = new HashMap<String, String>(); // lower case table or alias -> table
+		final Map<String, Refs> refs = new LinkedHashMap<String, Refs>(); // by table
+
+		Query(String sql, long runs, QueryPlan before) {
+			this.sql = sql;
+			this.runs = runs;
+			this.before = before;
+		}
+
+		/**
+		 * scannedRows - Rows of the tables a plan reads from start to end, as far as they are known
+		 */
+		long scannedRows(QueryPlan plan, Map<String, Long> rows) {
+			long res = 0;
+			for (String scanned : plan.getFullScans()) {
+				Long tableRows = rows.get(tables.get(scanned.toLowerCase(Locale.ROOT)));
+				if (tableRows != null)
+					res += tableRows;
+			}
+			return res;
+		}
+
+		/**
+		 * scans - Whether a plan reads some table of the query from start to end
+		 */
+		boolean scans(QueryPlan plan) {
+			for (String scanned : plan.getFullScans()) {
+				if (tables.containsKey(scanned.toLowerCase(Locale.ROOT)))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Refs - The columns of one table a query compares and sorts on
+	 */
+	private static class Refs {
+		final Set<String> equal = new LinkedHashSet<String>(); // compared with =, IN or IS
+		final Set<String> range = new LinkedHashSet<String>(); // compared otherwise
+		final Set<String> order = new LinkedHashSet<String>(); // in ORDER BY or GROUP BY
+	}
+
+	private final SqliteJdbc sq;
+
+	public IndexAdvisor(SqliteJdbc sq) {
+		this.sq = sq;
+	}
+
+	/**
+	 * advise - The indexes that would help the queries of the history most, the best first
+	 */
+	public List<Suggestion> advise(List<QueryHistory.Entry> history) throws SQLException {
+		SchemaCatalog catalog = sq.getCatalog();
+		SQLiteConfig config = new SQLiteConfig();
+		try (Connection scratch = config.createConnection("jdbc:sqlite::memory:");
+				Statement statement = scratch.createStatement()) {
+			Map<String, Long> rows = copySchema(scratch, catalog);
+
+			// The queries, their plans before and the indexes that might help them
+			List<Query> queries = new ArrayList<Query>();
+			Map<String, Suggestion> candidates = new LinkedHashMap<String, Suggestion>();
+			for (QueryHistory.Entry entry : history) {
+				Query query = parse(entry, scratch, catalog);
+				if (query == null)
+					continue;
+				queries.add(query);
+				for (Map.Entry<String, Refs> refs : query.refs.entrySet()) {
+					String table = refs.getKey();
+					if (!query.scans(query.before) && sorts(query.before) == 0)
+						continue; // nothing to gain
+					for (List<String> columns : candidates(refs.getValue())) {
+						String key = table + "\t" + columns;
+						if (!candidates.containsKey(key))
+							candidates.put(key, new Suggestion(table, columns));
+					}
+				}
+			}
+
+			// Every candidate on the scratch copy, against every query of its table
+			List<Suggestion> helpful = new ArrayList<Suggestion>();
+			for (Suggestion candidate : candidates.values()) {
+				statement.execute(candidate.getSql(PROBE));
+				try {
+					for (Query query : queries) {
+						if (query.refs.containsKey(candidate.table))
+							evaluate(candidate, query, scratch, rows);
+					}
+				} finally {
+					statement.execute("DROP INDEX " + PROBE);
+				}
+				if (candidate.queries > 0)
+					helpful.add(candidate);
+			}
+			return best(helpful);
+		}
+	}
+
+	/**
+	 * copySchema - Creates the tables, views and indexes of the database on the scratch copy, with the
+	 * statistics, and returns the estimated rows of every table
+	 */
+	private Map<String, Long> copySchema(Connection scratch, SchemaCatalog catalog) throws SQLException {
+		Map<String, Long> rows = new HashMap<String, Long>();
+		List<String[]> stats = new ArrayList<String[]>();
+		List<String> schema = sq.read((reader, cache) -> {
+			List<String> res = new ArrayList<String>();
+			try (Statement statement = reader.createStatement()) {
+				try (ResultSet rsMaster = statement.executeQuery("SELECT sql FROM sqlite_master WHERE sql IS NOT NULL"
+						+ " AND name NOT LIKE 'sqlite_%' AND type IN ('table', 'view', 'index')"
+						+ " ORDER BY type = 'index', type = 'view', rowid")) {
+					while (rsMaster.next()) {
+						res.add(rsMaster.getString(1));
+					}
+				}
+				if (catalog.getTable("sqlite_stat1") != null) {
+					try (ResultSet rsStat = statement.executeQuery("SELECT tbl, idx, stat FROM sqlite_stat1")) {
+						while (rsStat.next()) {
+							stats.add(new String[] { rsStat.getString(1), rsStat.getString(2), rsStat.getString(3) });
+						}
+					}
+				}
+				for (SchemaCatalog.Table table : catalog.getTables()) {
+					if (table.hasRowid() && !table.name.startsWith("sqlite_")) {
+						try (ResultSet rsMax = statement
+								.executeQuery("SELECT max(rowid) FROM " + SqliteJdbc.quote(table.name))) {
+							if (rsMax.next())
+								rows.put(table.name, rsMax.getLong(1)); // an estimate that reads one row
+						}
+					}
+				}
+			}
+			return res;
+		});
+
+		try (Statement statement = scratch.createStatement()) {
+			for (String sql : schema) {
+				try {
+					statement.execute(sql);
+				} catch (SQLException e) {
+					// a virtual table without its module, or a view of an attached database: its queries are skipped
+				}
+			}
+			if (!stats.isEmpty()) {
+				statement.execute("ANALYZE"); // creates sqlite_stat1
+				statement.execute("DELETE FROM sqlite_stat1");
+				try (PreparedStatement insert = scratch.prepareStatement("INSERT INTO sqlite_stat1 VALUES (?, ?, ?)")) {
+					for (String[] stat : stats) {
+						for (int i = 0; i < 3; i++) {
+							insert.setString(i + 1, stat[i]);
+						}
+						insert.executeUpdate();
+						String[] numbers = stat[2] != null ? stat[2].split(" ") : new String[0];
+						if (numbers.length > 0 && numbers[0].matches("\\d+"))
+							rows.put(stat[0], Long.parseLong(numbers[0])); // counted by ANALYZE, better than max(rowid)
+					}
+				}
+				statement.execute("ANALYZE sqlite_master"); // loads the statistics
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * parse - A query of the history with its plan on the scratch copy, null if it cannot be planned there
+	 */
+	private static Query parse(QueryHistory.Entry entry, Connection scratch, SchemaCatalog catalog) {
+		List<SqlScript.Statement> statements = SqlScript.split(entry.getSql());
+		if (statements.size() != 1)
+			return null;
+		SqlScript.Kind kind = statements.get(0).getKind();
+		if (kind != SqlScript.Kind.SELECT && kind != SqlScript.Kind.DML)
+			return null;
+		QueryPlan before;
+		try {
+			before = QueryPlan.explain(scratch, entry.getSql());
+		} catch (SQLException e) {
+			return null; // a temporary or attached table
+		}
+		Query query = new Query(entry.getSql(), entry.getCount(), before);
+		List<SqlScript.Token> tokens = statements.get(0).getTokens();
+
+		// The tables and their aliases: a name of a table after FROM, JOIN, a comma, UPDATE or INTO
+		for (int i = 1; i < tokens.size(); i++) {
+			SqlScript.Token token = tokens.get(i);
+			SqlScript.Token prev = tokens.get(i - 1);
+			if (!isName(token) || !(prev.is("FROM") || prev.is("JOIN") || prev.text.equals(",") || prev.is("UPDATE")
+					|| prev.is("INTO")))
+				continue;
+			SchemaCatalog.Table table = catalog.getTable(SqlScript.unquote(token));
+			if (table == null || table.isView())
+				continue;
+			query.tables.put(table.name.toLowerCase(Locale.ROOT), table.name);
+			int at = i + 1 < tokens.size() && tokens.get(i + 1).is("AS") ? i + 2 : i + 1;
+			if (at < tokens.size() && isName(tokens.get(at))
+					&& !NOT_ALIAS.contains(tokens.get(at).text.toUpperCase(Locale.ROOT)))
+				query.tables.put(SqlScript.unquote(tokens.get(at)).toLowerCase(Locale.ROOT), table.name);
+		}
+
+		// The columns of those tables in the conditions and the sort order
+		String clause = "";
+		for (int i = 0; i < tokens.size(); i++) {
+			SqlScript.Token token = tokens.get(i);
+			if (token.type == SqlScript.TokenType.WORD) {
+				String word = token.text.toUpperCase(Locale.ROOT);
+				if (word.equals("WHERE") || word.equals("ON") || word.equals("ORDER") || word.equals("GROUP")
+						|| word.equals("SELECT") || word.equals("FROM") || word.equals("SET")
+						|| word.equals("HAVING") || word.equals("LIMIT") || word.equals("VALUES")) {
+					clause = word;
+					continue;
+				}
+			}
+			if (!isName(token) || (i + 1 < tokens.size() && tokens.get(i + 1).text.equals(".")))
+				continue;
+			String column = SqlScript.unquote(token);
+			String table = null;
+			if (i >= 2 && tokens.get(i - 1).text.equals(".")) {
+				table = query.tables.get(SqlScript.unquote(tokens.get(i - 2)).toLowerCase(Locale.ROOT));
+			} else {
+				for (String name : new HashSet<String>(query.tables.values())) {
+					if (catalog.getTable(name).getColumn(column) != null) {
+						if (table != null) {
+							table = null; // in more than one table, an error for SQLite as well
+							break;
+						}
+						table = name;
+					}
+				}
+			}
+			SchemaCatalog.Column col = table == null ? null : catalog.getTable(table).getColumn(column);
+			if (col == null)
+				continue;
+			Refs refs = query.refs.computeIfAbsent(table, t -> new Refs());
+			if (clause.equals("WHERE") || clause.equals("ON")) {
+				String next = i + 1 < tokens.size() ? tokens.get(i + 1).text.toUpperCase(Locale.ROOT) : "";
+				String prev = i > 0 ? tokens.get(i - 1).text : "";
+				if (next.equals("=") || next.equals("==") || next.equals("IN") || next.equals("IS")
+						|| prev.equals("=") || prev.equals("=="))
+					refs.equal.add(col.name);
+				else
+					refs.range.add(col.name);
+			} else if (clause.equals("ORDER") || clause.equals("GROUP")) {
+				refs.order.add(col.name);
+			}
+		}
+		for (String table : query.tables.values()) {
+			query.refs.computeIfAbsent(table, t -> new Refs()); // a scanned table with no columns to index
+		}
+		return query;
+	}
+
+	private static boolean isName(SqlScript.Token token) {
+		return token.type == SqlScript.TokenType.WORD || token.type == SqlScript.TokenType.QUOTED;
+	}
+
+	private static int sorts(QueryPlan plan) {
+		int res = plan.getTempBtrees();
+		for (QueryPlan.Node node : plan.getNodes()) {
+			if (node.isAutomaticIndex())
+				res++;
+		}
+		return res;
+	}
+
+	/**
+	 * candidates - The indexes to try for the columns of one table: every column alone, the equalities, the
+	 * equalities and a range, the equalities and the sort order
+	 */
+	private static List<List<String>> candidates(Refs refs) {
+		List<List<String>> res = new ArrayList<List<String>>();
+		for (String column : refs.equal) {
+			add(res, Arrays.asList(column));
+		}
+		for (String column : refs.range) {
+			add(res, Arrays.asList(column));
+		}
+		add(res, new ArrayList<String>(refs.equal));
+		add(res, new ArrayList<String>(refs.order));
+		for (String column : refs.range) {
+			List<String> columns = new ArrayList<String>(refs.equal);
+			columns.add(column);
+			add(res, columns);
+		}
+		List<String> columns = new ArrayList<String>(refs.equal);
+		columns.addAll(refs.order);
+		add(res, columns);
+		return res;
+	}
+
+	private static void add(List<List<String>> candidates, List<String> columns) {
+		List<String> distinct = new ArrayList<String>(new LinkedHashSet<String>(columns));
+		if (distinct.size() > MAX_COLUMNS)
+			distinct = distinct.subList(0, MAX_COLUMNS);
+		if (!distinct.isEmpty() && !candidates.contains(distinct))
+			candidates.add(distinct);
+	}
+
+	/**
+	 * evaluate - Plans the query again with the candidate index and adds what it saves to the candidate
+	 */
+	private static void evaluate(Suggestion candidate, Query query, Connection scratch, Map<String, Long> rows) {
+		QueryPlan after;
+		try {
+			after = QueryPlan.explain(scratch, query.sql);
+		} catch (SQLException e) {
+			return;
+		}
+		if (!after.uses(PROBE))
+			return;
+		// The rows of all the tables: an index can make another table the one that is scanned
+		long scanned = query.scannedRows(query.before, rows) - query.scannedRows(after, rows);
+		int sorts = sorts(query.before) - sorts(after);
+		if (scanned < 0 || sorts < 0 || (scanned == 0 && sorts == 0))
+			return;
+		candidate.queries++;
+		candidate.runs += query.runs;
+		candidate.rowsAvoided += scanned * query.runs;
+		candidate.sortsAvoided += sorts * query.runs;
+		candidate.helped.add(StatementCache.normalize(query.sql));
+		if (candidate.examples.size() < MAX_EXAMPLES)
+			candidate.examples.add(query.sql);
+	}
+
+	/**
+	 * best - The helpful candidates, the best first, without the ones another does at least as well
+	 */
+	private static List<Suggestion> best(List<Suggestion> helpful) {
+		helpful.sort((a, b) -> a.rowsAvoided != b.rowsAvoided ? Long.compare(b.rowsAvoided, a.rowsAvoided)
+				: a.sortsAvoided != b.sortsAvoided ? Long.compare(b.sortsAvoided, a.sortsAvoided)
+						: Integer.compare(a.columns.size(), b.columns.size()));
+		List<Suggestion> res = new ArrayList<Suggestion>();
+		for (Suggestion candidate : helpful) {
+			boolean covered = false;
+			for (Suggestion chosen : res) {
+				if (chosen.table.equals(candidate.table) && chosen.helped.containsAll(candidate.helped)
+						&& chosen.rowsAvoided >= candidate.rowsAvoided
+						&& chosen.sortsAvoided >= candidate.sortsAvoided) {
+					covered = true;
+					break;
+				}
+			}
+			if (!covered)
+				res.add(candidate);
+		}
+		return res;
+	}
+}
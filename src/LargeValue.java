@@ -0,0 +1,260 @@
+/** LargeValue.java
+ *
+ * Large BLOB and TEXT values: short previews for the table of results, and the whole value on demand.
+ *
+ * A browsed table is read with previews, not with the columns themselves. typeof() and octet_length() of a
+ * column are answered by SQLite from the record header, without reading the overflow pages that hold a large
+ * value, so a row of 50 MB images costs a few bytes: a BLOB is shown as its size, with its bytes in hex when
+ * it is tiny, and a TEXT over WHOLE_BYTES as its first PREVIEW_CHARS characters and its size. Only TEXT up to
+ * PREVIEW_MAX_BYTES is read for its preview; a longer one is shown as its size alone.
+ *
+ * The whole value is then read by rowid, in chunks of substr(). sqlite-jdbc has no incremental blob I/O
+ * (sqlite3_blob_open), so SQLite reads the value for every chunk; the chunks only bound what Java holds, and
+ * their size grows with the value, so no value takes more than MAX_CHUNKS reads. All the chunks are read in
+ * one read transaction, so they are of the same value. TEXT is read as the bytes of the encoding of the
+ * database, UTF-8 for nearly all of them.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class LargeValue {
+
+	public static final int WHOLE_BYTES = 1024; // TEXT up to this size is shown whole
+	public static final int PREVIEW_CHARS = 200; // characters of a longer TEXT shown
+	public static final int PREVIEW_MAX_BYTES = 64 * 1024; // longer TEXT is shown as its size alone
+	private static final int HEX_BYTES = 16; // BLOBs up to this size are shown in hex
+	private static final int CHUNK_BYTES = 4 * 1024 * 1024; // smallest chunk read at a time
+	private static final int MAX_CHUNKS = 16; // reads of the value at most
+
+	private final SqliteJdbc sq;
+	private final String table;
+	private final String column;
+	private final long rowid;
+	private String type = null; // typeof() of the value, null until open
+	private long size = -1; // bytes of the value
+	private volatile boolean cancelled = false;
+
+	public LargeValue(SqliteJdbc sq, String table, String column, long rowid) {
+		this.sq = sq;
+		this.table = table;
+		this.column = column;
+		this.rowid = rowid;
+	}
+
+	/**
+	 * preview - The SQL expression of the preview of a column, named as the column
+	 */
+	public static String preview(String column) {
+		String c = SqliteJdbc.quote(column);
+		return "CASE WHEN typeof(" + c + ") = 'blob' THEN CASE WHEN octet_length(" + c + ") <= " + HEX_BYTES
+				+ " THEN 'x''' || hex(" + c + ") || '''' ELSE '<BLOB ' || octet_length(" + c + ") || ' bytes>' END"
+				+ " WHEN typeof(" + c + ") <> 'text' OR octet_length(" + c + ") <= " + WHOLE_BYTES + " THEN " + c
+				+ " WHEN octet_length(" + c + ") <= " + PREVIEW_MAX_BYTES + " THEN substr(" + c + ", 1, "
+				+ PREVIEW_CHARS + ") || '... <' || octet_length(" + c + ") || ' bytes>'"
+				+ " ELSE '<TEXT ' || octet_length(" + c + ") || ' bytes>' END AS " + c;
+	}
+
+	/**
+	 * preview - The preview of a BLOB that was read whole, the same as the SQL of preview(column) gives
+	 */
+	public static String preview(byte[] blob) {
+		if (blob.length > HEX_BYTES)
+			return "<BLOB " + blob.length + " bytes>";
+		StringBuilder sb = new StringBuilder("x'");
+		for (byte b : blob) {
+			sb.append(String.format("%02X", b & 0xff));
+		}
+		return sb.append('\'').toString();
+	}
+
+	/**
+	 * previewColumns - The select list of the previews of the columns
+	 */
+	public static String previewColumns(List<String> columns) {
+		StringBuilder sb = new StringBuilder();
+		for (String column : columns) {
+			sb.append(sb.length() == 0 ? "" : ", ").append(preview(column));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * open - Reads the type and the size of the value. Returns false if the row is gone.
+	 */
+	public boolean open() throws SQLException {
+		String c = SqliteJdbc.quote(column);
+		String sql = "SELECT typeof(" + c + "), octet_length(" + c + ") FROM " + SqliteJdbc.quote(table)
+				+ " WHERE rowid = ?";
+		return sq.read((reader, statements) -> {
+			PreparedStatement statement = statements.acquire(sql);
+			try {
+				statement.setLong(1, rowid);
+				try (ResultSet rs = statement.executeQuery()) {
+					if (!rs.next())
+						return false;
+					type = rs.getString(1);
+					size = rs.getLong(2);
+					return true;
+				}
+			} finally {
+				statements.release(sql, statement);
+			}
+		});
+	}
+
+	/**
+	 * read - Reads the first bytes of the value, at most max, as a viewer shows them
+	 */
+	public byte[] read(int max) throws SQLException {
+		if (size < 0 && !open())
+			return new byte[0];
+		int length = (int) Math.min(size, max);
+		return sq.read((reader, statements) -> readChunk(reader, 1, length));
+	}
+
+	/**
+	 * copyTo - Writes the whole value to a stream, a chunk at a time, and returns the bytes written. Stops
+	 * between two chunks when it is cancelled.
+	 */
+	public long copyTo(OutputStream out, ProgressListener listener) throws SQLException, IOException {
+		if (size < 0 && !open())
+			return 0;
+		long chunk = Math.max(CHUNK_BYTES, (size + MAX_CHUNKS - 1) / MAX_CHUNKS);
+		try {
+			return sq.read((reader, statements) -> {
+				// One read transaction, the value cannot change between chunks; not on the writer of an in-memory
+				// database, which may be in a transaction of the user
+				boolean transaction = sq.hasReaders() && reader.getAutoCommit();
+				if (transaction)
+					reader.setAutoCommit(false);
+				try {
+					long done = 0;
+					while (done < size && !cancelled) {
+						byte[] bytes = readChunk(reader, done + 1, (int) Math.min(chunk, size - done));
+						if (bytes.length == 0)
+							break; // shorter than it was when it was opened
+						out.write(bytes);
+						done += bytes.length;
+						listener.progress(done, size);
+					}
+					return done;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} finally {
+					if (transaction) {
+						reader.commit();
+						reader.setAutoCommit(true);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * readChunk - Reads length bytes of the value from position from, counted from 1
+	 */
+	private byte[] readChunk(Connection conn, long from, int length) throws SQLException {
+		// As a BLOB, substr counts bytes, not characters
+		String sql = "SELECT substr(CAST(" + SqliteJdbc.quote(column) + " AS BLOB), ?, ?) FROM "
+				+ SqliteJdbc.quote(table) + " WHERE rowid = ?";
+		try (PreparedStatement statement = conn.prepareStatement(sql)) {
+			statement.setLong(1, from);
+			statement.setInt(2, length);
+			statement.setLong(3, rowid);
+			try (ResultSet rs = statement.executeQuery()) {
+				byte[] bytes = rs.next() ? rs.getBytes(1) : null;
+				return bytes != null ? bytes : new byte[0];
+			}
+		}
+	}
+
+	/**
+	 * cancel - Stops a copyTo after the chunk read now
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * isBlob - The value is a BLOB, not TEXT or a number
+	 */
+	public boolean isBlob() {
+		return "blob".equals(type);
+	}
+
+	/**
+	 * isNull
+	 */
+	public boolean isNull() {
+		return "null".equals(type);
+	}
+
+	/**
+	 * getType - typeof() of the value, null until it is opened
+	 *
+	 * @return type
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * getSize - Bytes of the value, -1 until it is opened
+	 *
+	 * @return size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * getColumn
+	 *
+	 * @return column
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * hexDump - The bytes as lines of offset, hex and printable characters, 16 bytes a line
+	 */
+	public static String hexDump(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (int line = 0; line < bytes.length; line += 16) {
+			sb.append(String.format("%08x ", line));
+			StringBuilder chars = new StringBuilder();
+			for (int i = line; i < line + 16; i++) {
+				if (i < bytes.length) {
+					sb.append(String.format(" %02x", bytes[i] & 0xff));
+					chars.append(bytes[i] >= 32 && bytes[i] < 127 ? (char) bytes[i] : '.');
+				} else {
+					sb.append("   ");
+				}
+			}
+			sb.append("  |").append(chars).append("|\n");
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return table + "." + column + " of rowid " + rowid + (type == null ? "" : ": " + type + ", " + size + " bytes");
+	}
+}
@@ -9,34 +9,51 @@
 
 package nisqlite;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.io.StringReader;
+import java.io.Writer;
 import java.nio.file.Paths;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableColumn.CellDataFeatures;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
@@ -54,28 +71,50 @@ import javafx.util.Callback;
 public class NiSqlite extends Application {
 
 	private final String APP_TITLE = "NiSqlite - An SQLite Manager";
+	private static final int VIEW_TEXT_BYTES = 1024 * 1024; // bytes of a TEXT value shown in the viewer
+	private static final int VIEW_BLOB_BYTES = 64 * 1024; // bytes of a BLOB value shown in hex in the viewer
+	private static final String DATA_CHANGED = " (the data has changed since, run it again)"; // live refresh
 	private static Stage pStage; // the main window stage
 	SqliteJdbc sq = new SqliteJdbc(); // this is the sqlite class
+	private final QueryExecutor queryExecutor = new QueryExecutor(); // runs the queries off the FX thread
+	private QueryTask runningTask = null; // the query that is running now, only used on the FX thread
+	private Runnable cancelJob = null; // cancels the background job (import, export) that is running now
+	private boolean chunkedDml = false; // run large UPDATE and DELETE statements in chunks
+	private ChunkedDml runningChunks = null; // the chunked UPDATE or DELETE that is running now, to pause it
+	private String lastSql = null; // the last query run, for exporting its results
+	private String baseSql = null; // the query as the user ran it, before the sort and filter of the table
+	private List<String> shownColumns = new ArrayList<String>(); // names of the columns of the table of results
+	private boolean resettingSort = false; // the sort order is being cleared, do not push it down
 	private String userPath = Paths.get(".").toAbsolutePath().normalize().toString(); // default path for open dialogs
 
 	// GUI controls
 	Label dbFileStr = new Label("");
 	TextField sqlStr = new TextField("");
+	TextField filterStr = new TextField(""); // WHERE condition on the results, run by SQLite
 	Label lastRunStr = new Label("");
 	Label resultStr = new Label();
+	Button cancelBtn = new Button("Cancel");
 	Tooltip tooltipResultMessage = new Tooltip(""); // tooltip for result message
 	Tooltip tooltipLastSQL = new Tooltip(""); // tooltip for last SQL
 
 	private ObservableList<String> tableList = FXCollections.observableArrayList();
 	ListView<String> tablesListView = new ListView<String>(); // this is a list of tables in database
 
-	ObservableList<ObservableList<String>> data = FXCollections.observableArrayList();
-	private TableView<ObservableList<String>> resultsTableView = new TableView<ObservableList<String>>(data);
+	ResultRowList data = new ResultRowList(); // the rows of the last query, kept column by column
+	private TableView<ResultRow> resultsTableView = new TableView<ResultRow>(data);
+	private TreeView<QueryPlan.Node> planTreeView = new TreeView<QueryPlan.Node>(); // plan of the last statement
+	private boolean showPlans = true; // show the plan next to the results
+	private WindowedResult windowedResult = null; // the browsed table, when the results are windowed
+	private boolean liveRefresh = false; // follow the commits to the database, those of other programs included
+	private ChangeWatcher changeWatcher = null; // notices the commits while liveRefresh is on
+	private final QueryGovernor governor = new QueryGovernor(); // limits of the queries, for every database
 
 	/**
-	 * runSQL - Runs an SQL and sets the results
+	 * runSQL - Runs an SQL on the query worker and sets the results when it is done
 	 */
 	private void runSQL(String sql, String tableName) {
+		if (workerBusy())
+			return; // the SQL stays in the field
 		String resMsg = "--- none ---";
 		sql = sql.trim();
 		sqlStr.clear();
@@ -97,77 +136,780 @@ public class NiSqlite extends Application {
 			return;
 		}
 
-		// Run the sql and print the results
-		sq.runSql(sql);
+		List<SqlScript.Statement> statements = SqlScript.split(sql);
+		if (statements.size() > 1) {
+			runScript(sql, statements);
+			return;
+		}
+		sq.setChunkRows(chunkedDml ? ChunkedDml.DEFAULT_CHUNK_ROWS : 0);
+		ChunkedDml chunked = sq.chunked(sql);
+		if (chunked != null) {
+			runChunked(chunked);
+			return;
+		}
+		baseSql = sql;
+		filterStr.clear();
+		startQuery(sql, false);
+	}
+
+	/**
+	 * runChunked - Runs a large UPDATE or DELETE in chunks, each committed on its own, as a background job that
+	 * can be paused from the Query menu
+	 */
+	private void runChunked(ChunkedDml chunked) {
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		cancelQuery();
+		lastRunStr.setText(chunked.getSql());
+		tooltipLastSQL.setText(chunked.getSql());
+		SqliteJdbc db = sq;
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (runningChunks == chunked)
+				resultStr.setText((chunked.isPaused() ? "Paused, " : "Running in chunks... ") + chunked.getChanges()
+						+ String.format(" rows (%.0f%%)", chunked.getFraction() * 100));
+		});
+		runningChunks = chunked;
+		startJob("Running in chunks on " + chunked.getTable() + "...", () -> chunked.cancel());
+		queryExecutor.execute(() -> {
+			String msg;
+			try {
+				long rows = chunked.run((done, total) -> progress.request());
+				msg = chunked.isCancelled() ? "Cancelled, " + rows + " rows were committed in " + chunked.getChunks()
+						+ " chunks." : "OK: " + chunked;
+			} catch (Exception e) {
+				msg = "Error after " + chunked.getChanges() + " committed rows:\n" + e.getMessage();
+			}
+			String result = msg;
+			Platform.runLater(() -> {
+				runningChunks = null;
+				finishJob(result);
+				if (db == sq)
+					listRefresh();
+			});
+		});
+	}
+
+	/**
+	 * menuPauseChunks - Pauses the running chunked UPDATE or DELETE after its current chunk, or resumes it
+	 */
+	private void menuPauseChunks() {
+		ChunkedDml chunked = runningChunks;
+		if (chunked == null) {
+			resultStr.setText("No chunked UPDATE or DELETE is running.");
+			return;
+		}
+		if (chunked.isPaused()) {
+			chunked.resume();
+			resultStr.setText("Resumed, " + chunked.getChanges() + " rows so far...");
+		} else {
+			chunked.pause();
+			resultStr.setText("Pausing after this chunk, " + chunked.getChanges() + " rows so far...");
+		}
+	}
+
+	/**
+	 * workerBusy - A chunked UPDATE or DELETE holds the query worker, also while it is paused, so a query would
+	 * only run after its last chunk. Says so, and the query is not started.
+	 */
+	private boolean workerBusy() {
+		if (runningChunks == null)
+			return false;
+		resultStr.setText("A chunked UPDATE or DELETE is " + (runningChunks.isPaused() ? "paused" : "running")
+				+ ", resume and let it finish or cancel it before running a query.");
+		return true;
+	}
+
+	/**
+	 * runScript - Runs many statements as a script, in one transaction, as a background job. When the last
+	 * one may return rows it runs after the script as a query, so its rows are shown. The script runs as it was
+	 * written, up to that query, so the lines of its errors are the lines of the editor.
+	 */
+	private void runScript(String sql, List<SqlScript.Statement> statements) {
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		cancelQuery();
+		SqlScript.Statement last = statements.get(statements.size() - 1);
+		String query = last.getKind().mayReturnRows() ? last.getSql() : null;
+		String text = query != null ? sql.substring(0, (int) last.getOffset()) : sql;
+
+		SqliteJdbc db = sq;
+		ScriptExecutor executor = new ScriptExecutor(db);
+		String[] error = { null };
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText("Running script... " + executor.getStatementCount() + " statements");
+		});
+		startJob("Running script...", () -> executor.cancel());
+		queryExecutor.execute(() -> {
+			String msg;
+			boolean ok = false;
+			try {
+				ok = executor.run(new SqlScript(new StringReader(text)), new ScriptExecutor.Listener() {
+					public void rows(SqlScript.Statement statement, ResultSet rs) {
+						// only the rows of the last statement are shown
+					}
+
+					public void error(SqlScript.Statement statement, SQLException e) {
+						error[0] = "line " + statement.getLine() + ": " + e.getMessage();
+					}
+				}, (done, total) -> progress.request());
+				long committed = executor.getCommitted();
+				String kept = committed == 0 ? "nothing was committed"
+						: "the first " + committed + " statements were committed, the rest was rolled back";
+				msg = ok ? "OK: " + executor : executor.isCancelled() ? "Script cancelled, " + kept + "."
+						: "Error, " + kept + ", " + error[0];
+			} catch (Exception e) {
+				msg = "Script error:\n" + e.getMessage();
+			}
+			String result = msg;
+			boolean done = ok;
+			Platform.runLater(() -> {
+				finishJob(result);
+				if (db != sq)
+					return;
+				listRefresh();
+				if (done && query != null) {
+					baseSql = query;
+					filterStr.clear();
+					startQuery(query, false);
+				}
+			});
+		});
+	}
+
+	/**
+	 * startQuery - Runs a query on the query worker, or browses the table if it is a whole table.
+	 * 
+	 * With keepColumns the columns, and so the sort order, stay as they are, for a sorted or filtered run of
+	 * the same query; the old rows are shown until the new ones are read.
+	 */
+	private void startQuery(String sql, boolean keepColumns) {
+		if (workerBusy())
+			return;
+		// A whole table is browsed a window at a time instead of being read into memory
+		String browseTable = sq.getBrowseTable(sql);
+		if (browseTable != null && sq.hasRowid(browseTable)) {
+			browseTable(sql, browseTable);
+			return;
+		}
+
+		// Only one query at a time, a new one replaces the running one
+		cancelQuery();
+		lastSql = sql;
 		lastRunStr.setText(sql);
 		tooltipLastSQL.setText(sql);
-		resMsg = sq.getResultMessage();
-		if (sq.hasError())
-			resMsg += ":\n" + sq.getError();
+		if (!keepColumns)
+			tableRefresh();
+		resultStr.setText("Running...");
+		cancelBtn.setDisable(false);
+
+		FxCoalescer progress = new FxCoalescer(() -> showProgress());
+		runningTask = queryExecutor.submit(sq, sql, new QueryTask.Listener() {
+			public void progress(QueryTask task) {
+				progress.request();
+			}
+
+			public void done(QueryTask task) {
+				Platform.runLater(() -> finishQuery(task));
+			}
+		});
+	}
+
+	/**
+	 * showProgress - Shows the rows read so far by the running query, one change of the table per batch
+	 */
+	private void showProgress() {
+		if (runningTask == null || runningTask.isDone())
+			return;
+		ResultStore store = runningTask.getStore();
+		int rows = (int) runningTask.getRowCount();
+		if (store != null && rows > 0) {
+			if (data.getStore() != store) {
+				// The first rows: they replace what was shown before
+				showColumns(store.getColumns());
+				data.setStore(store, rows);
+				resultsTableView.setItems(data);
+			} else {
+				data.grow(rows);
+			}
+		}
+		resultStr.setText("Running... " + rows + " rows so far");
+	}
+
+	/**
+	 * finishQuery - Shows the outcome of a query task. Runs on the JavaFX thread.
+	 */
+	private void finishQuery(QueryTask task) {
+		if (task != runningTask) {
+			return; // a newer query has replaced this one
+		}
+		runningTask = null;
+		cancelBtn.setDisable(cancelJob == null);
+
+		String resMsg;
+		if (task.isCancelled()) {
+			resMsg = "Cancelled after " + task.getRowCount() + " rows.";
+		} else if (task.getLimit() != null) {
+			resMsg = "Stopped at " + governor.describe(task.getLimit()) + ", showing the " + task.getRowCount()
+					+ " rows read (Query > Query Limits... to change it).";
+		} else {
+			resMsg = task.getResultMessage();
+			if (task.hasError())
+				resMsg += ":\n" + task.getError();
+			else if (!task.getFetchError().isEmpty())
+				resMsg = "Error:\n" + task.getFetchError();
+		}
+
+		showPlan(task.hasError() ? null : task.getPlan());
+
+		// If it was a SELECT query, show what was read, even if it was cancelled part way
+		if (task.getStore() != null) {
+			showResults(task);
+			System.out.println("Select query: " + task.getSql());
+		} else if (!task.hasError()) {
+			listRefresh(); // CREATE, DROP or ALTER may have changed the tables
+		}
+
+		// Where the time went, so a slow query can be told apart from a slow table
+		QueryTiming timing = task.getTiming();
+		if (!task.hasError()) {
+			QueryMetrics.getInstance().record(timing);
+			resMsg += "\n" + timing;
+		}
 		resultStr.setText(resMsg);
 		tooltipResultMessage.setText(resMsg);
+
+		System.out.println("Finished running SQL: " + task.getSql() + " (" + timing + ")");
+	}
+
+	/**
+	 * stopQuery - Cancels the running query, if any, and keeps it as the current one: when it is done,
+	 * finishQuery shows the rows read so far and its timing
+	 */
+	private void stopQuery() {
+		if (runningTask != null) {
+			runningTask.cancel();
+			System.out.println("Cancelled query: " + runningTask.getSql());
+		}
+	}
+
+	/**
+	 * cancelQuery - Cancels the running query, if any, for another one or a job that replaces it; what it read is
+	 * not shown
+	 */
+	private void cancelQuery() {
+		if (runningTask != null) {
+			runningTask.cancel();
+			System.out.println("Cancelled query: " + runningTask.getSql());
+			runningTask = null;
+		}
+		cancelBtn.setDisable(cancelJob == null);
+	}
+
+	/**
+	 * browseTable - Shows the contents of a table, loading only the rows around the visible ones
+	 */
+	private void browseTable(String sql, String tableName) {
+		if (workerBusy())
+			return;
+		cancelQuery();
+		lastSql = sql;
+		lastRunStr.setText(sql);
+		tooltipLastSQL.setText(sql);
 		tableRefresh();
 
-		// If it was a SELECT query, reset the table of results
-		if (sq.isSelect()) {
+		List<String> columns = sq.getFields(tableName);
+		windowedResult = new WindowedResult(sq, tableName, columns, queryExecutor, Platform::runLater);
+		WindowedRowList rows = new WindowedRowList(windowedResult, () -> showWindowedCount());
+		createColumns(columns);
+		resultsTableView.setItems(rows);
+		windowedResult.open(rows);
+		showPlan(null);
+		resultStr.setText("OK: reading rows...");
+		tooltipResultMessage.setText("OK");
+		System.out.println("Browse table: " + tableName);
+	}
+
+	/**
+	 * openValue - Shows a value of the table of results in a viewer. The grid of a browsed table only has a
+	 * preview of a large value, so the value is read again by its rowid, up to VIEW_TEXT_BYTES of TEXT or
+	 * VIEW_BLOB_BYTES of a BLOB in hex; the viewer saves the whole value to a file.
+	 */
+	private void openValue(int row, int column, Object shown) {
+		String columnName = shownColumns.get(column);
+		Long rowid = windowedResult != null ? windowedResult.getRowid(row) : null;
+		if (rowid == null) {
+			showValue(columnName, shown == null ? "NULL" : ResultRow.text(shown), null);
+			return;
+		}
+		SqliteJdbc db = sq;
+		LargeValue value = new LargeValue(db, windowedResult.getTable(), columnName, rowid);
+		queryExecutor.executeRead(db, () -> {
+			String text;
 			try {
-				showResults();
+				value.open();
+				byte[] bytes = value.read(value.isBlob() ? VIEW_BLOB_BYTES : VIEW_TEXT_BYTES);
+				text = value.isNull() ? "NULL"
+						: value.isBlob() ? LargeValue.hexDump(bytes) : new String(bytes, StandardCharsets.UTF_8);
+				if (value.getSize() > bytes.length)
+					text += "\n... " + (value.getSize() - bytes.length) + " more bytes, save the value to see them all";
 			} catch (SQLException e) {
-				System.err.println("Error in SELECT statement execution. Detailed information follows.");
-				e.printStackTrace();
+				text = "Error: " + e.getMessage();
 			}
-			System.out.println("Select query: " + sql);
-		}
+			String result = text;
+			Platform.runLater(() -> showValue(columnName, result, value));
+		});
+	}
 
-		System.out.println("Finished running SQL: " + sql);
+	/**
+	 * showValue - Shows a value in a dialog, with a button that saves it to a file when it was read by rowid
+	 */
+	private void showValue(String columnName, String text, LargeValue value) {
+		TextArea area = new TextArea(text);
+		area.setEditable(false);
+		area.setWrapText(value == null || !value.isBlob());
+		area.setStyle(value != null && value.isBlob() ? "-fx-font-family: monospace;" : "");
+		javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+				javafx.scene.control.Alert.AlertType.INFORMATION);
+		alert.setTitle("Value");
+		alert.setHeaderText(value != null ? value.toString() : columnName);
+		alert.getDialogPane().setContent(area);
+		alert.setResizable(true);
+		ButtonType save = new ButtonType("Save to File...", ButtonBar.ButtonData.LEFT);
+		if (value != null && !value.isNull())
+			alert.getButtonTypes().add(save);
+		if (alert.showAndWait().orElse(null) == save)
+			saveValue(value);
 	}
 
 	/**
-	 * showResults - Fills the table of results.
+	 * saveValue - Writes a value to a file, a chunk at a time, on a reader
 	 */
-	@SuppressWarnings("unchecked")
-	private void showResults() throws SQLException {
+	private void saveValue(LargeValue value) {
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Save value");
+		fileChooser.setInitialFileName(value.getColumn() + (value.isBlob() ? ".bin" : ".txt"));
+		File userDirectory = new File(userPath);
+		if (userDirectory.isDirectory())
+			fileChooser.setInitialDirectory(userDirectory);
+		File file = fileChooser.showSaveDialog(pStage);
+		if (file == null)
+			return;
 
-		int columnCount = 0;
-		String colName = "";
+		SqliteJdbc db = sq;
+		String message = "Saving " + value.getColumn() + " to " + file.getName() + "...";
+		long[] written = new long[1];
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText(message + " " + written[0] * 100 / Math.max(1, value.getSize()) + "%");
+		});
+		startJob(message, () -> value.cancel());
+		queryExecutor.executeRead(db, () -> {
+			String msg;
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+				long bytes = value.copyTo(out, (done, total) -> {
+					written[0] = done;
+					progress.request();
+				});
+				msg = (bytes < value.getSize() ? "Saving cancelled after " : "Saved ") + bytes + " bytes to " + file;
+			} catch (SQLException | IOException e) {
+				msg = "Save error:\n" + e.getMessage();
+			}
+			String result = msg;
+			Platform.runLater(() -> finishJob(result));
+		});
+	}
 
-		ResultSet rsm = sq.getResult();
-		ResultSetMetaData rsmd = null;
+	/**
+	 * showWindowedCount - Shows the number of rows of the browsed table
+	 */
+	private void showWindowedCount() {
+		if (windowedResult != null) {
+			String msg = "OK: " + windowedResult.getRowCount() + (windowedResult.isScanDone() ? " rows" : " rows so far...");
+			resultStr.setText(msg);
+			tooltipResultMessage.setText(msg);
+		}
+	}
 
-		rsmd = rsm.getMetaData();
-		columnCount = rsmd.getColumnCount();
-		// Get the headers and create columns
-		for (int i = 0; i < columnCount; i++) {
-			colName = rsmd.getColumnName(i + 1);
+	/**
+	 * createColumns - Creates the columns of the table of results.
+	 */
+	private void createColumns(List<String> columns) {
+		for (int i = 0; i < columns.size(); i++) {
+			String colName = columns.get(i);
 			final int k = i;
 			if (colName != null && !colName.isEmpty()) {
-				TableColumn<ObservableList<String>, String> col = new TableColumn<ObservableList<String>, String>(
-						colName);
-				col.setCellValueFactory(new Callback<CellDataFeatures<ObservableList<String>, String>, ObservableValue<String>>() {
-					public ObservableValue<String> call(CellDataFeatures<ObservableList<String>, String> param) {
-						return new SimpleStringProperty(param.getValue().get(k).toString());
+				TableColumn<ResultRow, Object> col = new TableColumn<ResultRow, Object>(colName);
+				col.setUserData(k); // position in the result, for ORDER BY
+				col.setCellValueFactory(new Callback<CellDataFeatures<ResultRow, Object>, ObservableValue<Object>>() {
+					public ObservableValue<Object> call(CellDataFeatures<ResultRow, Object> param) {
+						return new ReadOnlyObjectWrapper<Object>(param.getValue().getValue(k));
 					}
 				});
-				resultsTableView.getColumns().addAll(col);
+				col.setCellFactory(column -> {
+					TableCell<ResultRow, Object> cell = new TableCell<ResultRow, Object>() {
+						@Override
+						protected void updateItem(Object item, boolean empty) {
+							super.updateItem(item, empty);
+							setText(empty ? "" : ResultRow.text(item));
+							setAlignment(item instanceof Number ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+						}
+					};
+					// A double click shows the whole value
+					cell.setOnMouseClicked(event -> {
+						if (event.getClickCount() == 2 && !cell.isEmpty())
+							openValue(cell.getIndex(), k, cell.getItem());
+					});
+					return cell;
+				});
+				resultsTableView.getColumns().add(col);
 			}
 		}
+		shownColumns = new ArrayList<String>(columns);
+	}
+
+	/**
+	 * showColumns - Makes the columns of the table of results the given ones, keeping them if they already
+	 * are, so a sorted or filtered run of the same query keeps its sort order
+	 */
+	private void showColumns(List<String> columns) {
+		if (windowedResult != null) {
+			windowedResult.close(); // a sorted or filtered run of a browsed table
+			windowedResult = null;
+		}
+		if (!columns.equals(shownColumns)) {
+			clearColumns();
+			createColumns(columns);
+		}
+	}
+
+	/**
+	 * clearColumns - Removes the columns of the table of results, and with them the sort order
+	 */
+	private void clearColumns() {
+		resettingSort = true;
+		resultsTableView.getSortOrder().clear();
+		resultsTableView.getColumns().clear();
+		resettingSort = false;
+		shownColumns = new ArrayList<String>();
+	}
+
+	/**
+	 * pushDown - Runs the query again with the sort order of the table and the filter as ORDER BY and WHERE, so
+	 * SQLite does the work, with its indexes, instead of a sort of the rows in memory
+	 */
+	private void pushDown() {
+		if (resettingSort || baseSql == null || sq == null || !sq.isLoaded()
+				|| SqlScript.classify(baseSql) != SqlScript.Kind.SELECT)
+			return;
+		String filter = filterStr.getText().trim();
+		StringBuilder order = new StringBuilder();
+		for (TableColumn<ResultRow, ?> col : resultsTableView.getSortOrder()) {
+			order.append(order.length() == 0 ? "" : ", ").append((Integer) col.getUserData() + 1);
+			if (col.getSortType() == TableColumn.SortType.DESCENDING)
+				order.append(" DESC");
+		}
+		String sql = baseSql;
+		if (!filter.isEmpty() || order.length() > 0) {
+			String base = baseSql.replaceAll("[\\s;]+$", "");
+			sql = "SELECT * FROM (" + base + "\n)" + (filter.isEmpty() ? "" : " WHERE " + filter)
+					+ (order.length() == 0 ? "" : " ORDER BY " + order);
+		}
+		if (sql.equals(lastSql))
+			return; // already shown
+		startQuery(sql, true);
+	}
+
+	/**
+	 * startJob - Shows that a background job is running. The Cancel button runs cancel.
+	 */
+	private void startJob(String message, Runnable cancel) {
+		cancelJob = cancel;
+		cancelBtn.setDisable(false);
+		resultStr.setText(message);
+		tooltipResultMessage.setText(message);
+	}
+
+	/**
+	 * finishJob - Shows the outcome of a background job. Runs on the JavaFX thread.
+	 */
+	private void finishJob(String message) {
+		cancelJob = null;
+		cancelBtn.setDisable(runningTask == null);
+		resultStr.setText(message);
+		tooltipResultMessage.setText(message);
+		System.out.println(message);
+	}
+
+	/**
+	 * menuImportCsv - Imports a CSV or TSV file into a table named after the file
+	 */
+	private void menuImportCsv() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
+		}
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Import CSV or TSV file");
+		fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV and TSV files", "*.csv", "*.tsv", "*.tab", "*.txt"),
+				new FileChooser.ExtensionFilter("All files", "*.*"));
+		File userDirectory = new File(userPath);
+		if (userDirectory.isDirectory())
+			fileChooser.setInitialDirectory(userDirectory);
+		File file = fileChooser.showOpenDialog(pStage);
+		if (file == null)
+			return;
 
-		// Read the record set
-		while (rsm.next()) {
-			ObservableList<String> row = FXCollections.observableArrayList();
+		SqliteJdbc db = sq;
+		String table = CsvImporter.tableName(file.toPath());
+		CsvImporter importer = new CsvImporter(db, file.toPath(), table);
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText("Importing " + file.getName() + "... " + importer.getRowCount() + " rows");
+		});
+		startJob("Importing " + file.getName() + "...", () -> importer.cancel());
+		queryExecutor.execute(() -> {
+			String msg;
+			long t0 = System.currentTimeMillis();
+			try {
+				long rows = importer.importFile((done, total) -> progress.request());
+				double secs = Math.max(1, System.currentTimeMillis() - t0) / 1000.0;
+				msg = importer.isCancelled() ? "Import cancelled, " + rows + " rows were committed."
+						: "Imported " + rows + " rows into " + table + String.format(" in %.1f s (%.0f rows/s).", secs, rows / secs);
+				if (importer.isNested() && !importer.isCancelled())
+					msg += " They are in the open transaction, COMMIT to keep them.";
+				if (importer.getWiderRows() > 0)
+					msg += " " + importer.getWiderRows()
+							+ " rows had more fields than the columns, the extra fields were dropped.";
+			} catch (Exception e) {
+				msg = "Import error after " + importer.getCommittedRows() + " committed rows:\n" + e.getMessage();
+			}
+			String result = msg;
+			Platform.runLater(() -> {
+				finishJob(result);
+				if (db == sq)
+					listRefresh();
+			});
+		});
+	}
 
-			for (int i = 0; i < columnCount; i++) {
-				String sw = rsm.getString(i + 1);
-				if (sw == null) {
-					sw = "";
+	/**
+	 * menuExportResults - Exports the results of the last query to a CSV, JSON Lines or SQL file.
+	 * 
+	 * The query is run again and its rows are written to the file as they are read, so even results too big
+	 * for the table of results can be exported.
+	 */
+	private void menuExportResults() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
+		}
+		if (lastSql == null || !sq.isSelect(lastSql)) {
+			resultStr.setText("Run a SELECT query first.");
+			return;
+		}
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Export results");
+		fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+				new FileChooser.ExtensionFilter("JSON Lines files", "*.jsonl"),
+				new FileChooser.ExtensionFilter("SQL files", "*.sql"));
+		File userDirectory = new File(userPath);
+		if (userDirectory.isDirectory())
+			fileChooser.setInitialDirectory(userDirectory);
+		File file = fileChooser.showSaveDialog(pStage);
+		if (file == null)
+			return;
+
+		SqliteJdbc db = sq;
+		String sql = lastSql;
+		String table = sq.getBrowseTable(sql);
+		ResultExporter exporter = new ResultExporter(ResultExporter.Format.forFile(file.toPath()));
+		if (table != null)
+			exporter.setTableName(table);
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText("Exporting to " + file.getName() + "... " + exporter.getRowCount() + " rows");
+		});
+		startJob("Exporting to " + file.getName() + "...", () -> exporter.cancel());
+		// On a reader, so queries can go on while it runs
+		queryExecutor.executeRead(db, () -> {
+			String msg;
+			ConnectionManager.Reader reader = null;
+			try {
+				if (table != null && db.hasRowid(table)) {
+					// A whole table: read it in parts on all the readers
+					exporter.exportTable(new ParallelScan(db, table), file.toPath(),
+							(done, total) -> progress.request());
+				} else {
+					reader = db.acquireReader();
+					exporter.exportQuery(reader.getConnection(), sql, file.toPath(), (done, total) -> progress.request());
 				}
-				row.add(sw);
+				msg = (exporter.isCancelled() ? "Export cancelled after " : "Exported ") + exporter.getStats();
+			} catch (Exception e) {
+				msg = "Export error after " + exporter.getRowCount() + " rows:\n" + e.getMessage();
+			} finally {
+				db.releaseReader(reader);
 			}
-			// System.out.println("Row added " + row);
-			data.add(row);
+			String result = msg;
+			Platform.runLater(() -> finishJob(result));
+		});
+	}
+
+	/**
+	 * menuBackupDatabase - Copies the open database to a file while it stays in use, a few pages at a time
+	 */
+	private void menuBackupDatabase() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
 		}
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Back up database");
+		fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("SQLite files", "*.sqlite", "*.db"),
+				new FileChooser.ExtensionFilter("All files", "*.*"));
+		File userDirectory = new File(userPath);
+		if (userDirectory.isDirectory())
+			fileChooser.setInitialDirectory(userDirectory);
+		File file = fileChooser.showSaveDialog(pStage);
+		if (file == null)
+			return;
+		if (file.getAbsoluteFile().equals(new File(sq.getFilename()).getAbsoluteFile())) {
+			resultStr.setText("Choose another file than the database itself.");
+			return;
+		}
+
+		SqliteJdbc db = sq;
+		DatabaseBackup backup = new DatabaseBackup(db, file.toPath());
+		String message = "Backing up to " + file.getName() + "...";
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText(message + " " + backup);
+		});
+		startJob(message, () -> backup.cancel());
+		// On a reader, so queries and writes go on while it runs
+		queryExecutor.executeRead(db, () -> {
+			String msg;
+			try {
+				backup.run((done, total) -> progress.request());
+				msg = (backup.isCancelled() ? "Backup cancelled after " : "Backed up to " + file + ": ") + backup;
+			} catch (SQLException | IOException e) {
+				msg = "Backup error:\n" + e.getMessage();
+			}
+			String result = msg;
+			Platform.runLater(() -> finishJob(result));
+		});
+	}
+
+	/**
+	 * menuCompareDatabase - Writes the SQL script that turns the open database into another one
+	 */
+	private void menuCompareDatabase() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
+		}
+		if (cancelJob != null) {
+			resultStr.setText("Another job is running.");
+			return;
+		}
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.setTitle("Compare with database");
+		fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("SQLite files", "*.sqlite", "*.db"),
+				new FileChooser.ExtensionFilter("All files", "*.*"));
+		File userDirectory = new File(userPath);
+		if (userDirectory.isDirectory())
+			fileChooser.setInitialDirectory(userDirectory);
+		File other = fileChooser.showOpenDialog(pStage);
+		if (other == null)
+			return;
+		fileChooser.setTitle("Save patch script");
+		fileChooser.getExtensionFilters().setAll(new FileChooser.ExtensionFilter("SQL files", "*.sql"));
+		fileChooser.setInitialFileName("patch.sql");
+		File file = fileChooser.showSaveDialog(pStage);
+		if (file == null)
+			return;
+
+		SqliteJdbc db = sq;
+		SqliteJdbc target = new SqliteJdbc(other.getPath(), true);
+		if (!target.isLoaded()) {
+			resultStr.setText("Could not open " + other + ":\n" + target.getError());
+			return;
+		}
+		Writer out;
+		try {
+			out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			target.close();
+			resultStr.setText("Could not write " + file + ":\n" + e.getMessage());
+			return;
+		}
+		DatabaseDiff diff = new DatabaseDiff(db, target, out);
+		String message = "Comparing with " + other.getName() + "...";
+		FxCoalescer progress = new FxCoalescer(() -> {
+			if (cancelJob != null)
+				resultStr.setText(message + " " + diff);
+		});
+		startJob(message, () -> diff.cancel());
+		// On a reader, so queries and writes go on while it runs
+		queryExecutor.executeRead(db, () -> {
+			String msg;
+			try {
+				diff.run((done, total) -> progress.request());
+				msg = diff.isCancelled() ? "Comparison cancelled after " + diff
+						: diff.isIdentical() ? "The databases are the same."
+								: "Patch written to " + file + ": " + diff;
+			} catch (SQLException | IOException e) {
+				msg = "Compare error:\n" + e.getMessage();
+			} finally {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// the error of the run is the one to show
+				}
+				target.close();
+			}
+			String result = msg;
+			Platform.runLater(() -> finishJob(result));
+		});
+	}
 
+	/**
+	 * showResults - Fills the table of results.
+	 */
+	private void showResults(QueryTask task) {
+		long t0 = System.nanoTime();
+		ResultStore store = task.getStore();
+		int rows = (int) task.getRowCount();
+		if (data.getStore() == store) {
+			data.grow(rows); // the rest of the rows, after the ones shown while reading
+		} else {
+			// One change event for the whole result, instead of one per row
+			showColumns(store.getColumns());
+			data.setStore(store, rows);
+		}
 		resultsTableView.setItems(data);
+		resultsTableView.layout(); // create the visible cells now, so their cost is part of the render time
+		task.getTiming().setRenderNanos(System.nanoTime() - t0);
 	}
 
 	/**
@@ -214,8 +956,17 @@ public class NiSqlite extends Application {
 			String filename = file.toString();
 			dbFileStr.setText(filename);
 			sq = new SqliteJdbc(filename);
+			sq.setGovernor(governor);
+			sq.addListener((db, catalog) -> Platform.runLater(() -> {
+				if (db == sq) {
+					listRefresh(); // tables made or dropped, here or by another program
+					collectStats();
+				}
+			}));
 
 			listRefresh();
+			collectStats();
+			watchChanges();
 			if (sq.hasError()) {
 				String msg = "Error:\n" + sq.getError();
 				resultStr.setText(msg);
@@ -232,6 +983,38 @@ public class NiSqlite extends Application {
 		}
 	}
 
+	/**
+	 * watchChanges - Starts or stops the watcher of the commits, as live refresh is on or off
+	 */
+	private void watchChanges() {
+		if (changeWatcher != null) {
+			changeWatcher.close();
+			changeWatcher = null;
+		}
+		SqliteJdbc db = sq;
+		if (!liveRefresh || db == null || !db.isLoaded())
+			return;
+		changeWatcher = new ChangeWatcher(db, version -> Platform.runLater(() -> {
+			if (db == sq && liveRefresh)
+				dataChanged();
+		}));
+		changeWatcher.start();
+	}
+
+	/**
+	 * dataChanged - Brings the browsed table up to date after a commit. Other results are not run again, which
+	 * could be costly or a write: the user is told they may be out of date.
+	 */
+	private void dataChanged() {
+		if (windowedResult != null) {
+			windowedResult.refresh();
+		} else if (lastSql != null && runningTask == null && sq.isSelect(lastSql)) {
+			String msg = resultStr.getText();
+			if (!msg.endsWith(DATA_CHANGED))
+				resultStr.setText(msg + DATA_CHANGED);
+		}
+	}
+
 	/**
 	 * listRefresh - Updates the list of db tables
 	 */
@@ -242,12 +1025,156 @@ public class NiSqlite extends Application {
 			tableList.addAll(sq.getTableList());
 	}
 
+	/**
+	 * collectStats - Gathers the sizes and the column profiles of the tables in the background, and shows them
+	 * next to the tables as they come
+	 */
+	private void collectStats() {
+		SqliteJdbc db = sq;
+		if (db == null || !db.isLoaded())
+			return;
+		queryExecutor.executeBackground(db, () -> {
+			try {
+				db.getTableStats().collect(table -> Platform.runLater(() -> {
+					if (db == sq)
+						tablesListView.refresh();
+				}));
+			} catch (SQLException e) {
+				System.err.println("Table statistics: " + e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * menuQueryLimits - Sets the rows, the memory and the time a query may take, 0 for no limit
+	 */
+	private void menuQueryLimits() {
+		TextField rowsField = new TextField(Long.toString(governor.getMaxRows()));
+		TextField megabytesField = new TextField(Long.toString(governor.getMaxBytes() >> 20));
+		TextField secondsField = new TextField(Long.toString(governor.getMaxMillis() / 1000));
+		GridPane grid = new GridPane();
+		grid.setHgap(10);
+		grid.setVgap(5);
+		grid.addRow(0, new Label("Rows read at most:"), rowsField);
+		grid.addRow(1, new Label("Memory of the rows, MB:"), megabytesField);
+		grid.addRow(2, new Label("Time, seconds:"), secondsField);
+		grid.add(new Label("0 for no limit. A query stops at a limit and shows the rows read so far.\n"
+				+ "INSERT, UPDATE, DELETE and schema changes are not limited."), 0, 3, 2, 1);
+		javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+				javafx.scene.control.Alert.AlertType.CONFIRMATION);
+		alert.setTitle("Query Limits");
+		alert.setHeaderText("Limits of every query");
+		alert.getDialogPane().setContent(grid);
+		if (alert.showAndWait().orElse(null) != ButtonType.OK)
+			return;
+		try {
+			long rows = Long.parseLong(rowsField.getText().trim());
+			long megabytes = Long.parseLong(megabytesField.getText().trim());
+			long seconds = Long.parseLong(secondsField.getText().trim());
+			governor.setMaxRows(rows);
+			governor.setMaxBytes(megabytes << 20);
+			governor.setMaxMillis(seconds * 1000);
+			resultStr.setText("Query limits: " + governor);
+		} catch (NumberFormatException e) {
+			resultStr.setText("Query limits not changed, not a number: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * menuRefreshStats - Reads the statistics of all the tables again, for the rows written since
+	 */
+	private void menuRefreshStats() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
+		}
+		sq.getTableStats().clear();
+		tablesListView.refresh();
+		collectStats();
+	}
+
+	/**
+	 * showPlan - Shows the plan of the last statement as a tree next to the results, the steps that read every
+	 * row or sort them marked
+	 */
+	private void showPlan(QueryPlan plan) {
+		boolean show = showPlans && plan != null && !plan.getNodes().isEmpty();
+		planTreeView.setVisible(show);
+		planTreeView.setManaged(show);
+		if (!show) {
+			planTreeView.setRoot(null);
+			return;
+		}
+		TreeItem<QueryPlan.Node> root = new TreeItem<QueryPlan.Node>();
+		for (QueryPlan.Node node : plan.getRoots()) {
+			root.getChildren().add(planItem(node));
+		}
+		planTreeView.setRoot(root);
+	}
+
+	private static TreeItem<QueryPlan.Node> planItem(QueryPlan.Node node) {
+		TreeItem<QueryPlan.Node> item = new TreeItem<QueryPlan.Node>(node);
+		item.setExpanded(true);
+		for (QueryPlan.Node child : node.getChildren()) {
+			item.getChildren().add(planItem(child));
+		}
+		return item;
+	}
+
+	/**
+	 * menuSuggestIndexes - Suggests indexes for the queries run so far, tried on a copy of the schema
+	 */
+	private void menuSuggestIndexes() {
+		if (sq == null || !sq.isLoaded()) {
+			resultStr.setText("No database loaded.");
+			return;
+		}
+		List<QueryHistory.Entry> history = sq.getHistory().getEntries();
+		if (history.isEmpty()) {
+			resultStr.setText("Run some queries first, the indexes are suggested for them.");
+			return;
+		}
+		SqliteJdbc db = sq;
+		resultStr.setText("Trying indexes for " + history.size() + " queries...");
+		queryExecutor.executeRead(db, () -> {
+			StringBuilder text = new StringBuilder();
+			try {
+				for (IndexAdvisor.Suggestion suggestion : new IndexAdvisor(db).advise(history)) {
+					text.append(suggestion).append("\n\n");
+				}
+				if (text.length() == 0)
+					text.append("No index would make the ").append(history.size())
+							.append(" queries run so far faster.");
+			} catch (SQLException e) {
+				text.append("Error: ").append(e.getMessage());
+			}
+			Platform.runLater(() -> {
+				resultStr.setText("OK");
+				TextArea area = new TextArea(text.toString().trim());
+				area.setEditable(false);
+				area.setWrapText(false);
+				javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+						javafx.scene.control.Alert.AlertType.INFORMATION);
+				alert.setTitle("Index suggestions");
+				alert.setHeaderText("Indexes for the queries run on " + db.getFilename());
+				alert.getDialogPane().setContent(area);
+				alert.setResizable(true);
+				alert.showAndWait();
+			});
+		});
+	}
+
 	/**
 	 * tableRefresh - Clears the data table.
 	 */
 	private void tableRefresh() {
-		data.removeAll(data);
-		resultsTableView.getColumns().removeAll(resultsTableView.getColumns());
+		if (windowedResult != null) {
+			windowedResult.close();
+			windowedResult = null;
+		}
+		resultsTableView.setItems(data);
+		data.clear();
+		clearColumns();
 	}
 
 	/**
@@ -326,13 +1253,24 @@ public class NiSqlite extends Application {
 		sqlStr.setPromptText("SELECT * FROM table");
 		lastRunStr.setText("--- none ---");
 		tooltipLastSQL.setText("--- none ---");
+		lastSql = null;
+		baseSql = null;
+		filterStr.clear();
 		resultStr.setText("--- none ---");
 		tooltipResultMessage.setText("--- none ---");
 
+		cancelQuery();
+		if (cancelJob != null) {
+			cancelJob.run();
+			cancelJob = null;
+		}
+		if (changeWatcher != null) {
+			changeWatcher.close();
+			changeWatcher = null;
+		}
 		if (sq != null)
-			sq.close();
+			queryExecutor.close(sq); // after the cancelled query has let go of the connection
 		sq = new SqliteJdbc();
-		tablesListView = new ListView<String>();
 
 		listRefresh();
 		tableRefresh();
@@ -352,10 +1290,45 @@ public class NiSqlite extends Application {
 		openMenuItem.setOnAction(actionEvent -> menuOpenDatabase());
 		MenuItem closeMenuItem = new MenuItem("Close Database");
 		closeMenuItem.setOnAction(actionEvent -> menuCloseDatabase());
+		MenuItem importMenuItem = new MenuItem("Import CSV/TSV...");
+		importMenuItem.setOnAction(actionEvent -> menuImportCsv());
+		MenuItem exportMenuItem = new MenuItem("Export Results...");
+		exportMenuItem.setOnAction(actionEvent -> menuExportResults());
+		MenuItem backupMenuItem = new MenuItem("Back Up Database...");
+		backupMenuItem.setOnAction(actionEvent -> menuBackupDatabase());
+		MenuItem compareMenuItem = new MenuItem("Compare With Database...");
+		compareMenuItem.setOnAction(actionEvent -> menuCompareDatabase());
 		MenuItem exitMenuItem = new MenuItem("Exit");
 		exitMenuItem.setOnAction(actionEvent -> Platform.exit());
 
-		fileMenu.getItems().addAll(newMenuItem, openMenuItem, closeMenuItem, new SeparatorMenuItem(), exitMenuItem);
+		fileMenu.getItems().addAll(newMenuItem, openMenuItem, closeMenuItem, new SeparatorMenuItem(), importMenuItem,
+				exportMenuItem, backupMenuItem, compareMenuItem, new SeparatorMenuItem(), exitMenuItem);
+
+		// Query menu - query plans, index suggestions, table statistics, live refresh, limits, chunked DML
+		Menu queryMenu = new Menu("Query");
+		CheckMenuItem chunkedMenuItem = new CheckMenuItem("Run UPDATE/DELETE in Chunks");
+		chunkedMenuItem.setOnAction(actionEvent -> chunkedDml = chunkedMenuItem.isSelected());
+		MenuItem pauseMenuItem = new MenuItem("Pause/Resume Chunks");
+		pauseMenuItem.setOnAction(actionEvent -> menuPauseChunks());
+		CheckMenuItem planMenuItem = new CheckMenuItem("Show Query Plan");
+		planMenuItem.setSelected(showPlans);
+		planMenuItem.setOnAction(actionEvent -> {
+			showPlans = planMenuItem.isSelected();
+			showPlan(showPlans && sq != null ? sq.getPlan() : null);
+		});
+		MenuItem adviseMenuItem = new MenuItem("Suggest Indexes...");
+		adviseMenuItem.setOnAction(actionEvent -> menuSuggestIndexes());
+		MenuItem statsMenuItem = new MenuItem("Refresh Table Statistics");
+		statsMenuItem.setOnAction(actionEvent -> menuRefreshStats());
+		MenuItem limitsMenuItem = new MenuItem("Query Limits...");
+		limitsMenuItem.setOnAction(actionEvent -> menuQueryLimits());
+		CheckMenuItem liveMenuItem = new CheckMenuItem("Live Refresh");
+		liveMenuItem.setOnAction(actionEvent -> {
+			liveRefresh = liveMenuItem.isSelected();
+			watchChanges();
+		});
+		queryMenu.getItems().addAll(planMenuItem, adviseMenuItem, statsMenuItem, liveMenuItem,
+				new SeparatorMenuItem(), limitsMenuItem, chunkedMenuItem, pauseMenuItem);
 
 		// Help menu - about button
 		Menu helpMenu = new Menu("Help");
@@ -365,7 +1338,7 @@ public class NiSqlite extends Application {
 			menuAbout();
 		});
 
-		menuBar.getMenus().addAll(fileMenu, helpMenu);
+		menuBar.getMenus().addAll(fileMenu, queryMenu, helpMenu);
 		return menuBar;
 	}
 
@@ -375,6 +1348,7 @@ public class NiSqlite extends Application {
 	@Override
 	public void start(Stage primaryStage) throws IOException {
 
+		QueryMetrics.register(); // query timings, for jconsole or any JMX client
 		primaryStage.setTitle(APP_TITLE);
 		BorderPane root = new BorderPane();
 		Scene scene = new Scene(root, 800, 600, Color.GRAY);
@@ -438,6 +1412,18 @@ public class NiSqlite extends Application {
 		Label lastRunLbl = new Label("Last SQL run:");
 		gridpane.add(lastRunLbl, 0, 2);
 		gridpane.add(lastRunStr, 1, 2);
+		cancelBtn.setPrefWidth(70);
+		cancelBtn.setDisable(true);
+		gridpane.add(cancelBtn, 2, 2);
+
+		// Cancel the running SQL command
+		cancelBtn.setOnAction(actionEvent -> {
+			stopQuery();
+			if (cancelJob != null)
+				cancelJob.run();
+			resultStr.setText("Cancelled.");
+			tooltipResultMessage.setText("Cancelled.");
+		});
 
 		Label resultLbl = new Label("Result:");
 		gridpane.add(resultLbl, 0, 3);
@@ -446,17 +1432,60 @@ public class NiSqlite extends Application {
 
 		gridpane.add(resultStr, 1, 3);
 
+		// Filter of the results, run by SQLite as a WHERE on the query
+		Label filterLbl = new Label("Filter:");
+		filterStr.setPromptText("WHERE condition, like price > 10 AND title LIKE 'A%'");
+		Button filterBtn = new Button("Filter");
+		filterBtn.setPrefWidth(70);
+		gridpane.add(filterLbl, 0, 4);
+		gridpane.add(filterStr, 1, 4);
+		gridpane.add(filterBtn, 2, 4);
+		filterStr.setOnAction(actionEvent -> pushDown());
+		filterBtn.setOnAction(actionEvent -> pushDown());
+
+		// Clicks on the column headers sort in SQLite as well
+		resultsTableView.setSortPolicy(table -> {
+			pushDown();
+			return true;
+		});
+
 		bPaneR.setTop(gridpane);
 		bPaneR.setCenter(resultsTableView);
+
+		// The plan of the last statement, next to its results
+		planTreeView.setShowRoot(false);
+		planTreeView.setPrefWidth(260);
+		planTreeView.setCellFactory(tree -> new TreeCell<QueryPlan.Node>() {
+			@Override
+			protected void updateItem(QueryPlan.Node item, boolean empty) {
+				super.updateItem(item, empty);
+				setText(empty || item == null ? "" : item.toString());
+				setTextFill(!empty && item != null && item.isWarning() ? Color.FIREBRICK : Color.BLACK);
+			}
+		});
+		BorderPane.setMargin(planTreeView, new Insets(0, 0, 0, 5));
+		bPaneR.setRight(planTreeView);
+		showPlan(null);
 		Tooltip.install(resultStr, tooltipResultMessage);
 		Tooltip.install(lastRunStr, tooltipLastSQL);
 
 		tablesListView.setPadding(new Insets(5));
 		tablesListView.setItems(tableList);
+		// Rows and size next to every table, the column profiles in its tooltip
+		tablesListView.setCellFactory(list -> new ListCell<String>() {
+			@Override
+			protected void updateItem(String item, boolean empty) {
+				super.updateItem(item, empty);
+				TableStats.Table stats = empty || item == null || sq == null ? null : sq.getTableStats().get(item);
+				setText(empty || item == null ? "" : stats == null ? item : item + "  (" + stats.getSummary() + ")");
+				setTooltip(stats == null ? null : new Tooltip(stats.toString()));
+			}
+		});
 		// What happens when we click a table name
 		tablesListView.getSelectionModel().selectedItemProperty()
 				.addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) -> {
-					listSelectTable(newValue);
+					if (newValue != null)
+						listSelectTable(newValue);
 				});
 
 		root.setCenter(bPaneR);
@@ -0,0 +1,319 @@
+/** NiSqliteCli.java
+ *
+ * Runs SQL against a database from the command line, without the GUI.
+ *
+ * The SQL comes from -c, from script files, or from standard input, and every script is run by a
+ * ScriptExecutor on the connection of SqliteJdbc, the same engine the GUI uses: in one transaction, rolled
+ * back on an error, or with -a every statement in its own. The rows of every statement that returns rows are
+ * streamed to standard output as CSV, JSON Lines or SQL INSERT statements while they are read. Nothing of JavaFX is loaded, so it starts
+ * fast enough for cron jobs and CI.
+ *
+ *   java -cp nisqlite-core.jar:sqlite-jdbc.jar nisqlite.NiSqliteCli [-f csv|jsonl|sql] [-k] [-a] [-c SQL] db [file.sql ...]
+ *
+ * With -b the database is then copied to a file with the online backup API, while other programs go on using
+ * it, for snapshots from cron; with no SQL given, only the copy is made:
+ *
+ *   java ... nisqlite.NiSqliteCli -b /backup/app-$(date +%H).db app.db
+ *
+ * With -d the database is compared with another one, opened read-only, and the SQL script that turns it into
+ * the other is written to standard output, see DatabaseDiff:
+ *
+ *   java ... nisqlite.NiSqliteCli -d release.db build.db > patch.sql
+ *
+ * With -s the queries run on every file that matches a glob instead, in parallel, through a ShardSession,
+ * and their results are merged (-m picks how, see ShardSession.Merge):
+ *
+ *   java ... nisqlite.NiSqliteCli -s 'logs/2026-*.db' -c "SELECT level, count(*) FROM log GROUP BY level"
+ *
+ * The exit code is 0 when every statement ran, 1 when a statement, the comparison or the copy failed and 2 for
+ * bad arguments or a database that could not be opened.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class NiSqliteCli {
+
+	private static final String USAGE = "Usage: NiSqliteCli [-f csv|jsonl|sql] [-k] [-a] [-c SQL] [-d FILE] [-b FILE] database [file.sql ...]\n"
+			+ "       NiSqliteCli -s GLOB [-s GLOB ...] [-m auto|concat|order_by|aggregate] [-f ...] [-k] [-c SQL] [file.sql ...]\n"
+			+ "  -f  output format of the rows, csv by default\n"
+			+ "  -k  keep going after a statement fails, the failed statements are rolled back\n"
+			+ "  -a  autocommit, every statement in its own transaction instead of each script in one\n"
+			+ "  -c  run this SQL instead of files or standard input\n"
+			+ "  -d  write the SQL that turns the database into FILE after the SQL; alone it only compares\n"
+			+ "  -b  copy the database to FILE after the SQL, online, a few pages at a time; alone it only copies\n"
+			+ "  -s  run the queries on every database file that matches the glob, read-only, and merge the rows\n"
+			+ "  -m  how the rows of the files are merged, auto by default";
+
+	private final SqliteJdbc sq;
+	private final ShardSession shards; // the files to run the queries on instead of sq, or null
+	private ShardSession.Merge merge = ShardSession.Merge.AUTO;
+	private final ResultExporter.Format format;
+	private final boolean keepGoing;
+	private boolean autocommit = false; // every statement in its own transaction
+	private final Writer out;
+	private int errors = 0;
+
+	public NiSqliteCli(SqliteJdbc sq, ResultExporter.Format format, boolean keepGoing, Writer out) {
+		this(sq, null, format, keepGoing, out);
+	}
+
+	public NiSqliteCli(ShardSession shards, ResultExporter.Format format, boolean keepGoing, Writer out) {
+		this(null, shards, format, keepGoing, out);
+	}
+
+	private NiSqliteCli(SqliteJdbc sq, ShardSession shards, ResultExporter.Format format, boolean keepGoing,
+			Writer out) {
+		this.sq = sq;
+		this.shards = shards;
+		this.format = format;
+		this.keepGoing = keepGoing;
+		this.out = out;
+	}
+
+	/**
+	 * run - Runs all statements of a script. Returns false if it stopped at an error.
+	 * 
+	 * On a database the script runs through a ScriptExecutor, in one transaction unless autocommit is set.
+	 */
+	public boolean run(Reader in, String name) throws IOException {
+		SqlScript script = new SqlScript(in);
+		if (shards != null) {
+			SqlScript.Statement statement;
+			while ((statement = script.next()) != null) {
+				String error = null;
+				try {
+					shards.query(statement.getSql(), merge, new ResultExporter(format).rowSink(out));
+				} catch (SQLException e) {
+					error = e.getMessage();
+				}
+				if (!reportError(error, name, statement.getLine()) && !keepGoing)
+					return false;
+			}
+			return true;
+		}
+		ScriptExecutor executor = new ScriptExecutor(sq);
+		executor.setKeepGoing(keepGoing);
+		executor.setTransaction(!autocommit);
+		try {
+			return executor.run(script, new ScriptExecutor.Listener() {
+				@Override
+				public void rows(SqlScript.Statement statement, ResultSet rs) throws SQLException, IOException {
+					new ResultExporter(format).export(rs, out, (done, total) -> {
+					});
+				}
+
+				@Override
+				public void error(SqlScript.Statement statement, SQLException e) throws IOException {
+					reportError(e.getMessage(), name, statement.getLine());
+				}
+			}, (done, total) -> {
+			});
+		} catch (SQLException e) {
+			return reportError(e.getMessage(), name, 0);
+		}
+	}
+
+	/**
+	 * reportError - Writes the error of a statement, if there is one, to standard error. Returns true if there
+	 * was none.
+	 */
+	private boolean reportError(String error, String name, int line) throws IOException {
+		if (error != null) {
+			out.flush();
+			errors++;
+			System.err.println(name + ":" + line + ": " + error);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * setMerge - How the rows of the shards are merged
+	 */
+	public void setMerge(ShardSession.Merge merge) {
+		this.merge = merge;
+	}
+
+	/**
+	 * setAutocommit - Runs every statement in its own transaction instead of the script in one
+	 */
+	public void setAutocommit(boolean autocommit) {
+		this.autocommit = autocommit;
+	}
+
+	/**
+	 * getErrors - Statements that failed
+	 *
+	 * @return errors
+	 */
+	public int getErrors() {
+		return errors;
+	}
+
+	/**
+	 * backup - Copies the database to a file, and reports how it went on standard error
+	 */
+	private static boolean backup(SqliteJdbc sq, String file) {
+		DatabaseBackup backup = new DatabaseBackup(sq, Paths.get(file));
+		try {
+			backup.run((done, total) -> {
+			});
+			System.err.println("Backed up to " + file + ": " + backup);
+			return true;
+		} catch (SQLException | IOException e) {
+			System.err.println("Backup to " + file + " failed: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * diff - Writes the script that turns the database into another one, and reports the differences on
+	 * standard error
+	 */
+	private static boolean diff(SqliteJdbc sq, String file, Writer out) throws IOException {
+		SqliteJdbc other = new SqliteJdbc(file, true);
+		if (!other.isLoaded()) {
+			System.err.println("Could not open " + file + ": " + other.getError());
+			return false;
+		}
+		try {
+			DatabaseDiff diff = new DatabaseDiff(sq, other, out);
+			diff.run((done, total) -> {
+			});
+			System.err.println("Compared with " + file + ": " + diff);
+			return true;
+		} catch (SQLException e) {
+			System.err.println("Comparing with " + file + " failed: " + e.getMessage());
+			return false;
+		} finally {
+			other.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		ResultExporter.Format format = ResultExporter.Format.CSV;
+		boolean keepGoing = false;
+		boolean autocommit = false;
+		String command = null;
+		String backupFile = null;
+		String diffFile = null;
+		ShardSession.Merge merge = ShardSession.Merge.AUTO;
+		List<String> globs = new ArrayList<String>();
+		List<String> files = new ArrayList<String>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-f":
+					format = ResultExporter.Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+					break;
+				case "-k":
+					keepGoing = true;
+					break;
+				case "-a":
+					autocommit = true;
+					break;
+				case "-c":
+					command = args[++i];
+					break;
+				case "-d":
+					diffFile = args[++i];
+					break;
+				case "-b":
+					backupFile = args[++i];
+					break;
+				case "-s":
+					globs.add(args[++i]);
+					break;
+				case "-m":
+					merge = ShardSession.Merge.valueOf(args[++i].toUpperCase(Locale.ROOT));
+					break;
+				case "-h":
+				case "--help":
+					System.out.println(USAGE);
+					return;
+				default:
+					files.add(args[i]);
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		if (files.isEmpty() && globs.isEmpty() || (backupFile != null || diffFile != null) && !globs.isEmpty()) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		SqliteJdbc sq = null;
+		ShardSession shards = null;
+		if (globs.isEmpty()) {
+			sq = new SqliteJdbc(files.remove(0));
+			if (!sq.isLoaded()) {
+				System.err.println("Could not open " + sq.getFilename() + ": " + sq.getError());
+				System.exit(2);
+			}
+		} else {
+			shards = new ShardSession(ShardSession.DEFAULT_THREADS);
+			for (String glob : globs) {
+				if (shards.addGlob(glob) == 0) {
+					System.err.println("No database files match " + glob);
+					System.exit(2);
+				}
+			}
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+		NiSqliteCli cli = shards != null ? new NiSqliteCli(shards, format, keepGoing, out)
+				: new NiSqliteCli(sq, format, keepGoing, out);
+		cli.setMerge(merge);
+		cli.setAutocommit(autocommit);
+		boolean ok = true;
+		try {
+			if (command != null) {
+				ok = cli.run(new StringReader(command), "-c");
+			} else if (files.isEmpty() && backupFile == null && diffFile == null) {
+				ok = cli.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), "stdin");
+			} else {
+				for (String file : files) {
+					try (Reader script = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+						ok = cli.run(script, file) && ok;
+					}
+					if (!ok && !keepGoing)
+						break;
+				}
+			}
+			if (diffFile != null && (ok || keepGoing))
+				ok = diff(sq, diffFile, out) && ok;
+			if (backupFile != null && (ok || keepGoing))
+				ok = backup(sq, backupFile) && ok;
+		} finally {
+			out.flush();
+			if (sq != null)
+				sq.close();
+			if (shards != null)
+				shards.close();
+		}
+		System.exit(ok && cli.getErrors() == 0 ? 0 : 1);
+	}
+}
@@ -0,0 +1,299 @@
+/** ParallelScan.java
+ *
+ * Reads a whole table in parallel, split into rowid ranges.
+ *
+ * The range from min(rowid) to max(rowid) is cut into parts of the same width. The parts run on a fork-join
+ * pool with one thread per reader connection, every part borrowing a reader and seeking straight to its
+ * first rowid, so a full table operation uses all the readers instead of one cursor. What a part read is
+ * handed to a sink, one part at a time: in rowid order when the scan is ordered, holding back the parts
+ * that finish early, or as soon as it is read when it is not, which is enough for exports and counts.
+ * At most two parts per thread are read or held back at a time, so memory use does not depend on the size
+ * of the table.
+ *
+ * Only tables with a rowid can be split. The readers see the last committed data, not the changes of a
+ * transaction still open on the writer.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ParallelScan {
+
+	/**
+	 * RangeReader - Reads the rows of one part, from fromRowid to toRowid, both included. Called on the
+	 * threads of the pool.
+	 */
+	public interface RangeReader<T> {
+		T read(long fromRowid, long toRowid) throws SQLException;
+	}
+
+	/**
+	 * PartReader - Reads the result set of the query of one part
+	 */
+	public interface PartReader<T> {
+		T read(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * PartSink - Takes the parts that were read. Called for one part at a time, so it needs no locking.
+	 */
+	public interface PartSink<T> {
+		void accept(T part) throws SQLException, IOException;
+	}
+
+	private static final long MIN_PART = 1 << 16; // rowids per part at least
+	private static final int MAX_PARTS = 4096; // parts of the largest tables
+	private static final long WAIT_MILLIS = 50; // how often a waiting scan looks for errors and cancel
+
+	private final SqliteJdbc sq;
+	private final String table;
+	private final int threads;
+	private volatile boolean cancelled = false;
+	private final AtomicInteger partsDone = new AtomicInteger();
+	private int partCount = 0;
+
+	public ParallelScan(SqliteJdbc sq, String table) {
+		this.sq = sq;
+		this.table = table;
+		ConnectionManager connections = sq.getConnectionManager();
+		this.threads = connections != null ? Math.max(1, connections.getReaderCount()) : 1;
+	}
+
+	/**
+	 * count - The rows of the table that match a condition, or all of them if it is null, counted in parallel.
+	 * A plain SELECT count(*) of the whole table is often faster on few cores, because SQLite then counts the
+	 * entries of the smallest index without reading any row.
+	 */
+	public long count(String where) throws SQLException, IOException {
+		long[] total = { 0 };
+		scan("count(*)", where, false, rs -> rs.next() ? rs.getLong(1) : 0L, n -> total[0] += n);
+		return total[0];
+	}
+
+	/**
+	 * fetch - All the rows of the table in rowid order, read in parallel
+	 */
+	public ResultStore fetch() throws SQLException, IOException {
+		ResultStore res = new ResultStore(getColumns());
+		scan("*", null, true, rs -> {
+			ResultStore part = ResultStore.forResultSet(rs);
+			while (!cancelled && rs.next()) {
+				part.addRow(rs);
+			}
+			return part;
+		}, part -> res.addAll(part));
+		return res;
+	}
+
+	/**
+	 * scanRowids - Hands the rowids of the table to the sink in order, a part at a time. The parts are read
+	 * again on every scan; they are not kept in the result cache, where they would evict query results.
+	 */
+	public void scanRowids(PartSink<long[]> sink) throws SQLException, IOException {
+		scanRanges(true, (from, to) -> sq.getRowidRange(table, from, to), sink);
+	}
+
+	/**
+	 * scan - Runs SELECT columns FROM table for every part, with the rows that match the condition if it is not
+	 * null, and hands what the part reader made of its result set to the sink
+	 */
+	public <T> void scan(String columns, String where, boolean ordered, PartReader<T> reader, PartSink<T> sink)
+			throws SQLException, IOException {
+		String sql = "SELECT " + columns + " FROM " + SqliteJdbc.quote(table) + " WHERE rowid BETWEEN ? AND ?"
+				+ (where != null ? " AND (" + where + ")" : "") + (ordered ? " ORDER BY rowid" : "");
+		scanRanges(ordered, (from, to) -> {
+			ConnectionManager.Reader conn = sq.acquireReader();
+			StatementCache statements = conn.getStatementCache();
+			PreparedStatement statement = statements.acquire(sql);
+			try {
+				statement.setLong(1, from);
+				statement.setLong(2, to);
+				try (ResultSet rs = statement.executeQuery()) {
+					return reader.read(rs);
+				}
+			} finally {
+				statements.release(sql, statement);
+				sq.releaseReader(conn);
+			}
+		}, sink);
+	}
+
+	/**
+	 * scanRanges - Splits the table into parts, reads them on the pool and hands them to the sink. Returns
+	 * when all parts are done, or throws the first error.
+	 */
+	public <T> void scanRanges(boolean ordered, RangeReader<T> reader, PartSink<T> sink)
+			throws SQLException, IOException {
+		long[] bounds = getBounds();
+		partsDone.set(0);
+		if (bounds == null) {
+			partCount = 0;
+			return;
+		}
+		long span = bounds[1] - bounds[0];
+		if (span < 0)
+			span = Long.MAX_VALUE; // rowids from both ends of the long range
+		long width = Math.max(MIN_PART, span / MAX_PARTS + 1);
+		int parts = (int) (span / width) + 1;
+		partCount = parts;
+
+		Run<T> run = new Run<T>(ordered, sink);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			int i = 0;
+			while (i < parts && run.error == null && !cancelled) {
+				if (!run.window.tryAcquire(WAIT_MILLIS, TimeUnit.MILLISECONDS))
+					continue; // look at the error and cancelled flags, then wait again
+				int part = i++;
+				long from = bounds[0] + part * width;
+				long to = part == parts - 1 ? bounds[1] : from + width - 1;
+				pool.execute(() -> run.read(part, from, to, reader));
+			}
+		} catch (InterruptedException e) {
+			cancelled = true;
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				cancelled = true;
+				pool.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (run.error instanceof SQLException)
+			throw (SQLException) run.error;
+		if (run.error instanceof IOException)
+			throw (IOException) run.error;
+		if (run.error != null)
+			throw new SQLException(run.error);
+	}
+
+	/**
+	 * Run - The state of one scan: the parts held back for the sink and the first error
+	 */
+	private class Run<T> {
+		final boolean ordered;
+		final PartSink<T> sink;
+		final Semaphore window = new Semaphore(2 * threads); // parts read or held back at a time
+		final Map<Integer, T> held = new HashMap<Integer, T>(); // parts read before the ones before them
+		int next = 0; // part the sink takes next, when ordered
+		volatile Exception error = null;
+
+		Run(boolean ordered, PartSink<T> sink) {
+			this.ordered = ordered;
+			this.sink = sink;
+		}
+
+		void read(int part, long from, long to, RangeReader<T> reader) {
+			try {
+				if (error != null || cancelled)
+					return;
+				T res = reader.read(from, to);
+				partsDone.incrementAndGet();
+				synchronized (this) {
+					if (!ordered) {
+						sink.accept(res);
+						return;
+					}
+					held.put(part, res);
+					while (held.containsKey(next)) {
+						T head = held.remove(next++);
+						window.release(); // its place goes to the next part
+						sink.accept(head);
+					}
+				}
+			} catch (Exception e) {
+				synchronized (this) {
+					if (error == null)
+						error = e;
+				}
+			} finally {
+				if (!ordered)
+					window.release();
+			}
+		}
+	}
+
+	/**
+	 * getBounds - The smallest and the largest rowid of the table, or null if it is empty
+	 */
+	private long[] getBounds() throws SQLException {
+		ConnectionManager.Reader conn = sq.acquireReader();
+		try (Statement statement = conn.getConnection().createStatement();
+				ResultSet rs = statement
+						.executeQuery("SELECT min(rowid), max(rowid) FROM " + SqliteJdbc.quote(table))) {
+			if (!rs.next() || rs.getObject(1) == null)
+				return null;
+			return new long[] { rs.getLong(1), rs.getLong(2) };
+		} finally {
+			sq.releaseReader(conn);
+		}
+	}
+
+	/**
+	 * getColumns - The columns of the table, in the order SELECT * returns them
+	 */
+	public List<String> getColumns() {
+		return sq.getFields(table);
+	}
+
+	/**
+	 * cancel - Stops handing out parts. The parts being read finish, unless their reader checks isCancelled.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getPartsDone - Parts read so far, for progress
+	 */
+	public int getPartsDone() {
+		return partsDone.get();
+	}
+
+	/**
+	 * getPartCount - Parts of the last scan, 0 for an empty table
+	 *
+	 * @return partCount
+	 */
+	public int getPartCount() {
+		return partCount;
+	}
+
+	/**
+	 * getThreads - Parts read at the same time
+	 *
+	 * @return threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+}
@@ -0,0 +1,22 @@
+/** ProgressListener.java
+ *
+ * Receives the progress of a long running job, like an import or an export.
+ *
+ * It is called on the thread that runs the job. GUI code should hand it to an FxCoalescer.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+@FunctionalInterface
+public interface ProgressListener {
+
+	/**
+	 * progress - Work done so far out of total, total is -1 when it is not known
+	 */
+	void progress(long done, long total);
+}
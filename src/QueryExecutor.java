@@ -0,0 +1,97 @@
+/** QueryExecutor.java
+ *
+ * Runs query tasks on a dedicated worker thread, away from the JavaFX application thread.
+ *
+ * Tasks run one at a time in the order they were submitted, so the writer connection is never used by two
+ * queries at once. Reads that borrow a reader connection, like table windows and exports, run on a pool of
+ * read threads instead, as many as there are readers, so they neither wait for the query nor for each other.
+ * Work nobody waits for, like table statistics, runs on one background thread of the lowest priority.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryExecutor {
+
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "nisqlite-query");
+		t.setDaemon(true); // do not keep the JVM alive after the GUI exits
+		return t;
+	});
+	private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "nisqlite-background");
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY); // the GUI and the queries come first
+		return t;
+	});
+	private final AtomicInteger readThreads = new AtomicInteger();
+	private final ExecutorService readers = Executors.newFixedThreadPool(ConnectionManager.DEFAULT_READERS, r -> {
+		Thread t = new Thread(r, "nisqlite-read-" + readThreads.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * submit - Queues a query for execution
+	 *
+	 * @return the submitted task
+	 */
+	public QueryTask submit(SqliteJdbc sq, String sql, QueryTask.Listener listener) {
+		QueryTask task = new QueryTask(sq, sql, listener);
+		worker.execute(task);
+		return task;
+	}
+
+	/**
+	 * execute - Queues any other database work, so it runs in turn with the queries
+	 */
+	public void execute(Runnable job) {
+		worker.execute(job);
+	}
+
+	/**
+	 * executeRead - Runs a job that borrows a reader of the database on a read thread. Without readers, like
+	 * for an in-memory database, it is queued on the query worker, because it uses the writer.
+	 */
+	public void executeRead(SqliteJdbc sq, Runnable job) {
+		if (sq.hasReaders())
+			readers.execute(job);
+		else
+			worker.execute(job);
+	}
+
+	/**
+	 * executeBackground - Runs a job that borrows readers on the background thread, behind the GUI and the
+	 * queries. Without readers it is queued on the query worker, like executeRead.
+	 */
+	public void executeBackground(SqliteJdbc sq, Runnable job) {
+		if (sq.hasReaders())
+			background.execute(job);
+		else
+			worker.execute(job);
+	}
+
+	/**
+	 * close - Closes a database once the queries queued before have finished with it
+	 */
+	public void close(SqliteJdbc sq) {
+		worker.execute(() -> sq.close());
+	}
+
+	/**
+	 * shutdown - Stops the worker, the read and the background threads after the queued tasks
+	 */
+	public void shutdown() {
+		worker.shutdown();
+		readers.shutdown();
+		background.shutdown();
+	}
+}
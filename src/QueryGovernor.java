@@ -0,0 +1,190 @@
+/** QueryGovernor.java
+ *
+ * Limits what a query of the user may take: the rows read, the memory of the rows and the time.
+ *
+ * The time is watched by SQLite itself. A progress handler, called every CHECK_STEPS instructions of the
+ * virtual machine of the statement, interrupts it once the query has run for maxMillis, while it is executed
+ * and while its rows are read, so a join that never returns a row is stopped as well as a long scan. The
+ * query timeout of JDBC did not do that: sqlite-jdbc only makes it the time a statement waits for a lock.
+ *
+ * The rows and their memory are counted by the reader of the result, which asks allowRow for every row it has
+ * read before it keeps it; past a limit it stops reading and keeps the rows read so far, so a careless SELECT *
+ * of a large table shows its first rows and a message instead of filling the heap. A result of exactly the
+ * maximum number of rows is read whole, and not reported as stopped. The memory is the size of the arrays of
+ * the ResultStore, which is what it takes of the heap. A limit of 0 is no limit.
+ *
+ * Only statements that may return rows are governed: SELECT, PRAGMA, EXPLAIN and WITH ... SELECT. An UPDATE,
+ * a DELETE or a CREATE INDEX is not stopped halfway by a limit meant for reading, which would roll back all
+ * its work; it can still be cancelled.
+ *
+ * One query runs at a time on the writer, so a governor watches one query at a time.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.sqlite.ProgressHandler;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryGovernor {
+
+	/**
+	 * Limit - The limit a query ran into
+	 */
+	public enum Limit {
+		ROWS, MEMORY, TIME
+	}
+
+	public static final long DEFAULT_MAX_ROWS = 5000000;
+	public static final long DEFAULT_MAX_BYTES = Runtime.getRuntime().maxMemory() / 4;
+	public static final long DEFAULT_MAX_MILLIS = 60000;
+	private static final int CHECK_STEPS = 10000; // instructions between two looks at the clock, well under 1 ms
+
+	private volatile long maxRows = DEFAULT_MAX_ROWS;
+	private volatile long maxBytes = DEFAULT_MAX_BYTES;
+	private volatile long maxMillis = DEFAULT_MAX_MILLIS;
+	private volatile long deadline = 0; // System.nanoTime() the running query has to end by
+	private volatile Limit limit = null; // the limit the last query ran into, null if none
+	private Connection governed = null; // the connection the progress handler is set on
+
+	private final ProgressHandler handler = new ProgressHandler() {
+		@Override
+		protected int progress() {
+			if (deadline != 0 && System.nanoTime() - deadline > 0) {
+				limit = Limit.TIME;
+				return 1; // SQLite stops the statement with SQLITE_INTERRUPT
+			}
+			return 0;
+		}
+	};
+
+	/**
+	 * start - Starts watching a query that is about to run on the connection
+	 */
+	public synchronized void start(Connection conn) throws SQLException {
+		finish();
+		limit = null;
+		long millis = maxMillis;
+		if (millis > 0) {
+			deadline = System.nanoTime() + millis * 1000000L;
+			ProgressHandler.setHandler(conn, CHECK_STEPS, handler);
+			governed = conn;
+		}
+	}
+
+	/**
+	 * finish - Stops watching the query, so the writer runs other statements without a time limit. The limit the
+	 * query ran into stays until the next start.
+	 */
+	public synchronized void finish() {
+		deadline = 0;
+		if (governed != null) {
+			try {
+				ProgressHandler.clearHandler(governed);
+			} catch (SQLException e) {
+				// closed, and the handler with it
+			}
+			governed = null;
+		}
+	}
+
+	/**
+	 * allowRow - Tells if the reader of the result may keep the row it has just read, the rows-th, when the rows
+	 * kept before take bytes bytes
+	 */
+	public boolean allowRow(long rows, long bytes) {
+		if (maxRows > 0 && rows > maxRows) {
+			limit = Limit.ROWS;
+			return false;
+		}
+		if (maxBytes > 0 && bytes > maxBytes) {
+			limit = Limit.MEMORY;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * getLimit - The limit the last query ran into, null if it ran into none
+	 *
+	 * @return limit
+	 */
+	public Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * describe - A limit as the user set it, like "the limit of 5000000 rows"
+	 */
+	public String describe(Limit which) {
+		switch (which) {
+		case ROWS:
+			return "the limit of " + maxRows + " rows";
+		case MEMORY:
+			return "the memory limit of " + (maxBytes >> 20) + " MB";
+		default:
+			return "the time limit of " + maxMillis / 1000.0 + " s";
+		}
+	}
+
+	/**
+	 * getMaxRows - Rows read of a result at most, 0 for no limit
+	 *
+	 * @return maxRows
+	 */
+	public long getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * setMaxRows
+	 */
+	public void setMaxRows(long maxRows) {
+		this.maxRows = Math.max(0, maxRows);
+	}
+
+	/**
+	 * getMaxBytes - Heap the rows of a result may take, 0 for no limit
+	 *
+	 * @return maxBytes
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * setMaxBytes
+	 */
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+	}
+
+	/**
+	 * getMaxMillis - Time a query may run, reading its rows included, 0 for no limit
+	 *
+	 * @return maxMillis
+	 */
+	public long getMaxMillis() {
+		return maxMillis;
+	}
+
+	/**
+	 * setMaxMillis
+	 */
+	public void setMaxMillis(long maxMillis) {
+		this.maxMillis = Math.max(0, maxMillis);
+	}
+
+	@Override
+	public String toString() {
+		return (maxRows > 0 ? maxRows + " rows" : "no row limit") + ", "
+				+ (maxBytes > 0 ? (maxBytes >> 20) + " MB" : "no memory limit") + ", "
+				+ (maxMillis > 0 ? maxMillis / 1000.0 + " s" : "no time limit");
+	}
+}
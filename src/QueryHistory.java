@@ -0,0 +1,122 @@
+/** QueryHistory.java
+ *
+ * The queries and writes run on one database, with how often and how long they ran, for the index advisor.
+ *
+ * Statements are grouped by their normalized SQL, the statement cache key. Only the MAX_ENTRIES most
+ * recently run groups are kept. Every group keeps the last plan of its statement.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryHistory {
+
+	private static final int MAX_ENTRIES = 500; // normalized statements kept
+
+	/**
+	 * Entry - One normalized statement
+	 */
+	public static class Entry {
+		private final String sql; // the statement as it was last run
+		private final long count; // runs
+		private final long nanos; // time of all the runs
+		private final QueryPlan plan; // the last plan, null if it could not be read
+
+		Entry(String sql, long count, long nanos, QueryPlan plan) {
+			this.sql = sql;
+			this.count = count;
+			this.nanos = nanos;
+			this.plan = plan;
+		}
+
+		/**
+		 * getSql
+		 *
+		 * @return sql
+		 */
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * getCount - Times the statement ran
+		 *
+		 * @return count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * getNanos - Time of all the runs, up to the first row of a query
+		 *
+		 * @return nanos
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		/**
+		 * getPlan
+		 *
+		 * @return plan
+		 */
+		public QueryPlan getPlan() {
+			return plan;
+		}
+
+		@Override
+		public String toString() {
+			return count + "x " + sql;
+		}
+	}
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, QueryHistory.Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * record - Adds a run of a statement and its plan
+	 */
+	public synchronized void record(String sql, long nanos, QueryPlan plan) {
+		String key = StatementCache.normalize(sql);
+		Entry old = entries.get(key);
+		entries.put(key, old == null ? new Entry(sql, 1, nanos, plan)
+				: new Entry(sql, old.count + 1, old.nanos + nanos, plan != null ? plan : old.plan));
+	}
+
+	/**
+	 * getEntries - The statements, the most recently run last
+	 */
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<Entry>(entries.values());
+	}
+
+	/**
+	 * size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * clear
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+}
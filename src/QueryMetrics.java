@@ -0,0 +1,216 @@
+/** QueryMetrics.java
+ *
+ * Rolling timing histograms per query, readable over JMX.
+ *
+ * Every finished query hands its QueryTiming to record. The queries are grouped by their shape, the SQL
+ * with every literal as ?, so WHERE id = 1 and WHERE id = 2 share their histograms. For each group the last
+ * WINDOW times of every phase are kept, so the percentiles follow what the queries do now rather than since
+ * the start. Only the MAX_QUERIES most recently used groups are kept. The window reads of a browsed table are
+ * recorded as well, so a slow scroll shows up next to the slow queries.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryMetrics implements QueryMetricsMBean {
+
+	public static final String OBJECT_NAME = "nisqlite:type=QueryMetrics";
+	private static final int WINDOW = 256; // samples kept per histogram
+	private static final int MAX_QUERIES = 200; // query shapes kept
+
+	private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+	/**
+	 * Histogram - The last WINDOW samples of one time, in a ring
+	 */
+	static class Histogram {
+		private final long[] samples = new long[WINDOW];
+		private int size = 0;
+		private int next = 0;
+
+		void add(long value) {
+			samples[next] = value;
+			next = (next + 1) % WINDOW;
+			if (size < WINDOW)
+				size++;
+		}
+
+		/**
+		 * percentile - The value below which p percent of the samples are, 0 if there are none
+		 */
+		long percentile(double p) {
+			if (size == 0)
+				return 0;
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			int i = (int) Math.ceil(p / 100.0 * size) - 1;
+			return sorted[Math.max(0, Math.min(size - 1, i))];
+		}
+
+		void clear() {
+			size = 0;
+			next = 0;
+		}
+
+		long max() {
+			long max = 0;
+			for (int i = 0; i < size; i++) {
+				max = Math.max(max, samples[i]);
+			}
+			return max;
+		}
+	}
+
+	/**
+	 * Stats - The histograms of one query shape
+	 */
+	static class Stats {
+		final Histogram total = new Histogram();
+		final Histogram prepare = new Histogram();
+		final Histogram execute = new Histogram();
+		final Histogram firstRow = new Histogram();
+		final Histogram fetch = new Histogram();
+		final Histogram render = new Histogram();
+		long count = 0;
+		long rows = 0;
+		long bytes = 0;
+
+		/**
+		 * add - Adds the times of a query. A query read from the result cache did not prepare or execute, and
+		 * one without rows has no first row, so they add no zeros to those.
+		 */
+		void add(QueryTiming timing) {
+			total.add(timing.getTotalNanos());
+			if (!timing.isCached()) {
+				prepare.add(timing.getPrepareNanos());
+				execute.add(timing.getExecuteNanos());
+				if (timing.getRows() > 0)
+					firstRow.add(timing.getFirstRowNanos());
+			}
+			fetch.add(timing.getFetchNanos());
+			render.add(timing.getRenderNanos());
+			count++;
+			rows += timing.getRows();
+			bytes += timing.getBytes();
+		}
+	}
+
+	private final Map<String, Stats> queries = new LinkedHashMap<String, Stats>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Stats> eldest) {
+			return size() > MAX_QUERIES;
+		}
+	};
+	private final Histogram all = new Histogram(); // total times of all queries
+	private long queryCount = 0;
+	private QueryTiming last = null;
+
+	/**
+	 * getInstance - The metrics of this application
+	 */
+	public static QueryMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * register - Registers the metrics with the platform MBean server, once
+	 */
+	public static void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(INSTANCE, name);
+		} catch (JMException e) {
+			System.err.println("Could not register the query metrics: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * record - Adds the timing of a finished query
+	 */
+	public synchronized void record(QueryTiming timing) {
+		String key = SqlScript.shape(timing.getSql());
+		Stats stats = queries.get(key);
+		if (stats == null) {
+			stats = new Stats();
+			queries.put(key, stats);
+		}
+		stats.add(timing);
+		all.add(timing.getTotalNanos());
+		queryCount++;
+		last = timing;
+	}
+
+	@Override
+	public synchronized long getQueryCount() {
+		return queryCount;
+	}
+
+	@Override
+	public synchronized int getTrackedQueries() {
+		return queries.size();
+	}
+
+	@Override
+	public synchronized String getLastTiming() {
+		return last == null ? "" : last.toString();
+	}
+
+	@Override
+	public synchronized double getTotalP50Millis() {
+		return all.percentile(50) / 1e6;
+	}
+
+	@Override
+	public synchronized double getTotalP95Millis() {
+		return all.percentile(95) / 1e6;
+	}
+
+	@Override
+	public synchronized double getTotalP99Millis() {
+		return all.percentile(99) / 1e6;
+	}
+
+	@Override
+	public synchronized String[] getQueryStats() {
+		List<Map.Entry<String, Stats>> entries = new ArrayList<Map.Entry<String, Stats>>(queries.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue().total.percentile(50), a.getValue().total.percentile(50)));
+		String[] res = new String[entries.size()];
+		for (int i = 0; i < res.length; i++) {
+			Stats s = entries.get(i).getValue();
+			res[i] = String.format(
+					"count %d, total p50 %.1f p95 %.1f p99 %.1f max %.1f ms, prepare p50 %.1f ms, execute p50 %.1f ms, first row p50 %.1f p95 %.1f ms, fetch p50 %.1f ms, render p50 %.1f ms, %d rows, %d bytes: %s",
+					s.count, s.total.percentile(50) / 1e6, s.total.percentile(95) / 1e6, s.total.percentile(99) / 1e6,
+					s.total.max() / 1e6, s.prepare.percentile(50) / 1e6, s.execute.percentile(50) / 1e6,
+					s.firstRow.percentile(50) / 1e6, s.firstRow.percentile(95) / 1e6, s.fetch.percentile(50) / 1e6,
+					s.render.percentile(50) / 1e6, s.rows, s.bytes, entries.get(i).getKey());
+		}
+		return res;
+	}
+
+	@Override
+	public synchronized void reset() {
+		queries.clear();
+		all.clear();
+		queryCount = 0;
+		last = null;
+	}
+}
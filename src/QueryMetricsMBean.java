@@ -0,0 +1,54 @@
+/** QueryMetricsMBean.java
+ *
+ * The JMX view of the query metrics, registered as nisqlite:type=QueryMetrics.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public interface QueryMetricsMBean {
+
+	/**
+	 * getQueryCount - Queries recorded since the start or the last reset
+	 */
+	long getQueryCount();
+
+	/**
+	 * getTrackedQueries - Distinct query shapes that have a histogram
+	 */
+	int getTrackedQueries();
+
+	/**
+	 * getLastTiming - The phases of the last query
+	 */
+	String getLastTiming();
+
+	/**
+	 * getTotalP50Millis - Median total time of the recent queries
+	 */
+	double getTotalP50Millis();
+
+	/**
+	 * getTotalP95Millis - 95th percentile of the total time of the recent queries
+	 */
+	double getTotalP95Millis();
+
+	/**
+	 * getTotalP99Millis - 99th percentile of the total time of the recent queries
+	 */
+	double getTotalP99Millis();
+
+	/**
+	 * getQueryStats - One line per query shape, slowest median first
+	 */
+	String[] getQueryStats();
+
+	/**
+	 * reset - Forgets all the recorded queries
+	 */
+	void reset();
+}
@@ -0,0 +1,227 @@
+/** QueryPlan.java
+ *
+ * The EXPLAIN QUERY PLAN of a statement, as a tree.
+ *
+ * Every row of EXPLAIN QUERY PLAN is a node with the id of its parent, 0 for the top. The steps that make a
+ * query slow on large tables are flagged: a SCAN of a table, or of all of an index, which reads every row, a
+ * TEMP B-TREE, which sorts or groups all the rows before the first one is returned, and an AUTOMATIC INDEX,
+ * which SQLite builds for the query, and throws away after it, because no index fits.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryPlan {
+
+	/**
+	 * Node - One step of the plan
+	 */
+	public static class Node {
+		private final int id;
+		private final String detail;
+		private final List<Node> children = new ArrayList<Node>();
+
+		Node(int id, String detail) {
+			this.id = id;
+			this.detail = detail;
+		}
+
+		/**
+		 * getDetail - The step as SQLite describes it, like "SEARCH t USING INDEX i (a=?)"
+		 *
+		 * @return detail
+		 */
+		public String getDetail() {
+			return detail;
+		}
+
+		/**
+		 * getChildren
+		 *
+		 * @return children
+		 */
+		public List<Node> getChildren() {
+			return Collections.unmodifiableList(children);
+		}
+
+		/**
+		 * isFullScan - A SCAN that reads every row of a table, or of an index in its order, not a SEARCH of some
+		 * of them
+		 */
+		public boolean isFullScan() {
+			return detail.startsWith("SCAN ") && !detail.equals("SCAN CONSTANT ROW")
+					&& !detail.contains("VIRTUAL TABLE");
+		}
+
+		/**
+		 * isTempBtree - A sort or a grouping of all the rows in a temporary B-tree
+		 */
+		public boolean isTempBtree() {
+			return detail.contains("TEMP B-TREE");
+		}
+
+		/**
+		 * isAutomaticIndex - An index SQLite builds for the query because none fits
+		 */
+		public boolean isAutomaticIndex() {
+			return detail.contains("AUTOMATIC") && detail.contains("INDEX");
+		}
+
+		/**
+		 * isWarning - The step can make the query slow on a large table
+		 */
+		public boolean isWarning() {
+			return isFullScan() || isTempBtree() || isAutomaticIndex();
+		}
+
+		/**
+		 * getTable - The table or alias of a SCAN or SEARCH, null for the other steps
+		 */
+		public String getTable() {
+			if (!detail.startsWith("SCAN ") && !detail.startsWith("SEARCH "))
+				return null;
+			String[] words = detail.split(" ");
+			return words.length > 1 ? words[1] : null;
+		}
+
+		@Override
+		public String toString() {
+			return isWarning() ? detail + "  <-- " + (isFullScan() ? "full scan"
+					: isTempBtree() ? "sorts all rows" : "no index fits") : detail;
+		}
+	}
+
+	private final String sql;
+	private final List<Node> roots = new ArrayList<Node>();
+	private final List<Node> nodes = new ArrayList<Node>(); // in the order of EXPLAIN QUERY PLAN
+
+	private QueryPlan(String sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * explain - Runs EXPLAIN QUERY PLAN of the statement. It is only prepared, not run.
+	 */
+	public static QueryPlan explain(Connection conn, String sql) throws SQLException {
+		QueryPlan plan = new QueryPlan(sql);
+		Map<Integer, Node> byId = new HashMap<Integer, Node>();
+		try (Statement statement = conn.createStatement();
+				ResultSet rsPlan = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+			while (rsPlan.next()) {
+				Node node = new Node(rsPlan.getInt(1), rsPlan.getString(4));
+				Node parent = byId.get(rsPlan.getInt(2));
+				if (parent != null)
+					parent.children.add(node);
+				else
+					plan.roots.add(node);
+				byId.put(node.id, node);
+				plan.nodes.add(node);
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * getSql
+	 *
+	 * @return sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * getRoots - The steps at the top of the tree
+	 *
+	 * @return roots
+	 */
+	public List<Node> getRoots() {
+		return Collections.unmodifiableList(roots);
+	}
+
+	/**
+	 * getNodes - All the steps, in the order of EXPLAIN QUERY PLAN
+	 *
+	 * @return nodes
+	 */
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * getWarnings - The steps that can make the query slow
+	 */
+	public List<Node> getWarnings() {
+		List<Node> res = new ArrayList<Node>();
+		for (Node node : nodes) {
+			if (node.isWarning())
+				res.add(node);
+		}
+		return res;
+	}
+
+	/**
+	 * getFullScans - The tables, or their aliases, read from start to end
+	 */
+	public List<String> getFullScans() {
+		List<String> res = new ArrayList<String>();
+		for (Node node : nodes) {
+			if (node.isFullScan())
+				res.add(node.getTable());
+		}
+		return res;
+	}
+
+	/**
+	 * getTempBtrees - Sorts and groupings in temporary B-trees
+	 */
+	public int getTempBtrees() {
+		int res = 0;
+		for (Node node : nodes) {
+			if (node.isTempBtree())
+				res++;
+		}
+		return res;
+	}
+
+	/**
+	 * uses - Some step of the plan uses the index
+	 */
+	public boolean uses(String index) {
+		for (Node node : nodes) {
+			if (node.detail.contains(" INDEX " + index + " ") || node.detail.endsWith(" INDEX " + index))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Node root : roots) {
+			append(sb, root, "");
+		}
+		return sb.toString();
+	}
+
+	private static void append(StringBuilder sb, Node node, String indent) {
+		sb.append(indent).append(node).append('\n');
+		for (Node child : node.children) {
+			append(sb, child, indent + "  ");
+		}
+	}
+}
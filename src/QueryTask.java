@@ -0,0 +1,273 @@
+/** QueryTask.java
+ *
+ * A single SQL query that runs on the query worker thread.
+ *
+ * The task runs the SQL through SqliteJdbc, reads the result set and counts the rows as they arrive.
+ * A SELECT that was read completely before, with no change to the database since, is taken from the result
+ * cache of SqliteJdbc instead.
+ * The rows are read within the limits of the QueryGovernor of SqliteJdbc: at a limit the reading stops, the
+ * rows read so far are kept and getLimit tells which limit it was. Such a result is not cached.
+ * The listener hears about the first row at once and then about every batch of rows, so the GUI can show
+ * the rows read so far while the rest are still coming. The outcome of the statement, its message, error and
+ * plan, is kept by the task when it ends, so the GUI reads this query's and not those of a later one.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryTask implements Runnable {
+
+	/**
+	 * Listener - Receives progress and completion of a query task. Both methods are called on the worker thread.
+	 */
+	public interface Listener {
+		void progress(QueryTask task);
+
+		void done(QueryTask task);
+	}
+
+	private static final int PROGRESS_ROWS = 2000; // report progress every this many rows
+	private static final long PROGRESS_NANOS = 50000000L; // or when this long has passed since the last report
+
+	private final SqliteJdbc sq; // the database to run on
+	private final String sql; // the SQL command to run
+	private final Listener listener;
+	private volatile boolean cancelled = false; // the task was cancelled by the user
+	private volatile boolean done = false; // the task has finished, successfully or not
+	private volatile boolean running = false; // the statement may be executing or its rows being read
+	private volatile long rowCount = 0; // rows read so far
+	private volatile ResultStore store = null; // rows of the result set, null if the SQL had no result set
+	private String fetchError = ""; // error while reading the result set
+	private volatile QueryGovernor.Limit limit = null; // the limit that stopped the reading, null if none
+	private final QueryTiming timing; // how long the phases took
+	private volatile String resultMessage = ""; // of SqliteJdbc when the statement had run
+	private volatile boolean failed = true; // the statement failed, or never ran
+	private volatile String error = "Cancelled before it ran";
+	private volatile QueryPlan plan = null;
+
+	public QueryTask(SqliteJdbc sq, String sql, Listener listener) {
+		this.sq = sq;
+		this.sql = sql;
+		this.listener = listener;
+		this.timing = new QueryTiming(sql);
+	}
+
+	/**
+	 * run - Runs the SQL and reads the result set. Called on the worker thread.
+	 */
+	@Override
+	public void run() {
+		running = true; // before cancelled is looked at, so a cancel either stops it here or interrupts it
+		try {
+			if (!cancelled) {
+				long t0 = System.nanoTime();
+				ResultStore cached = sq.runCached(sql);
+				if (cached != null) {
+					// Read before and nothing has changed since, no need to run it again
+					store = cached;
+					rowCount = cached.getRowCount();
+					timing.setFetchNanos(System.nanoTime() - t0);
+					timing.setRows(rowCount);
+					timing.setBytes(cached.getByteSize());
+					timing.setCached(true);
+					keepOutcome();
+					return;
+				}
+				sq.runSql(sql);
+				timing.setPrepareNanos(sq.getPrepareNanos());
+				timing.setExecuteNanos(sq.getExecuteNanos());
+				if (!cancelled && sq.isSelect() && !sq.hasError()) {
+					fetch(sq.getResult(), sq.getGovernor());
+					if (!cancelled && fetchError.isEmpty() && limit == null)
+						sq.cacheResult(sql, store);
+				}
+				keepOutcome();
+			}
+		} finally {
+			running = false;
+			done = true;
+			listener.done(this);
+		}
+	}
+
+	/**
+	 * keepOutcome - Keeps the message, the error and the plan of the statement, which the next one replaces
+	 */
+	private void keepOutcome() {
+		resultMessage = sq.getResultMessage();
+		error = sq.getError();
+		failed = sq.hasError();
+		plan = sq.getPlan();
+	}
+
+	/**
+	 * fetch - Reads the result set row by row, checking for cancellation and the limits between rows
+	 */
+	private void fetch(ResultSet rsm, QueryGovernor governor) {
+		long t0 = System.nanoTime();
+		try {
+			store = ResultStore.forResultSet(rsm);
+			long reported = t0; // when progress was last reported
+			while (!cancelled && rsm.next()) {
+				if (!governor.allowRow(rowCount + 1, store.getByteSize())) {
+					limit = governor.getLimit(); // there is a row past the limit
+					break;
+				}
+				store.addRow(rsm);
+				rowCount++;
+				// The first row right away, then batches of rows, or what came in a while on a slow query
+				long now = System.nanoTime();
+				if (rowCount == 1) {
+					timing.setFirstRowNanos(now - t0);
+					reported = now;
+					listener.progress(this);
+				} else if (rowCount % PROGRESS_ROWS == 0 || now - reported > PROGRESS_NANOS) {
+					reported = now;
+					listener.progress(this);
+				}
+			}
+			rsm.close();
+		} catch (SQLException e) {
+			// An interrupted query ends up here as well, keep the rows read so far
+			limit = governor.getLimit();
+			if (!cancelled && limit == null) {
+				fetchError = e.getMessage();
+			}
+		} catch (IllegalStateException e) {
+			// A text column of the store is full at 2 GB, whatever the limits of the governor; the row is dropped
+			fetchError = e.getMessage() + ", showing the " + rowCount + " rows read";
+		} finally {
+			sq.endFetch(); // the rows are read: the writer is free of the time limit and cannot be cancelled
+		}
+		timing.setFetchNanos(System.nanoTime() - t0);
+		timing.setRows(rowCount);
+		if (store != null)
+			timing.setBytes(store.getByteSize());
+	}
+
+	/**
+	 * cancel - Stops the task. A running statement is interrupted inside SQLite; a task that waits for the
+	 * worker does not interrupt the statement of the job before it.
+	 */
+	public void cancel() {
+		cancelled = true;
+		if (running)
+			sq.cancel();
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * isDone
+	 *
+	 * @return done
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * getSql
+	 *
+	 * @return sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * getRowCount - Rows read so far, safe to call from any thread
+	 *
+	 * @return rowCount
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * getStore - The rows read so far; getRowCount of the task tells how many of them may be shown. Null
+	 * until the query has run.
+	 *
+	 * @return store
+	 */
+	public ResultStore getStore() {
+		return store;
+	}
+
+	/**
+	 * getTiming - Only complete after the task is done, the GUI adds the render time
+	 *
+	 * @return timing
+	 */
+	public QueryTiming getTiming() {
+		return timing;
+	}
+
+	/**
+	 * getLimit - The limit of the QueryGovernor that stopped the reading of the rows, null if none did
+	 *
+	 * @return limit
+	 */
+	public QueryGovernor.Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * getFetchError
+	 *
+	 * @return fetchError
+	 */
+	public String getFetchError() {
+		return fetchError;
+	}
+
+	/**
+	 * getResultMessage - The message of the statement, valid once the task is done
+	 *
+	 * @return resultMessage
+	 */
+	public String getResultMessage() {
+		return resultMessage;
+	}
+
+	/**
+	 * hasError - The statement failed, or was cancelled before it ran
+	 *
+	 * @return failed
+	 */
+	public boolean hasError() {
+		return failed;
+	}
+
+	/**
+	 * getError
+	 *
+	 * @return error
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * getPlan - The plan of the statement, null if none was read
+	 *
+	 * @return plan
+	 */
+	public QueryPlan getPlan() {
+		return plan;
+	}
+}
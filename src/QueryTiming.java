@@ -0,0 +1,135 @@
+/** QueryTiming.java
+ *
+ * How long each phase of one query took, and how much it fetched.
+ *
+ * The phases are: prepare (getting the prepared statement, from the statement cache or SQLite), execute
+ * (running it up to its first step), first row (until the first row was read), fetch (reading all the rows)
+ * and render (filling the table of results). Times are kept in nanoseconds, and are 0 for phases that did
+ * not happen.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class QueryTiming {
+
+	private final String sql;
+	private long prepareNanos = 0;
+	private long executeNanos = 0;
+	private long firstRowNanos = 0; // from the end of execute to the first row
+	private long fetchNanos = 0; // from the end of execute to the last row
+	private long renderNanos = 0;
+	private long rows = 0;
+	private long bytes = 0; // size of the rows in the result store
+	private boolean cached = false; // the rows came from the result cache
+
+	public QueryTiming(String sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * getTotalNanos - The time of all the phases. First row is part of fetch, so it is not added.
+	 */
+	public long getTotalNanos() {
+		return prepareNanos + executeNanos + fetchNanos + renderNanos;
+	}
+
+	/**
+	 * getSql
+	 *
+	 * @return sql
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	public long getPrepareNanos() {
+		return prepareNanos;
+	}
+
+	public void setPrepareNanos(long prepareNanos) {
+		this.prepareNanos = prepareNanos;
+	}
+
+	public long getExecuteNanos() {
+		return executeNanos;
+	}
+
+	public void setExecuteNanos(long executeNanos) {
+		this.executeNanos = executeNanos;
+	}
+
+	public long getFirstRowNanos() {
+		return firstRowNanos;
+	}
+
+	public void setFirstRowNanos(long firstRowNanos) {
+		this.firstRowNanos = firstRowNanos;
+	}
+
+	public long getFetchNanos() {
+		return fetchNanos;
+	}
+
+	public void setFetchNanos(long fetchNanos) {
+		this.fetchNanos = fetchNanos;
+	}
+
+	public long getRenderNanos() {
+		return renderNanos;
+	}
+
+	public void setRenderNanos(long renderNanos) {
+		this.renderNanos = renderNanos;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public void setRows(long rows) {
+		this.rows = rows;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * isCached - The rows came from the result cache, the query did not run
+	 *
+	 * @return cached
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	public void setCached(boolean cached) {
+		this.cached = cached;
+	}
+
+	/**
+	 * millis - Nanoseconds as milliseconds text
+	 */
+	static String millis(long nanos) {
+		return String.format("%.1f ms", nanos / 1e6);
+	}
+
+	@Override
+	public String toString() {
+		if (cached)
+			return "from cache in " + millis(fetchNanos) + ", render " + millis(renderNanos) + " - " + rows + " rows, "
+					+ String.format("%.1f KB", bytes / 1024.0);
+		return "prepare " + millis(prepareNanos) + ", execute " + millis(executeNanos) + ", first row "
+				+ millis(firstRowNanos) + ", fetch " + millis(fetchNanos) + ", render " + millis(renderNanos) + " - "
+				+ rows + " rows, " + String.format("%.1f KB", bytes / 1024.0);
+	}
+}
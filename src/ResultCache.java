@@ -0,0 +1,196 @@
+/** ResultCache.java
+ *
+ * A cache of query results for one database, bounded by their size in bytes.
+ *
+ * Results are kept by key, the normalized SQL for queries, in least recently used order; the oldest ones
+ * are dropped when the byte budget is used up. Everything is dropped when the data may have changed:
+ * SqliteJdbc clears the cache for the writes it runs itself, and every lookup compares PRAGMA data_version
+ * of the connection manager (which changes when any connection commits, our writer included) and the
+ * modification times of the database and WAL files (which change when the file is replaced or written
+ * outside SQLite) with the values the results were read at. Results read on different readers share the
+ * cache, so it is safe to use from several threads.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ResultCache {
+
+	public static final long DEFAULT_BUDGET = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4);
+
+	// Functions whose result changes from one run to the next, queries with them are not cached
+	private static final String[] VOLATILE = { "random(", "randomblob(", "'now'", "changes(", "last_insert_rowid(",
+			"current_time", "current_date", "current_timestamp" };
+
+	/**
+	 * Entry - A cached value and its size
+	 */
+	private static class Entry {
+		final Object value;
+		final long bytes;
+
+		Entry(Object value, long bytes) {
+			this.value = value;
+			this.bytes = bytes;
+		}
+	}
+
+	private final ConnectionManager connections;
+	private final Path file; // the database file, null for an in-memory database
+	private final Path walFile;
+	private final long budget; // bytes the cached values may take
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long bytes = 0; // bytes the cached values take now
+	private long dataVersion = -1; // PRAGMA data_version the values were read at
+	private long fileTime = -1; // modification times of the files the values were read at
+	private long walTime = -1;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public ResultCache(ConnectionManager connections, String filename, long budget) {
+		this.connections = connections;
+		boolean memory = filename == null || filename.isEmpty() || filename.startsWith(":memory:");
+		this.file = memory ? null : Paths.get(filename);
+		this.walFile = memory ? null : Paths.get(filename + "-wal");
+		this.budget = budget;
+	}
+
+	/**
+	 * isCacheable - A query whose result can be kept: it does not use random values, the time or the
+	 * changes made by the connection
+	 */
+	public static boolean isCacheable(String sql) {
+		String lower = sql.toLowerCase(Locale.ROOT);
+		for (String f : VOLATILE) {
+			if (lower.contains(f))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * get - The value kept for a key, or null. Drops everything first if the database has changed.
+	 */
+	public synchronized Object get(String key) {
+		validate();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * put - Keeps a value that takes size bytes, dropping the least recently used ones to make room. Values
+	 * bigger than a quarter of the budget are not kept, so one huge result cannot push out all the others,
+	 * and neither are values read while the database changed since the last get.
+	 */
+	public synchronized void put(String key, Object value, long size) {
+		if (size > budget / 4 || !validate())
+			return;
+		Entry old = entries.put(key, new Entry(value, size));
+		if (old != null)
+			bytes -= old.bytes;
+		bytes += size;
+		Iterator<Entry> it = entries.values().iterator();
+		while (bytes > budget && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			bytes -= eldest.bytes;
+			evictions++;
+		}
+	}
+
+	/**
+	 * clear - Drops everything, after a write
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * validate - Drops everything if the data version or a file time is not the one the values were read at.
+	 * Returns false if it did.
+	 */
+	private boolean validate() {
+		long version = connections.getDataVersion();
+		long time = modifiedTime(file);
+		long wal = modifiedTime(walFile);
+		if (version != dataVersion || time != fileTime || wal != walTime || version == -1) {
+			clear();
+			dataVersion = version;
+			fileTime = time;
+			walTime = wal;
+			return false;
+		}
+		return true;
+	}
+
+	private static long modifiedTime(Path p) {
+		if (p == null)
+			return 0;
+		try {
+			return Files.getLastModifiedTime(p).toMillis();
+		} catch (IOException e) {
+			return 0; // no such file, like a WAL that was checkpointed away
+		}
+	}
+
+	/**
+	 * getBytes - Bytes the cached values take
+	 *
+	 * @return bytes
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * getHits
+	 *
+	 * @return hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * getMisses
+	 *
+	 * @return misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * getEvictions
+	 *
+	 * @return evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Results: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, " + entries.size()
+				+ " kept in " + (bytes >> 10) + " KB";
+	}
+}
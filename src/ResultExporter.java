@@ -0,0 +1,446 @@
+/** ResultExporter.java
+ *
+ * Streams the result of a query straight to a file, as CSV, JSON Lines or SQL INSERT statements.
+ *
+ * Rows go from the JDBC result set through a buffered writer on a FileChannel one at a time, so memory use
+ * does not depend on the size of the result. The number of rows and bytes written are counted for the
+ * throughput. A whole table can also be exported with a ParallelScan: its parts are read and formatted on
+ * several readers, and written as they finish, or in rowid order.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ResultExporter {
+
+	/**
+	 * Format - The file formats
+	 */
+	public enum Format {
+		CSV, JSONL, SQL;
+
+		/**
+		 * forFile - The format for a file name: .json and .jsonl are JSON Lines, .sql is SQL, anything else CSV
+		 */
+		public static Format forFile(Path file) {
+			String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+			if (name.endsWith(".jsonl") || name.endsWith(".json"))
+				return JSONL;
+			if (name.endsWith(".sql"))
+				return SQL;
+			return CSV;
+		}
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16; // chars buffered before they are encoded and written
+	private static final int PROGRESS_ROWS = 10000; // report progress every this many rows
+
+	private final Format format;
+	private String tableName = "export"; // table name for the INSERT statements
+	private volatile boolean cancelled = false;
+	private volatile long rowCount = 0; // rows written so far
+	private volatile long byteCount = 0; // bytes written so far
+	private long elapsedNanos = 0;
+
+	public ResultExporter(Format format) {
+		this.format = format;
+	}
+
+	/**
+	 * exportQuery - Runs a query on a connection and writes its result to a file. Returns the rows written.
+	 */
+	public long exportQuery(Connection conn, String sql, Path file, ProgressListener listener)
+			throws SQLException, IOException {
+		try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+			return export(rs, file, listener);
+		}
+	}
+
+	/**
+	 * export - Writes a result set to a file. Returns the rows written.
+	 */
+	public long export(ResultSet rs, Path file, ProgressListener listener) throws SQLException, IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+						BUFFER_SIZE)) {
+			return write(rs, out, channel, listener);
+		}
+	}
+
+	/**
+	 * export - Writes a result set to a writer, like standard output, and flushes it. The writer is not closed
+	 * and the bytes are not counted. Returns the rows written.
+	 */
+	public long export(ResultSet rs, Writer out, ProgressListener listener) throws SQLException, IOException {
+		return write(rs, out, null, listener);
+	}
+
+	/**
+	 * exportTable - Writes a whole table to a file with a parallel scan, in the order the parts finish.
+	 * Returns the rows written.
+	 */
+	public long exportTable(ParallelScan scan, Path file, ProgressListener listener) throws SQLException, IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+						BUFFER_SIZE)) {
+			return writeTable(scan, out, channel, false, listener);
+		}
+	}
+
+	/**
+	 * exportTable - Writes a whole table to a writer with a parallel scan, in rowid order if asked, and
+	 * flushes it. Returns the rows written.
+	 */
+	public long exportTable(ParallelScan scan, Writer out, boolean ordered, ProgressListener listener)
+			throws SQLException, IOException {
+		return writeTable(scan, out, null, ordered, listener);
+	}
+
+	/**
+	 * rowSink - Writes rows that do not come from one result set, like the merged rows of shards, to a writer.
+	 * The writer is flushed at the end, not closed.
+	 */
+	public ShardSession.RowSink rowSink(Writer out) {
+		return new ShardSession.RowSink() {
+			private String[] columns;
+
+			@Override
+			public void start(List<String> names) throws IOException {
+				columns = names.toArray(new String[0]);
+				rowCount = 0;
+				writeHeader(out, columns);
+			}
+
+			@Override
+			public void row(Object[] values) throws IOException {
+				writeRow(out, columns, values);
+				rowCount++;
+			}
+
+			@Override
+			public void finish() throws IOException {
+				writeFooter(out);
+				out.flush();
+			}
+		};
+	}
+
+	/**
+	 * Chunk - The rows of one part of a parallel scan, formatted
+	 */
+	private static class Chunk {
+		final CharArrayWriter text = new CharArrayWriter(BUFFER_SIZE);
+		long rows = 0;
+	}
+
+	/**
+	 * writeTable - Formats the parts of a scan on the threads that read them, and writes them one at a time
+	 */
+	private long writeTable(ParallelScan scan, Writer out, FileChannel channel, boolean ordered,
+			ProgressListener listener) throws SQLException, IOException {
+		long t0 = System.nanoTime();
+		rowCount = 0;
+		byteCount = 0;
+		String[] columns = scan.getColumns().toArray(new String[0]);
+		writeHeader(out, columns);
+		scan.scan("*", null, ordered, rs -> {
+			Chunk chunk = new Chunk();
+			Object[] values = new Object[columns.length];
+			try {
+				while (!cancelled && rs.next()) {
+					for (int i = 0; i < columns.length; i++) {
+						values[i] = rs.getObject(i + 1);
+					}
+					writeRow(chunk.text, columns, values);
+					chunk.rows++;
+				}
+			} catch (IOException e) {
+				throw new SQLException(e); // a CharArrayWriter does not throw
+			}
+			if (cancelled)
+				scan.cancel();
+			return chunk;
+		}, chunk -> {
+			chunk.text.writeTo(out);
+			rowCount += chunk.rows;
+			if (channel != null)
+				byteCount = channel.position();
+			elapsedNanos = System.nanoTime() - t0;
+			listener.progress(rowCount, -1);
+		});
+		writeFooter(out);
+		out.flush();
+		if (channel != null)
+			byteCount = channel.position();
+		elapsedNanos = System.nanoTime() - t0;
+		listener.progress(rowCount, rowCount);
+		return rowCount;
+	}
+
+	/**
+	 * write - Writes all rows, counting the bytes through the channel of the writer if there is one
+	 */
+	private long write(ResultSet rs, Writer out, FileChannel channel, ProgressListener listener)
+			throws SQLException, IOException {
+		long t0 = System.nanoTime();
+		rowCount = 0;
+		byteCount = 0;
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		String[] columns = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = rsmd.getColumnName(i + 1);
+		}
+		writeHeader(out, columns);
+		Object[] values = new Object[columnCount];
+		while (!cancelled && rs.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				values[i] = rs.getObject(i + 1);
+			}
+			writeRow(out, columns, values);
+			rowCount++;
+			if (rowCount % PROGRESS_ROWS == 0) {
+				if (channel != null)
+					byteCount = channel.position();
+				elapsedNanos = System.nanoTime() - t0;
+				listener.progress(rowCount, -1);
+			}
+		}
+		writeFooter(out);
+		out.flush();
+		if (channel != null)
+			byteCount = channel.position();
+		elapsedNanos = System.nanoTime() - t0;
+		listener.progress(rowCount, rowCount);
+		return rowCount;
+	}
+
+	private void writeHeader(Writer out, String[] columns) throws IOException {
+		if (format == Format.CSV) {
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0)
+					out.write(',');
+				writeCsv(out, columns[i]);
+			}
+			out.write("\r\n");
+		} else if (format == Format.SQL) {
+			out.write("BEGIN TRANSACTION;\n");
+		}
+	}
+
+	private void writeFooter(Writer out) throws IOException {
+		if (format == Format.SQL) {
+			out.write("COMMIT;\n");
+		}
+	}
+
+	private void writeRow(Writer out, String[] columns, Object[] values) throws IOException {
+		switch (format) {
+		case CSV:
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					out.write(',');
+				if (values[i] != null)
+					writeCsv(out, text(values[i]));
+			}
+			out.write("\r\n");
+			break;
+		case JSONL:
+			out.write('{');
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					out.write(',');
+				writeJsonString(out, columns[i]);
+				out.write(':');
+				writeJson(out, values[i]);
+			}
+			out.write("}\n");
+			break;
+		case SQL:
+			out.write("INSERT INTO ");
+			out.write(SqliteJdbc.quote(tableName));
+			out.write(" VALUES(");
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					out.write(',');
+				out.write(sqlLiteral(values[i]));
+			}
+			out.write(");\n");
+			break;
+		}
+	}
+
+	/**
+	 * text - A value as text, BLOBs in hex
+	 */
+	private static String text(Object value) {
+		return value instanceof byte[] ? hex((byte[]) value) : value.toString();
+	}
+
+	private static String hex(byte[] bytes) {
+		char[] digits = "0123456789ABCDEF".toCharArray();
+		char[] res = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			res[2 * i] = digits[(bytes[i] >> 4) & 0xF];
+			res[2 * i + 1] = digits[bytes[i] & 0xF];
+		}
+		return new String(res);
+	}
+
+	/**
+	 * writeCsv - A CSV field, quoted when it holds a comma, a quote or a line break
+	 */
+	private static void writeCsv(Writer out, String s) throws IOException {
+		boolean quote = false;
+		for (int i = 0; i < s.length() && !quote; i++) {
+			char c = s.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			out.write(s);
+			return;
+		}
+		out.write('"');
+		out.write(s.replace("\"", "\"\""));
+		out.write('"');
+	}
+
+	private static void writeJson(Writer out, Object value) throws IOException {
+		if (value == null) {
+			out.write("null");
+		} else if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			out.write(Double.isNaN(d) || Double.isInfinite(d) ? "null" : value.toString());
+		} else if (value instanceof Number) {
+			out.write(value.toString());
+		} else {
+			writeJsonString(out, text(value));
+		}
+	}
+
+	private static void writeJsonString(Writer out, String s) throws IOException {
+		out.write('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				out.write("\\\"");
+				break;
+			case '\\':
+				out.write("\\\\");
+				break;
+			case '\n':
+				out.write("\\n");
+				break;
+			case '\r':
+				out.write("\\r");
+				break;
+			case '\t':
+				out.write("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.write(String.format("\\u%04x", (int) c));
+				} else {
+					out.write(c);
+				}
+			}
+		}
+		out.write('"');
+	}
+
+	/**
+	 * sqlLiteral - A value as an SQLite literal
+	 */
+	public static String sqlLiteral(Object value) {
+		if (value == null)
+			return "NULL";
+		if (value instanceof byte[])
+			return "X'" + hex((byte[]) value) + "'";
+		if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			if (Double.isNaN(d))
+				return "NULL";
+			if (Double.isInfinite(d))
+				return d > 0 ? "1e999" : "-1e999";
+			return value.toString();
+		}
+		if (value instanceof Number)
+			return value.toString();
+		return "'" + value.toString().replace("'", "''") + "'";
+	}
+
+	/**
+	 * cancel - Stops the export after the current row. The file keeps the rows written so far.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * setTableName - The table name used in the INSERT statements of the SQL format
+	 */
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getRowCount - Rows written so far, safe to call from any thread
+	 *
+	 * @return rowCount
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * getByteCount - Bytes written to the file so far, 0 when writing to a writer
+	 *
+	 * @return byteCount
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * getStats - Rows, size and throughput, for showing to the user
+	 */
+	public String getStats() {
+		double secs = Math.max(elapsedNanos, 1) / 1e9;
+		double mb = byteCount / (1024.0 * 1024.0);
+		return String.format("%d rows, %.1f MB in %.1f s (%.0f rows/s, %.1f MB/s)", rowCount, mb, secs,
+				rowCount / secs, mb / secs);
+	}
+}
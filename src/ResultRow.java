@@ -0,0 +1,40 @@
+/** ResultRow.java
+ *
+ * One row of the table of results.
+ *
+ * Rows are light views over where the values are kept (a ResultStore or a loaded window). A new view is made
+ * every time the table asks for a row, so a row that changed is never mistaken for the one it replaced.
+ * Values keep their SQLite type, so numbers sort and show as numbers.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+@FunctionalInterface
+public interface ResultRow {
+
+	/**
+	 * getValue - The value of a column: a Long, a Double, a String, a byte[] for a BLOB, or null for NULL
+	 */
+	Object getValue(int column);
+
+	/**
+	 * getString - The value of a column as text, an empty string for NULL
+	 */
+	default String getString(int column) {
+		return text(getValue(column));
+	}
+
+	/**
+	 * text - A value as it is shown: a BLOB like its preview in a browsed table, an empty string for NULL
+	 */
+	static String text(Object value) {
+		if (value instanceof byte[])
+			return LargeValue.preview((byte[]) value);
+		return value == null ? "" : value.toString();
+	}
+}
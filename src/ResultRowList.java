@@ -0,0 +1,91 @@
+/** ResultRowList.java
+ *
+ * Adapts a ResultStore to the items list of the results TableView.
+ *
+ * The list holds no rows of its own. The TableView asks for the rows it shows and gets a view of the store
+ * for each of them. While a query is still reading, the list shows the rows of the store up to the count it
+ * was last told about, and grows with one change event per batch of rows.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.Collections;
+
+import javafx.collections.ObservableListBase;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ResultRowList extends ObservableListBase<ResultRow> {
+
+	private ResultStore store = new ResultStore(Collections.<String> emptyList());
+	private int size = 0; // rows of the store shown in the table
+
+	@Override
+	public ResultRow get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+		return store.getRow(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * setStore - Shows the rows of another store, with a single change event
+	 */
+	public void setStore(ResultStore newStore) {
+		setStore(newStore, newStore.getRowCount());
+	}
+
+	/**
+	 * setStore - Shows the first rows of another store, which may still be growing
+	 */
+	public void setStore(ResultStore newStore, int rows) {
+		int oldSize = size;
+		store = newStore;
+		size = rows;
+		if (oldSize == 0 && size == 0)
+			return;
+		beginChange();
+		if (oldSize > 0)
+			nextRemove(0, Collections.nCopies(oldSize, (ResultRow) column -> null));
+		if (size > 0)
+			nextAdd(0, size);
+		endChange();
+	}
+
+	/**
+	 * grow - Shows the rows of the store up to rows, with a single add event for all of the new ones
+	 */
+	public void grow(int rows) {
+		if (rows <= size)
+			return;
+		int from = size;
+		size = rows;
+		beginChange();
+		nextAdd(from, rows);
+		endChange();
+	}
+
+	/**
+	 * clear - Shows no rows
+	 */
+	@Override
+	public void clear() {
+		setStore(new ResultStore(Collections.<String> emptyList()));
+	}
+
+	/**
+	 * getStore
+	 *
+	 * @return store
+	 */
+	public ResultStore getStore() {
+		return store;
+	}
+}
@@ -0,0 +1,469 @@
+/** ResultStore.java
+ *
+ * A compact, column oriented container for query results.
+ *
+ * Every column keeps its values in primitive arrays: INTEGER values in a long[], REAL values in a double[],
+ * and TEXT values as UTF-8 bytes in one byte[] arena with an end offset per row. BLOBs are kept as the byte[]
+ * they were read as, in an array of their own, so they are neither decoded as text nor copied. NULLs are kept
+ * in a bitmap. A column takes the storage class of its first non-NULL value and is widened when a value of
+ * another storage class shows up later: INTEGER and REAL make a REAL column, which keeps both typed and
+ * sorted as numbers, and numbers mixed with TEXT or BLOBs make a TEXT column, whose BLOBs stay byte[].
+ *
+ * A row costs a few bytes per cell plus the text itself, instead of a String and a list slot per cell.
+ * Strings are only created for the cells that are shown.
+ *
+ * Rows can be added on one thread while another one reads the rows added so far, as when a query streams
+ * its rows into the table of results; the methods that touch the values are synchronized for that.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ResultStore {
+
+	// Storage classes of a column
+	public static final int NULL = 0; // only NULLs so far
+	public static final int INTEGER = 1;
+	public static final int REAL = 2;
+	public static final int TEXT = 3;
+	public static final int BLOB = 4; // only BLOBs so far
+
+	private static final int INITIAL_ROWS = 256;
+
+	private final List<String> columns; // column names
+	private final Column[] data; // the columns
+	private int rowCount = 0;
+	private int capacity = INITIAL_ROWS; // rows that fit in the arrays
+
+	/**
+	 * Column - The values of one column
+	 */
+	private static class Column {
+		int kind = NULL;
+		long[] nulls; // bit set for a NULL cell
+		long[] longs; // INTEGER values
+		double[] doubles; // REAL values
+		byte[] arena; // TEXT values, UTF-8
+		int[] ends; // end offset in the arena of every TEXT value, it starts where the previous row ends
+		int arenaSize = 0;
+		byte[][] blobs; // BLOB values, in a column of any storage class, null until the first BLOB
+		long blobBytes = 0; // size of the BLOBs
+
+		Column(int capacity) {
+			nulls = new long[(capacity + 63) >> 6];
+		}
+	}
+
+	public ResultStore(List<String> columns) {
+		this.columns = new ArrayList<String>(columns);
+		data = new Column[columns.size()];
+		for (int c = 0; c < data.length; c++) {
+			data[c] = new Column(capacity);
+		}
+	}
+
+	/**
+	 * forResultSet - Creates an empty store with the columns of a result set
+	 */
+	public static ResultStore forResultSet(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		List<String> names = new ArrayList<String>();
+		for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+			names.add(rsmd.getColumnName(i));
+		}
+		return new ResultStore(names);
+	}
+
+	/**
+	 * addRow - Appends the current row of a result set
+	 */
+	public synchronized void addRow(ResultSet rs) throws SQLException {
+		if (rowCount == capacity) {
+			grow();
+		}
+		for (int c = 0; c < data.length; c++) {
+			add(data[c], rs.getObject(c + 1));
+		}
+		rowCount++;
+	}
+
+	/**
+	 * addRow - Appends a row of values: Long, Integer, Double, String, byte[] or null
+	 */
+	public synchronized void addRow(Object[] values) {
+		if (rowCount == capacity) {
+			grow();
+		}
+		for (int c = 0; c < data.length; c++) {
+			add(data[c], values[c]);
+		}
+		rowCount++;
+	}
+
+	/**
+	 * addAll - Appends all the rows of another store with the same columns, a column at a time
+	 */
+	public synchronized void addAll(ResultStore other) {
+		synchronized (other) {
+			int n = other.rowCount;
+			while (rowCount + n > capacity) {
+				grow();
+			}
+			for (int c = 0; c < data.length; c++) {
+				appendColumn(data[c], other.data[c], n);
+			}
+			rowCount += n;
+		}
+	}
+
+	/**
+	 * appendColumn - Copies the first n values of a column of another store to the end of a column. Arrays
+	 * are copied as they are when both columns have the same storage class.
+	 */
+	private void appendColumn(Column col, Column src, int n) {
+		for (int r = 0; r < n; r++) {
+			if (isNull(src, r))
+				col.nulls[(rowCount + r) >> 6] |= 1L << (rowCount + r);
+		}
+		widen(col, src.kind);
+		if (src.blobs != null) {
+			ensureBlobs(col);
+			System.arraycopy(src.blobs, 0, col.blobs, rowCount, n);
+			col.blobBytes += src.blobBytes;
+		}
+		if (col.kind == NULL || col.kind == BLOB)
+			return;
+		if (src.kind == NULL || src.kind == BLOB) {
+			if (col.kind == TEXT)
+				Arrays.fill(col.ends, rowCount, rowCount + n, col.arenaSize);
+		} else if (col.kind == src.kind && col.kind == INTEGER) {
+			System.arraycopy(src.longs, 0, col.longs, rowCount, n);
+		} else if (col.kind == src.kind && col.kind == REAL) {
+			System.arraycopy(src.doubles, 0, col.doubles, rowCount, n);
+		} else if (col.kind == REAL) {
+			for (int r = 0; r < n; r++) {
+				col.doubles[rowCount + r] = src.longs[r];
+			}
+		} else if (src.kind == TEXT) {
+			int base = col.arenaSize;
+			appendText(col, src.arena, src.arenaSize);
+			for (int r = 0; r < n; r++) {
+				col.ends[rowCount + r] = base + src.ends[r];
+			}
+		} else {
+			for (int r = 0; r < n; r++) {
+				if (!isNull(src, r)) {
+					String s = src.kind == INTEGER ? Long.toString(src.longs[r]) : Double.toString(src.doubles[r]);
+					appendText(col, s.getBytes(StandardCharsets.UTF_8));
+				}
+				col.ends[rowCount + r] = col.arenaSize;
+			}
+		}
+	}
+
+	/**
+	 * add - Stores one value at the end of a column
+	 */
+	private void add(Column col, Object value) {
+		int kind = kindOf(value);
+		if (kind == NULL) {
+			col.nulls[rowCount >> 6] |= 1L << rowCount;
+		} else if (kind == BLOB) {
+			ensureBlobs(col);
+			col.blobs[rowCount] = (byte[]) value;
+			col.blobBytes += col.blobs[rowCount].length;
+		}
+		widen(col, kind);
+		boolean stored = kind != NULL && kind != BLOB; // in the arrays of the storage class
+		switch (col.kind) {
+		case INTEGER:
+			col.longs[rowCount] = stored ? ((Number) value).longValue() : 0;
+			break;
+		case REAL:
+			col.doubles[rowCount] = stored ? ((Number) value).doubleValue() : 0;
+			break;
+		case TEXT:
+			if (stored) {
+				appendText(col, value.toString().getBytes(StandardCharsets.UTF_8));
+			}
+			col.ends[rowCount] = col.arenaSize;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * kindOf - The storage class of a value
+	 */
+	private static int kindOf(Object value) {
+		if (value == null)
+			return NULL;
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return INTEGER;
+		if (value instanceof Double || value instanceof Float)
+			return REAL;
+		if (value instanceof byte[])
+			return BLOB;
+		return TEXT;
+	}
+
+	/**
+	 * widened - The storage class of a column of storage class kind once it has a value of storage class other
+	 */
+	private static int widened(int kind, int other) {
+		if (kind == other || other == NULL)
+			return kind;
+		if (kind == NULL)
+			return other;
+		if ((kind == INTEGER || kind == REAL) && (other == INTEGER || other == REAL))
+			return REAL; // an INTEGER past 2^53 loses its last digits, as in SQLite arithmetic
+		return TEXT;
+	}
+
+	/**
+	 * widen - Changes the storage class of a column for a value of storage class other, keeping the values read
+	 * so far
+	 */
+	private void widen(Column col, int other) {
+		int kind = widened(col.kind, other);
+		if (kind == col.kind)
+			return;
+		if (col.kind == NULL || col.kind == BLOB) {
+			setKind(col, kind); // the rows before are NULL or BLOBs, kept apart
+		} else if (kind == REAL) {
+			toReal(col);
+		} else {
+			toText(col);
+		}
+	}
+
+	/**
+	 * setKind - Gives a column that only had NULLs or BLOBs its storage class
+	 */
+	private void setKind(Column col, int kind) {
+		col.kind = kind;
+		if (kind == INTEGER) {
+			col.longs = new long[capacity];
+		} else if (kind == REAL) {
+			col.doubles = new double[capacity];
+		} else if (kind == TEXT) {
+			col.arena = new byte[Math.max(capacity * 8, 64)];
+			col.ends = new int[capacity]; // the rows before are NULL or BLOBs and end at 0
+		}
+	}
+
+	/**
+	 * ensureBlobs - Gives a column the array of its BLOBs
+	 */
+	private void ensureBlobs(Column col) {
+		if (col.blobs == null)
+			col.blobs = new byte[capacity][];
+	}
+
+	/**
+	 * toReal - Turns an INTEGER column into a REAL column
+	 */
+	private void toReal(Column col) {
+		long[] longs = col.longs;
+		col.longs = null;
+		setKind(col, REAL);
+		for (int r = 0; r < rowCount; r++) {
+			col.doubles[r] = longs[r];
+		}
+	}
+
+	/**
+	 * toText - Turns an INTEGER or REAL column into a TEXT column, keeping the values read so far
+	 */
+	private void toText(Column col) {
+		int oldKind = col.kind;
+		long[] longs = col.longs;
+		double[] doubles = col.doubles;
+		col.longs = null;
+		col.doubles = null;
+		setKind(col, TEXT);
+		for (int r = 0; r < rowCount; r++) {
+			if (!isNull(col, r)) {
+				String s = oldKind == INTEGER ? Long.toString(longs[r]) : Double.toString(doubles[r]);
+				appendText(col, s.getBytes(StandardCharsets.UTF_8));
+			}
+			col.ends[r] = col.arenaSize;
+		}
+	}
+
+	/**
+	 * appendText - Copies bytes to the end of the arena of a column
+	 */
+	private static void appendText(Column col, byte[] bytes) {
+		appendText(col, bytes, bytes.length);
+	}
+
+	/**
+	 * appendText - Copies the first length bytes to the end of the arena of a column
+	 */
+	private static void appendText(Column col, byte[] bytes, int length) {
+		int need = col.arenaSize + length;
+		if (need < 0)
+			throw new IllegalStateException("Text column larger than 2 GB");
+		if (need > col.arena.length) {
+			long size = Math.max((long) col.arena.length * 2, need);
+			col.arena = Arrays.copyOf(col.arena, (int) Math.min(size, Integer.MAX_VALUE - 8));
+		}
+		System.arraycopy(bytes, 0, col.arena, col.arenaSize, length);
+		col.arenaSize = need;
+	}
+
+	/**
+	 * grow - Doubles the row capacity of all columns
+	 */
+	private void grow() {
+		capacity *= 2;
+		for (Column col : data) {
+			col.nulls = Arrays.copyOf(col.nulls, (capacity + 63) >> 6);
+			if (col.longs != null)
+				col.longs = Arrays.copyOf(col.longs, capacity);
+			if (col.doubles != null)
+				col.doubles = Arrays.copyOf(col.doubles, capacity);
+			if (col.ends != null)
+				col.ends = Arrays.copyOf(col.ends, capacity);
+			if (col.blobs != null)
+				col.blobs = Arrays.copyOf(col.blobs, capacity);
+		}
+	}
+
+	private static boolean isNull(Column col, int row) {
+		return (col.nulls[row >> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * isNull - True if a cell is NULL
+	 */
+	public synchronized boolean isNull(int row, int column) {
+		return isNull(data[column], row);
+	}
+
+	/**
+	 * getKind - The storage class of a column: NULL, INTEGER, REAL, TEXT or BLOB. A TEXT column may have BLOBs.
+	 */
+	public synchronized int getKind(int column) {
+		return data[column].kind;
+	}
+
+	/**
+	 * getLong - The value of an INTEGER cell
+	 */
+	public synchronized long getLong(int row, int column) {
+		Column col = data[column];
+		return col.kind == INTEGER ? col.longs[row] : Long.parseLong(getString(row, column));
+	}
+
+	/**
+	 * getString - The value of a cell as text, an empty string for NULL
+	 */
+	public synchronized String getString(int row, int column) {
+		Column col = data[column];
+		if (isNull(col, row))
+			return "";
+		if (col.blobs != null && col.blobs[row] != null)
+			return ResultRow.text(col.blobs[row]);
+		switch (col.kind) {
+		case INTEGER:
+			return Long.toString(col.longs[row]);
+		case REAL:
+			return Double.toString(col.doubles[row]);
+		case TEXT:
+			int start = row == 0 ? 0 : col.ends[row - 1];
+			return new String(col.arena, start, col.ends[row] - start, StandardCharsets.UTF_8);
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 * getValue - The value of a cell with its type: a Long, a Double, a String, a byte[] for a BLOB, or null
+	 * for NULL
+	 */
+	public synchronized Object getValue(int row, int column) {
+		Column col = data[column];
+		if (isNull(col, row))
+			return null;
+		if (col.blobs != null && col.blobs[row] != null)
+			return col.blobs[row];
+		switch (col.kind) {
+		case INTEGER:
+			return col.longs[row];
+		case REAL:
+			return col.doubles[row];
+		case TEXT:
+			return getString(row, column);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * getRow - A view of one row, for the table of results
+	 */
+	public ResultRow getRow(int row) {
+		return column -> getValue(row, column);
+	}
+
+	/**
+	 * getByteSize - Approximate heap used by the stored values
+	 */
+	public synchronized long getByteSize() {
+		long size = 0;
+		for (Column col : data) {
+			size += col.nulls.length * 8L;
+			if (col.longs != null)
+				size += col.longs.length * 8L;
+			if (col.doubles != null)
+				size += col.doubles.length * 8L;
+			if (col.ends != null)
+				size += col.ends.length * 4L + col.arena.length;
+			if (col.blobs != null)
+				size += col.blobs.length * 8L + col.blobBytes;
+		}
+		return size;
+	}
+
+	/**
+	 * getRowCount
+	 *
+	 * @return rowCount
+	 */
+	public synchronized int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * getColumns
+	 *
+	 * @return columns
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * getColumnCount
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount() {
+		return data.length;
+	}
+}
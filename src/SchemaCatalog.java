@@ -0,0 +1,300 @@
+/** SchemaCatalog.java
+ *
+ * The schema of a database: tables and views with their columns, indexes and foreign keys.
+ *
+ * The catalog is read once with PRAGMA table_info, index_list, index_info and foreign_key_list, and
+ * remembers the PRAGMA schema_version it was read at. SqliteJdbc keeps it and reads it again only when the
+ * schema version has changed.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class SchemaCatalog {
+
+	private static final Pattern WITHOUT_ROWID = Pattern.compile("(?is).*\\)\\s*WITHOUT\\s+ROWID\\s*;?\\s*$");
+
+	/**
+	 * Column - A column of a table or view
+	 */
+	public static class Column {
+		public final String name;
+		public final String type; // declared type, empty if none
+		public final boolean notNull;
+		public final int primaryKey; // position in the primary key, 0 if not part of it
+		public final String defaultValue; // null if none
+
+		Column(String name, String type, boolean notNull, int primaryKey, String defaultValue) {
+			this.name = name;
+			this.type = type == null ? "" : type;
+			this.notNull = notNull;
+			this.primaryKey = primaryKey;
+			this.defaultValue = defaultValue;
+		}
+
+		@Override
+		public String toString() {
+			return name + (type.isEmpty() ? "" : " " + type);
+		}
+	}
+
+	/**
+	 * Index - An index of a table
+	 */
+	public static class Index {
+		public final String name;
+		public final boolean unique;
+		public final List<String> columns;
+
+		Index(String name, boolean unique, List<String> columns) {
+			this.name = name;
+			this.unique = unique;
+			this.columns = Collections.unmodifiableList(columns);
+		}
+
+		@Override
+		public String toString() {
+			return name + columns;
+		}
+	}
+
+	/**
+	 * ForeignKey - A column that references a column of another table
+	 */
+	public static class ForeignKey {
+		public final String from; // column of this table
+		public final String table; // referenced table
+		public final String to; // referenced column, null for the primary key
+
+		ForeignKey(String from, String table, String to) {
+			this.from = from;
+			this.table = table;
+			this.to = to;
+		}
+
+		@Override
+		public String toString() {
+			return from + " -> " + table + "(" + (to == null ? "" : to) + ")";
+		}
+	}
+
+	/**
+	 * Table - A table or view
+	 */
+	public static class Table {
+		public final String name;
+		public final String type; // "table" or "view"
+		public final String sql; // the CREATE statement
+		public final List<Column> columns = new ArrayList<Column>();
+		public final List<Index> indexes = new ArrayList<Index>();
+		public final List<ForeignKey> foreignKeys = new ArrayList<ForeignKey>();
+
+		Table(String name, String type, String sql) {
+			this.name = name;
+			this.type = type;
+			this.sql = sql == null ? "" : sql;
+		}
+
+		/**
+		 * isView
+		 */
+		public boolean isView() {
+			return type.equals("view");
+		}
+
+		/**
+		 * hasRowid - A table that can be read in rowid order: not a view and not a WITHOUT ROWID table
+		 */
+		public boolean hasRowid() {
+			return !isView() && !WITHOUT_ROWID.matcher(sql).matches();
+		}
+
+		/**
+		 * getRowidAlias - The INTEGER PRIMARY KEY column, which is the rowid under another name, or null
+		 */
+		public Column getRowidAlias() {
+			if (!hasRowid())
+				return null;
+			Column key = null;
+			for (Column col : columns) {
+				if (col.primaryKey > 1)
+					return null; // a primary key of many columns
+				if (col.primaryKey == 1)
+					key = col;
+			}
+			return key != null && key.type.equalsIgnoreCase("INTEGER") ? key : null;
+		}
+
+		/**
+		 * getColumnNames
+		 */
+		public List<String> getColumnNames() {
+			List<String> names = new ArrayList<String>(columns.size());
+			for (Column col : columns) {
+				names.add(col.name);
+			}
+			return names;
+		}
+
+		/**
+		 * getColumn - A column by name, ignoring case, or null
+		 */
+		public Column getColumn(String columnName) {
+			for (Column col : columns) {
+				if (col.name.equalsIgnoreCase(columnName))
+					return col;
+			}
+			return null;
+		}
+	}
+
+	private final long schemaVersion; // PRAGMA schema_version the catalog was read at
+	private final Map<String, Table> tables = new LinkedHashMap<String, Table>(); // by lower case name
+
+	private SchemaCatalog(long schemaVersion) {
+		this.schemaVersion = schemaVersion;
+	}
+
+	/**
+	 * getSchemaVersion - Reads PRAGMA schema_version, it changes with every change of the schema
+	 */
+	public static long getSchemaVersion(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement();
+				ResultSet rsVersion = statement.executeQuery("PRAGMA schema_version")) {
+			return rsVersion.next() ? rsVersion.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * load - Reads the whole schema of the main database. With transaction, the schema version and every table
+	 * are read in one read transaction, so they are of the same schema even if another connection changes it
+	 * meanwhile; without, the connection is in a transaction already, or one cannot be begun on it.
+	 */
+	public static SchemaCatalog load(Connection conn, boolean transaction) throws SQLException {
+		if (transaction)
+			conn.setAutoCommit(false);
+		try (Statement statement = conn.createStatement()) {
+			SchemaCatalog catalog = new SchemaCatalog(getSchemaVersion(conn));
+			try (ResultSet rsMaster = statement.executeQuery(
+					"SELECT type, name, sql FROM sqlite_master WHERE type IN ('table','view') ORDER BY rowid")) {
+				while (rsMaster.next()) {
+					Table table = new Table(rsMaster.getString(2), rsMaster.getString(1), rsMaster.getString(3));
+					catalog.tables.put(table.name.toLowerCase(Locale.ROOT), table);
+				}
+			}
+			for (Table table : catalog.tables.values()) {
+				if (!loadColumns(statement, table))
+					continue;
+				if (!table.isView()) {
+					loadIndexes(statement, table);
+					loadForeignKeys(statement, table);
+				}
+			}
+			return catalog;
+		} finally {
+			if (transaction) {
+				conn.commit();
+				conn.setAutoCommit(true);
+			}
+		}
+	}
+
+	/**
+	 * loadColumns - Reads the columns of a table. A view whose tables were dropped, or a virtual table whose
+	 * module is not loaded, makes PRAGMA table_info fail; it is kept with no columns, and false is returned.
+	 */
+	private static boolean loadColumns(Statement statement, Table table) {
+		try (ResultSet rsInfo = statement.executeQuery("PRAGMA table_info(" + SqliteJdbc.quote(table.name) + ")")) {
+			while (rsInfo.next()) {
+				table.columns.add(new Column(rsInfo.getString("name"), rsInfo.getString("type"),
+						rsInfo.getInt("notnull") != 0, rsInfo.getInt("pk"), rsInfo.getString("dflt_value")));
+			}
+			return true;
+		} catch (SQLException e) {
+			table.columns.clear();
+			System.err.println("Columns of " + table.name + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static void loadIndexes(Statement statement, Table table) throws SQLException {
+		List<String> names = new ArrayList<String>();
+		List<Boolean> unique = new ArrayList<Boolean>();
+		try (ResultSet rsList = statement.executeQuery("PRAGMA index_list(" + SqliteJdbc.quote(table.name) + ")")) {
+			while (rsList.next()) {
+				names.add(rsList.getString("name"));
+				unique.add(rsList.getInt("unique") != 0);
+			}
+		}
+		for (int i = 0; i < names.size(); i++) {
+			List<String> columns = new ArrayList<String>();
+			try (ResultSet rsInfo = statement.executeQuery("PRAGMA index_info(" + SqliteJdbc.quote(names.get(i)) + ")")) {
+				while (rsInfo.next()) {
+					columns.add(rsInfo.getString("name")); // null for an expression
+				}
+			}
+			table.indexes.add(new Index(names.get(i), unique.get(i), columns));
+		}
+	}
+
+	private static void loadForeignKeys(Statement statement, Table table) throws SQLException {
+		try (ResultSet rsKeys = statement.executeQuery("PRAGMA foreign_key_list(" + SqliteJdbc.quote(table.name) + ")")) {
+			while (rsKeys.next()) {
+				table.foreignKeys.add(new ForeignKey(rsKeys.getString("from"), rsKeys.getString("table"),
+						rsKeys.getString("to")));
+			}
+		}
+	}
+
+	/**
+	 * getSchemaVersion
+	 *
+	 * @return schemaVersion
+	 */
+	public long getSchemaVersion() {
+		return schemaVersion;
+	}
+
+	/**
+	 * getTable - A table or view by name, ignoring case, or null
+	 */
+	public Table getTable(String name) {
+		return name == null ? null : tables.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * getTables - All tables and views, in the order they were created
+	 */
+	public List<Table> getTables() {
+		return new ArrayList<Table>(tables.values());
+	}
+
+	/**
+	 * getTableNames - The names of the tables, without views and sqlite_sequence
+	 */
+	public List<String> getTableNames() {
+		List<String> names = new ArrayList<String>();
+		for (Table table : tables.values()) {
+			if (!table.isView() && !table.name.equals("sqlite_sequence")) {
+				names.add(table.name);
+			}
+		}
+		return names;
+	}
+}
@@ -0,0 +1,389 @@
+/** ScriptExecutor.java
+ *
+ * Runs a script of many statements on the writer of a database.
+ *
+ * The statements come from a SqlScript, one at a time, so the script is never held in memory. By default the
+ * whole script runs in one transaction, committed once at the end: a migration of 50000 INSERTs is one
+ * commit, and one sync of the journal to disk, instead of 50000. Consecutive INSERT, UPDATE, DELETE and
+ * REPLACE statements that differ only in their literals share one prepared statement and run as JDBC batches,
+ * every batch inside a savepoint. When a batch fails it is rolled back to its savepoint and its statements
+ * are run again one by one, to find the one that failed.
+ *
+ * On an error the whole script is rolled back, unless keepGoing is set; then only the failed statement is
+ * rolled back, to its own savepoint, and the rest is committed. The transaction statements of the script
+ * itself are honored: BEGIN commits what ran before it and the script's own transaction takes over, after a
+ * COMMIT or ROLLBACK the rest runs in a new one. VACUUM, ATTACH and DETACH, which cannot run in a
+ * transaction, run between two. So an error or a cancel rolls back only what ran after the last of these, and
+ * getCommitted tells how many statements were committed before; a transaction begun by the script and still
+ * open is rolled back too. When a transaction is already open on the writer the script runs in it and is
+ * neither committed nor rolled back here.
+ *
+ * Whether a statement returned rows is told by Statement.execute, not by its first word, so PRAGMA, EXPLAIN,
+ * WITH and INSERT ... RETURNING rows reach the listener too.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ScriptExecutor {
+
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	private static final String SAVEPOINT = "nisqlite_script"; // savepoint of a batch or a statement
+
+	/**
+	 * Listener - Receives the rows and the errors of the statements. Called on the thread that runs the script.
+	 */
+	public interface Listener {
+		/**
+		 * rows - The result set of a statement that returned rows, closed after the call
+		 */
+		void rows(SqlScript.Statement statement, ResultSet rs) throws SQLException, IOException;
+
+		/**
+		 * error - A statement failed
+		 */
+		void error(SqlScript.Statement statement, SQLException e) throws IOException;
+	}
+
+	private final SqliteJdbc sq;
+	private boolean transaction = true; // run the script in one transaction
+	private boolean keepGoing = false; // go on after a failed statement
+	private int batchSize = DEFAULT_BATCH_SIZE; // statements per executeBatch, 1 to run every statement alone
+	private volatile boolean cancelled = false;
+	private volatile Statement running = null; // statement executing now, for cancel
+	private volatile long statementCount = 0; // statements run so far
+	private long batchCount = 0; // executeBatch calls
+	private long changes = 0; // rows inserted, updated or deleted
+	private long errors = 0; // statements that failed
+
+	private Connection conn;
+	private Statement single; // runs the statements that are not batched
+	private boolean wrapped = false; // in a transaction begun here
+	private boolean own = false; // in a transaction begun by a BEGIN of the script
+	private long committed = 0; // statements committed before the end of the script
+	private final List<SqlScript.Statement> batch = new ArrayList<SqlScript.Statement>();
+	private final List<Object[]> batchValues = new ArrayList<Object[]>();
+	private String batchSql = null; // parameterized SQL of the statements of the batch
+
+	public ScriptExecutor(SqliteJdbc sq) {
+		this.sq = sq;
+	}
+
+	/**
+	 * run - Runs all the statements of the script. Returns false if it stopped at an error or was cancelled.
+	 */
+	public boolean run(SqlScript script, Listener listener, ProgressListener progress)
+			throws SQLException, IOException {
+		sq.initialize(); // close the result set of the last query, it would keep a read transaction open
+		conn = sq.getConnection();
+		committed = 0;
+		try (Statement statement = conn.createStatement()) {
+			single = statement;
+			if (transaction)
+				wrapped = begin();
+			SqlScript.Statement next;
+			while (!cancelled && (next = script.next()) != null) {
+				if (!add(next, listener)) {
+					return false;
+				}
+				progress.progress(statementCount + batch.size(), -1);
+			}
+			if (!cancelled && !flush(listener))
+				return false;
+			if (cancelled)
+				return false;
+			if (wrapped) {
+				single.execute("COMMIT");
+				wrapped = false;
+			}
+			own = false; // a transaction the script left open is the user's to end
+			return true;
+		} finally {
+			if (wrapped || own) {
+				rollback(); // an error, a cancel or an exception of the listener: undo the script since its last commit
+				wrapped = false;
+				own = false;
+			}
+			batch.clear();
+			batchValues.clear();
+			batchSql = null;
+			single = null;
+			running = null;
+			sq.invalidateCatalog(); // it may have changed the schema
+			sq.invalidateResults();
+		}
+	}
+
+	/**
+	 * add - Adds a statement to the batch, or runs the batch and then the statement. Returns false to stop.
+	 */
+	private boolean add(SqlScript.Statement statement, Listener listener) throws SQLException, IOException {
+		SqlScript.Parameterized p = batchSize > 1 ? SqlScript.parameterize(statement) : null;
+		if (p != null && p.sql.equals(batchSql)) {
+			batch.add(statement);
+			batchValues.add(p.values);
+			return batch.size() < batchSize || flush(listener);
+		}
+		if (!flush(listener))
+			return false;
+		if (p != null) {
+			batchSql = p.sql;
+			batch.add(statement);
+			batchValues.add(p.values);
+			return true;
+		}
+		return runSingle(statement, listener);
+	}
+
+	/**
+	 * flush - Runs the statements of the batch. A lone statement runs as it was written. Returns false to stop.
+	 */
+	private boolean flush(Listener listener) throws SQLException, IOException {
+		if (batch.isEmpty())
+			return true;
+		String sql = batchSql;
+		List<SqlScript.Statement> statements = new ArrayList<SqlScript.Statement>(batch);
+		List<Object[]> values = new ArrayList<Object[]>(batchValues);
+		batch.clear();
+		batchValues.clear();
+		batchSql = null;
+		if (statements.size() == 1)
+			return runSingle(statements.get(0), listener);
+
+		single.execute("SAVEPOINT " + SAVEPOINT);
+		try (PreparedStatement prepared = conn.prepareStatement(sql)) {
+			running = prepared;
+			for (Object[] row : values) {
+				for (int i = 0; i < row.length; i++) {
+					prepared.setObject(i + 1, row[i]);
+				}
+				prepared.addBatch();
+			}
+			int[] counts = prepared.executeBatch();
+			single.execute("RELEASE " + SAVEPOINT);
+			batchCount++;
+			statementCount += statements.size();
+			for (int count : counts) {
+				if (count > 0)
+					changes += count;
+			}
+			return true;
+		} catch (SQLException e) {
+			if (cancelled)
+				throw e;
+			// Undo the part of the batch that ran, then run the statements alone to find the one that failed
+			single.execute("ROLLBACK TO " + SAVEPOINT);
+			single.execute("RELEASE " + SAVEPOINT);
+		} finally {
+			running = null;
+		}
+		for (SqlScript.Statement statement : statements) {
+			if (!runSingle(statement, listener))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * runSingle - Runs one statement and hands its rows or its error to the listener. Returns false to stop.
+	 */
+	private boolean runSingle(SqlScript.Statement statement, Listener listener) throws SQLException, IOException {
+		SqlScript.Kind kind = statement.getKind();
+		String first = statement.getTokens().get(0).text;
+		boolean begins = kind == SqlScript.Kind.TRANSACTION && first.equalsIgnoreCase("BEGIN");
+		if (begins && wrapped) {
+			single.execute("COMMIT"); // the script's own transaction takes over
+			wrapped = false;
+			committed = statementCount;
+		}
+		boolean outside = kind == SqlScript.Kind.OTHER && (first.equalsIgnoreCase("VACUUM")
+				|| first.equalsIgnoreCase("ATTACH") || first.equalsIgnoreCase("DETACH"));
+		if (outside && wrapped) {
+			single.execute("COMMIT");
+			wrapped = false;
+			committed = statementCount;
+		}
+		boolean commits = kind == SqlScript.Kind.TRANSACTION
+				&& (first.equalsIgnoreCase("COMMIT") || first.equalsIgnoreCase("END"));
+		boolean ended = commits
+				|| (kind == SqlScript.Kind.TRANSACTION && first.equalsIgnoreCase("ROLLBACK") && !hasWord(statement, "TO"));
+		boolean savepoint = keepGoing && kind != SqlScript.Kind.TRANSACTION && !outside;
+		try {
+			if (savepoint)
+				single.execute("SAVEPOINT " + SAVEPOINT);
+			running = single;
+			if (single.execute(statement.getSql())) {
+				try (ResultSet rs = single.getResultSet()) {
+					listener.rows(statement, rs);
+				}
+			} else if (single.getUpdateCount() > 0 && kind == SqlScript.Kind.DML) {
+				changes += single.getUpdateCount();
+			}
+			running = null;
+			if (savepoint)
+				single.execute("RELEASE " + SAVEPOINT);
+			statementCount++;
+			if (begins)
+				own = true;
+			if (ended) { // whoever began the transaction, it is over
+				wrapped = false;
+				own = false;
+			}
+			if (outside || commits)
+				committed = statementCount;
+		} catch (SQLException e) {
+			running = null;
+			if (cancelled)
+				throw e;
+			statementCount++;
+			errors++;
+			if (savepoint)
+				rollbackTo();
+			listener.error(statement, e);
+			if (!keepGoing)
+				return false;
+		}
+		if (transaction && !wrapped && (outside || ended))
+			wrapped = begin(); // the rest of the script in a new transaction
+		return true;
+	}
+
+	private static boolean hasWord(SqlScript.Statement statement, String word) {
+		for (SqlScript.Token token : statement.getTokens()) {
+			if (token.is(word))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * begin - Begins a transaction. Returns false if one is already open, the script then runs in it.
+	 */
+	private boolean begin() {
+		try {
+			single.execute("BEGIN");
+			return true;
+		} catch (SQLException e) {
+			return false; // cannot start a transaction within a transaction
+		}
+	}
+
+	private void rollback() {
+		try {
+			single.execute("ROLLBACK");
+		} catch (SQLException e) {
+			System.err.println(e.getMessage()); // SQLite may have rolled it back already, after an I/O error
+		}
+	}
+
+	private void rollbackTo() {
+		try {
+			single.execute("ROLLBACK TO " + SAVEPOINT);
+			single.execute("RELEASE " + SAVEPOINT);
+		} catch (SQLException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * cancel - Stops the script and interrupts the statement that runs now. The transaction of the script is
+	 * rolled back.
+	 */
+	public void cancel() {
+		cancelled = true;
+		Statement statement = running;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
+	}
+
+	public void setTransaction(boolean transaction) {
+		this.transaction = transaction;
+	}
+
+	public void setKeepGoing(boolean keepGoing) {
+		this.keepGoing = keepGoing;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * isCancelled
+	 *
+	 * @return cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * getStatementCount - Statements run so far, safe to call from any thread
+	 *
+	 * @return statementCount
+	 */
+	public long getStatementCount() {
+		return statementCount;
+	}
+
+	/**
+	 * getCommitted - Statements committed before the script ended, by a COMMIT, END or BEGIN of the script or
+	 * around a VACUUM, ATTACH or DETACH; an error or a cancel does not roll them back
+	 *
+	 * @return committed
+	 */
+	public long getCommitted() {
+		return committed;
+	}
+
+	/**
+	 * getBatchCount
+	 *
+	 * @return batchCount
+	 */
+	public long getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * getChanges - Rows inserted, updated or deleted
+	 *
+	 * @return changes
+	 */
+	public long getChanges() {
+		return changes;
+	}
+
+	/**
+	 * getErrors - Statements that failed
+	 *
+	 * @return errors
+	 */
+	public long getErrors() {
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		return statementCount + " statements (" + batchCount + " batches), " + changes + " rows changed, " + errors
+				+ " errors";
+	}
+}
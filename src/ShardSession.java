@@ -0,0 +1,768 @@
+/** ShardSession.java
+ *
+ * Runs the same query against many database files, the shards, and merges the results.
+ *
+ * Shards are registered one by one or with a glob like logs/2026-*.db. A query runs on every shard in
+ * parallel on a bounded pool, each shard with its own read-only connection, and the results are merged as
+ * the shards finish:
+ *
+ *   CONCAT     the rows of every shard, one shard after the other, in the order the shards finish
+ *   ORDER_BY   a merge sort of the shard results on the ORDER BY terms of the query
+ *   AGGREGATE  the rows of the shards grouped again on the plain columns, with the count(...), sum(...),
+ *              total(...), min(...) and max(...) columns combined
+ *
+ * AUTO picks AGGREGATE when the result has such columns, ORDER_BY when the query has an ORDER BY and CONCAT
+ * otherwise. Aggregate columns are found by their names, so they must not be renamed with AS, and a column is
+ * combined only when it is one aggregate call as a whole; an expression on aggregates, avg, group_concat and
+ * the DISTINCT forms of count, sum and total cannot be combined, nor can a HAVING clause, which every shard
+ * would apply to its own groups. A LIMIT applies to the merged rows as well, each shard already returning at most
+ * that many. The ORDER BY terms must be columns of the result, and the merge compares text only as the BINARY
+ * collation does.
+ *
+ * AGGREGATE adds the groups of every shard as it arrives, so only the groups stay in memory; ORDER_BY needs
+ * the results of all shards at once. The memory limit of the QueryGovernor bounds a shard result and the
+ * results kept for ORDER_BY together.
+ *
+ * For joins across files the shards can also be attached to one connection, with a TEMP view that puts a
+ * table of all of them together.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.sqlite.SQLiteConfig;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class ShardSession {
+
+	/**
+	 * Merge - How the results of the shards are put together
+	 */
+	public enum Merge {
+		AUTO, CONCAT, ORDER_BY, AGGREGATE
+	}
+
+	/**
+	 * Aggregate - What a column of an aggregated result is, and how the values of the shards are combined
+	 */
+	enum Aggregate {
+		GROUP, COUNT, SUM, MIN, MAX
+	}
+
+	/**
+	 * RowSink - Takes the merged rows
+	 */
+	public interface RowSink {
+		void start(List<String> columns) throws IOException;
+
+		void row(Object[] values) throws IOException;
+
+		void finish() throws IOException;
+	}
+
+	public static final int DEFAULT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+	private final TreeSet<Path> shards = new TreeSet<Path>();
+	private final ExecutorService pool;
+	private volatile boolean cancelled = false;
+	private volatile QueryGovernor governor = new QueryGovernor(); // its memory limit bounds the results held
+
+	public ShardSession(int threads) {
+		pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "nisqlite-shard");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * addFile - Registers one shard
+	 */
+	public void addFile(Path file) {
+		shards.add(file.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * addGlob - Registers the files that match a glob, like logs/2026-*.db or data/**.sqlite. Returns how
+	 * many files matched.
+	 */
+	public int addGlob(String glob) throws IOException {
+		String pattern = glob.replace('\\', '/');
+		int wild = pattern.length();
+		for (char c : new char[] { '*', '?', '[', '{' }) {
+			int i = pattern.indexOf(c);
+			if (i >= 0)
+				wild = Math.min(wild, i);
+		}
+		if (wild == pattern.length()) {
+			Path file = Paths.get(glob);
+			if (!Files.isRegularFile(file))
+				return 0;
+			addFile(file);
+			return 1;
+		}
+		int slash = pattern.lastIndexOf('/', wild);
+		Path base = Paths.get(slash < 0 ? "." : slash == 0 ? "/" : pattern.substring(0, slash)).toAbsolutePath()
+				.normalize();
+		String rest = pattern.substring(slash + 1);
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + rest);
+		int depth = rest.contains("**") ? Integer.MAX_VALUE : rest.split("/").length;
+		int found = 0;
+		try (Stream<Path> files = Files.walk(base, depth)) {
+			for (Path p : (Iterable<Path>) files::iterator) {
+				if (Files.isRegularFile(p) && matcher.matches(base.relativize(p))) {
+					addFile(p);
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * getShards - The registered files, in name order
+	 */
+	public List<Path> getShards() {
+		return new ArrayList<Path>(shards);
+	}
+
+	/**
+	 * query - Runs a query on every shard and hands the merged rows to the sink. Returns the rows handed.
+	 */
+	public long query(String sql, Merge merge, RowSink sink) throws SQLException, IOException {
+		cancelled = false;
+		if (shards.isEmpty())
+			throw new SQLException("No shards registered");
+		List<SqlScript.Token> tail = tail(sql);
+		long limit = parseLimit(tail);
+
+		if ((merge == Merge.AUTO || merge == Merge.AGGREGATE) && hasHaving(sql))
+			throw new SQLException("HAVING cannot be used on shards, every shard would apply it to its own groups");
+
+		CompletionService<ResultStore> done = new ExecutorCompletionService<ResultStore>(pool);
+		List<Future<ResultStore>> futures = new ArrayList<Future<ResultStore>>();
+		for (Path shard : shards) {
+			futures.add(done.submit(() -> readShard(shard, sql)));
+		}
+		try {
+			List<String> columns = null;
+			Aggregate[] aggregates = null;
+			List<ResultStore> results = new ArrayList<ResultStore>(); // of the shards, for ORDER_BY
+			long held = 0; // bytes of the results
+			Map<List<Object>, Object[]> groups = new LinkedHashMap<List<Object>, Object[]>(); // for AGGREGATE
+			long rows = 0;
+			for (int i = 0; i < futures.size() && !cancelled; i++) {
+				ResultStore res = take(done);
+				if (columns == null) {
+					columns = res.getColumns();
+					aggregates = aggregatesOf(columns);
+					if (merge == Merge.AUTO)
+						merge = isAggregate(aggregates) ? Merge.AGGREGATE
+								: orderTerms(tail) != null ? Merge.ORDER_BY : Merge.CONCAT;
+					if (merge == Merge.AGGREGATE && limit >= 0)
+						throw new SQLException("LIMIT cannot be used when the shards are aggregated again");
+					sink.start(columns);
+				} else if (res.getColumnCount() != columns.size()) {
+					throw new SQLException("The shards return different columns");
+				}
+				if (merge == Merge.CONCAT) {
+					for (int r = 0; r < res.getRowCount() && (limit < 0 || rows < limit); r++, rows++) {
+						sink.row(rowOf(res, r));
+					}
+				} else if (merge == Merge.AGGREGATE) {
+					group(groups, res, aggregates);
+				} else {
+					held += res.getByteSize();
+					checkMemory(held);
+					results.add(res);
+				}
+			}
+			if (columns == null) {
+				sink.finish();
+				return 0;
+			}
+			if (merge == Merge.ORDER_BY) {
+				rows = mergeSorted(results, comparator(tail, columns), limit, sink);
+			} else if (merge == Merge.AGGREGATE) {
+				rows = aggregate(groups, tail, columns, sink);
+			}
+			sink.finish();
+			return rows;
+		} finally {
+			for (Future<ResultStore> f : futures) {
+				f.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * query - Runs a query on every shard and returns the merged rows
+	 */
+	public ResultStore query(String sql, Merge merge) throws SQLException, IOException {
+		ResultStore[] res = new ResultStore[1];
+		query(sql, merge, new RowSink() {
+			@Override
+			public void start(List<String> columns) {
+				res[0] = new ResultStore(columns);
+			}
+
+			@Override
+			public void row(Object[] values) {
+				res[0].addRow(values);
+			}
+
+			@Override
+			public void finish() {
+			}
+		});
+		return res[0] != null ? res[0] : new ResultStore(Collections.<String>emptyList());
+	}
+
+	/**
+	 * take - The next shard result, the error of a failed shard as an SQLException
+	 */
+	private static ResultStore take(CompletionService<ResultStore> done) throws SQLException {
+		try {
+			return done.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof SQLException ? (SQLException) cause : new SQLException(cause);
+		}
+	}
+
+	/**
+	 * readShard - Runs the query on one shard and reads all its rows
+	 */
+	private ResultStore readShard(Path shard, String sql) throws SQLException {
+		SQLiteConfig config = new SQLiteConfig();
+		config.setReadOnly(true);
+		try (Connection conn = config.createConnection("jdbc:sqlite:" + shard.toString().replace("\\", "/"));
+				PreparedStatement statement = conn.prepareStatement(sql)) {
+			if (!statement.execute())
+				throw new SQLException("Not a query, shards are opened read-only");
+			try (ResultSet rs = statement.getResultSet()) {
+				ResultStore res = ResultStore.forResultSet(rs);
+				while (!cancelled && rs.next()) {
+					res.addRow(rs);
+					checkMemory(res.getByteSize());
+				}
+				return res;
+			}
+		} catch (SQLException e) {
+			throw new SQLException(shard.getFileName() + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static Object[] rowOf(ResultStore res, int r) {
+		Object[] values = new Object[res.getColumnCount()];
+		for (int c = 0; c < values.length; c++) {
+			values[c] = res.getValue(r, c);
+		}
+		return values;
+	}
+
+	/**
+	 * mergeSorted - Merges the sorted results of the shards, a row at a time
+	 */
+	private static long mergeSorted(List<ResultStore> results, Comparator<Object[]> order, long limit, RowSink sink)
+			throws IOException {
+		// Heads of the shards: the row, the shard and the row number
+		PriorityQueue<Object[]> heads = new PriorityQueue<Object[]>(Math.max(1, results.size()),
+				(a, b) -> order.compare((Object[]) a[0], (Object[]) b[0]));
+		for (int s = 0; s < results.size(); s++) {
+			if (results.get(s).getRowCount() > 0)
+				heads.add(new Object[] { rowOf(results.get(s), 0), s, 0 });
+		}
+		long rows = 0;
+		while (!heads.isEmpty() && (limit < 0 || rows < limit)) {
+			Object[] head = heads.poll();
+			sink.row((Object[]) head[0]);
+			rows++;
+			ResultStore res = results.get((Integer) head[1]);
+			int next = (Integer) head[2] + 1;
+			if (next < res.getRowCount())
+				heads.add(new Object[] { rowOf(res, next), head[1], next });
+		}
+		return rows;
+	}
+
+	/**
+	 * checkMemory - Fails the query when the results held take more than the memory limit
+	 */
+	private void checkMemory(long bytes) throws SQLException {
+		QueryGovernor limits = governor;
+		if (limits.getMaxBytes() > 0 && bytes > limits.getMaxBytes())
+			throw new SQLException("The shard results take more than " + limits.describe(QueryGovernor.Limit.MEMORY));
+	}
+
+	/**
+	 * group - Adds the rows of a shard to the groups on the plain columns, combining the aggregate columns
+	 */
+	private static void group(Map<List<Object>, Object[]> groups, ResultStore res, Aggregate[] aggregates) {
+		for (int r = 0; r < res.getRowCount(); r++) {
+			Object[] values = rowOf(res, r);
+			List<Object> key = new ArrayList<Object>();
+			for (int c = 0; c < values.length; c++) {
+				if (aggregates[c] == Aggregate.GROUP) // a BLOB is equal to another with the same bytes
+					key.add(values[c] instanceof byte[] ? ByteBuffer.wrap((byte[]) values[c]) : values[c]);
+			}
+			Object[] group = groups.get(key);
+			if (group == null) {
+				groups.put(key, values);
+				continue;
+			}
+			for (int c = 0; c < values.length; c++) {
+				group[c] = combine(aggregates[c], group[c], values[c]);
+			}
+		}
+	}
+
+	/**
+	 * aggregate - Hands the groups of all shards to the sink, in the order of the ORDER BY of the query if any
+	 */
+	private static long aggregate(Map<List<Object>, Object[]> groups, List<SqlScript.Token> tail, List<String> columns,
+			RowSink sink) throws SQLException, IOException {
+		List<Object[]> rows = new ArrayList<Object[]>(groups.values());
+		groups.clear();
+		if (orderTerms(tail) != null)
+			rows.sort(comparator(tail, columns));
+		for (Object[] row : rows) {
+			sink.row(row);
+		}
+		return rows.size();
+	}
+
+	/**
+	 * combine - Two values of the same group from different shards as one. NULL is what sum, min and max give
+	 * for no rows, so it does not count.
+	 */
+	private static Object combine(Aggregate aggregate, Object a, Object b) {
+		if (aggregate == Aggregate.GROUP)
+			return a;
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		switch (aggregate) {
+		case COUNT:
+		case SUM:
+			if (a instanceof Long && b instanceof Long)
+				return (Long) a + (Long) b;
+			return ((Number) a).doubleValue() + ((Number) b).doubleValue();
+		case MIN:
+			return compareValues(a, b) <= 0 ? a : b;
+		case MAX:
+			return compareValues(a, b) >= 0 ? a : b;
+		default:
+			return a;
+		}
+	}
+
+	/**
+	 * aggregatesOf - The aggregate of every column, from its name. Only a column that is one call of an
+	 * aggregate as a whole is combined; any other column with an aggregate in it, like sum(a) * 1.0 / count(*),
+	 * cannot be computed from the values of the shards.
+	 */
+	private static Aggregate[] aggregatesOf(List<String> columns) throws SQLException {
+		Aggregate[] res = new Aggregate[columns.size()];
+		for (int c = 0; c < res.length; c++) {
+			String column = columns.get(c);
+			List<SqlScript.Token> tokens = SqlScript.tokens(column);
+			res[c] = Aggregate.GROUP;
+			for (int i = 0; i < tokens.size(); i++) {
+				String function = aggregateAt(tokens, i);
+				if (function == null)
+					continue;
+				if (i > 0 || closeOf(tokens, i + 1) != tokens.size() - 1)
+					throw new SQLException(column + " cannot be combined across shards, it computes on an aggregate;"
+							+ " select the aggregate alone instead");
+				if (function.equals("avg"))
+					throw new SQLException("avg cannot be combined across shards, select sum and count instead");
+				if (function.equals("group_concat"))
+					throw new SQLException("group_concat cannot be combined across shards");
+				if (tokens.get(2).is("DISTINCT") && !function.equals("min") && !function.equals("max"))
+					throw new SQLException(column + " cannot be combined across shards, the same value may be"
+							+ " in many shards; group by the column instead");
+				res[c] = function.equals("count") ? Aggregate.COUNT
+						: function.equals("min") ? Aggregate.MIN : function.equals("max") ? Aggregate.MAX : Aggregate.SUM;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * aggregateAt - The name of the aggregate called at token i, in lower case, or null if there is none there.
+	 * min and max with more than one argument are the scalar functions.
+	 */
+	private static String aggregateAt(List<SqlScript.Token> tokens, int i) {
+		SqlScript.Token token = tokens.get(i);
+		if (token.type != SqlScript.TokenType.WORD || i + 1 >= tokens.size() || !tokens.get(i + 1).text.equals("("))
+			return null;
+		String name = token.text.toLowerCase(Locale.ROOT);
+		switch (name) {
+		case "count":
+		case "sum":
+		case "total":
+		case "avg":
+		case "group_concat":
+			return name;
+		case "min":
+		case "max":
+			int depth = 0;
+			for (int j = i + 1; j < tokens.size(); j++) {
+				String text = tokens.get(j).text;
+				if (text.equals("("))
+					depth++;
+				else if (text.equals(")") && --depth == 0)
+					return name;
+				else if (depth == 1 && text.equals(","))
+					return null;
+			}
+			return name;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * closeOf - The index of the parenthesis that closes the one at index open, or -1 if it is not closed
+	 */
+	private static int closeOf(List<SqlScript.Token> tokens, int open) {
+		int depth = 0;
+		for (int j = open; j < tokens.size(); j++) {
+			String text = tokens.get(j).text;
+			if (text.equals("("))
+				depth++;
+			else if (text.equals(")") && --depth == 0)
+				return j;
+		}
+		return -1;
+	}
+
+	private static boolean isAggregate(Aggregate[] aggregates) {
+		for (Aggregate a : aggregates) {
+			if (a != Aggregate.GROUP)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * compareValues - The order of SQLite for values of different storage classes: NULL, then numbers, then
+	 * text, then BLOBs
+	 */
+	static int compareValues(Object a, Object b) {
+		int ka = a == null ? 0 : a instanceof Number ? 1 : a instanceof byte[] ? 3 : 2;
+		int kb = b == null ? 0 : b instanceof Number ? 1 : b instanceof byte[] ? 3 : 2;
+		if (ka != kb || ka == 0)
+			return Integer.compare(ka, kb);
+		if (ka == 1) {
+			if (a instanceof Long && b instanceof Long)
+				return Long.compare((Long) a, (Long) b);
+			return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+		}
+		if (ka == 3) {
+			byte[] ba = (byte[]) a;
+			byte[] bb = (byte[]) b;
+			for (int i = 0; i < Math.min(ba.length, bb.length); i++) {
+				if (ba[i] != bb[i])
+					return Integer.compare(ba[i] & 0xff, bb[i] & 0xff);
+			}
+			return Integer.compare(ba.length, bb.length);
+		}
+		// By code points, the order of UTF-8 bytes and of BINARY; compareTo of String goes by UTF-16 units
+		String sa = a.toString();
+		String sb = b.toString();
+		int i = 0;
+		int j = 0;
+		while (i < sa.length() && j < sb.length()) {
+			int ca = sa.codePointAt(i);
+			int cb = sb.codePointAt(j);
+			if (ca != cb)
+				return Integer.compare(ca, cb);
+			i += Character.charCount(ca);
+			j += Character.charCount(cb);
+		}
+		return Integer.compare(sa.length() - i, sb.length() - j);
+	}
+
+	/**
+	 * tail - The tokens of the query from its ORDER BY or LIMIT outside parentheses, or an empty list if it has
+	 * neither
+	 */
+	static List<SqlScript.Token> tail(String sql) {
+		List<SqlScript.Token> tokens = SqlScript.tokens(sql);
+		int depth = 0;
+		int start = -1;
+		int end = tokens.size();
+		for (int i = 0; i < tokens.size(); i++) {
+			SqlScript.Token token = tokens.get(i);
+			if (token.text.equals("(")) {
+				depth++;
+			} else if (token.text.equals(")")) {
+				depth--;
+			} else if (depth == 0 && token.type == SqlScript.TokenType.SEMICOLON) {
+				end = i;
+				break;
+			} else if (depth == 0 && start < 0 && (token.is("ORDER") || token.is("LIMIT"))) {
+				start = i;
+			} else if (depth == 0 && start >= 0 && token.is("SELECT")) {
+				start = -1; // an ORDER BY of a part of a compound select
+			}
+		}
+		if (start < 0)
+			return Collections.emptyList();
+		return tokens.subList(start, end);
+	}
+
+	/**
+	 * orderTerms - The terms of the ORDER BY of the tail, split on the commas outside parentheses, or null if
+	 * there is none
+	 */
+	private static List<List<SqlScript.Token>> orderTerms(List<SqlScript.Token> tail) {
+		if (tail.size() < 2 || !tail.get(0).is("ORDER") || !tail.get(1).is("BY"))
+			return null;
+		List<List<SqlScript.Token>> terms = new ArrayList<List<SqlScript.Token>>();
+		int depth = 0;
+		int start = 2;
+		for (int i = 2; i <= tail.size(); i++) {
+			SqlScript.Token token = i < tail.size() ? tail.get(i) : null;
+			if (token != null && token.text.equals("(")) {
+				depth++;
+			} else if (token != null && token.text.equals(")")) {
+				depth--;
+			} else if (token == null || depth == 0 && (token.text.equals(",") || token.is("LIMIT"))) {
+				terms.add(tail.subList(start, i));
+				start = i + 1;
+				if (token == null || token.is("LIMIT"))
+					break;
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * parseLimit - The LIMIT of the tail, -1 if there is none
+	 */
+	private static long parseLimit(List<SqlScript.Token> tail) throws SQLException {
+		int depth = 0;
+		for (int i = 0; i < tail.size(); i++) {
+			SqlScript.Token token = tail.get(i);
+			if (token.text.equals("("))
+				depth++;
+			else if (token.text.equals(")"))
+				depth--;
+			else if (depth == 0 && token.is("LIMIT")) {
+				List<SqlScript.Token> limit = tail.subList(i + 1, tail.size());
+				if (limit.size() != 1 || !limit.get(0).text.matches("\\d+"))
+					throw new SQLException("Only a plain LIMIT n can be merged across shards: LIMIT "
+							+ SqlScript.text(limit));
+				return Long.parseLong(limit.get(0).text);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * comparator - The order of the ORDER BY terms, found among the columns of the result by name or number.
+	 * Text is compared as by the BINARY collation, the only one the merge knows.
+	 */
+	private static Comparator<Object[]> comparator(List<SqlScript.Token> tail, List<String> columns)
+			throws SQLException {
+		List<List<SqlScript.Token>> terms = orderTerms(tail);
+		if (terms == null)
+			return (a, b) -> 0;
+		int[] positions = new int[terms.size()];
+		boolean[] descending = new boolean[terms.size()];
+		boolean[] nullsLast = new boolean[terms.size()];
+		for (int t = 0; t < terms.size(); t++) {
+			List<SqlScript.Token> term = terms.get(t);
+			int end = term.size();
+			SqlScript.Token nulls = null; // FIRST or LAST
+			if (end >= 2 && term.get(end - 2).is("NULLS")) {
+				nulls = term.get(end - 1);
+				end -= 2;
+			}
+			if (end >= 1 && (term.get(end - 1).is("ASC") || term.get(end - 1).is("DESC")))
+				descending[t] = term.get(--end).is("DESC");
+			nullsLast[t] = nulls == null ? descending[t] : nulls.is("LAST"); // NULL is the smallest value
+			if (end >= 2 && term.get(end - 2).is("COLLATE")) {
+				String collation = SqlScript.unquote(term.get(end - 1));
+				if (!collation.equalsIgnoreCase("BINARY"))
+					throw new SQLException("COLLATE " + collation + " cannot be merged across shards, only BINARY");
+				end -= 2;
+			}
+			positions[t] = columnOf(term.subList(0, end), columns);
+		}
+		return (a, b) -> {
+			for (int t = 0; t < positions.length; t++) {
+				Object va = a[positions[t]];
+				Object vb = b[positions[t]];
+				int cmp;
+				if (va == null || vb == null)
+					cmp = va == vb ? 0 : (va == null) == nullsLast[t] ? 1 : -1;
+				else
+					cmp = descending[t] ? -compareValues(va, vb) : compareValues(va, vb);
+				if (cmp != 0)
+					return cmp;
+			}
+			return 0;
+		};
+	}
+
+	/**
+	 * columnOf - The position of the term in the columns of the result: a column number, a column name, maybe
+	 * with its table, or an expression written as the column name is
+	 */
+	private static int columnOf(List<SqlScript.Token> term, List<String> columns) throws SQLException {
+		String text = SqlScript.text(term);
+		if (term.size() == 1 && term.get(0).type == SqlScript.TokenType.NUMBER && text.matches("\\d+")) {
+			int n = Integer.parseInt(text);
+			if (n >= 1 && n <= columns.size())
+				return n - 1;
+		}
+		String name = null; // of a plain column, t.name is the column name
+		if (term.size() % 2 == 1) {
+			name = SqlScript.unquote(term.get(term.size() - 1));
+			for (int i = 0; i < term.size(); i++) {
+				SqlScript.TokenType type = term.get(i).type;
+				if (i % 2 == 0 ? type != SqlScript.TokenType.WORD && type != SqlScript.TokenType.QUOTED
+						: !term.get(i).text.equals("."))
+					name = null;
+			}
+		}
+		for (int c = 0; c < columns.size(); c++) {
+			if (name != null && columns.get(c).equalsIgnoreCase(name)
+					|| SqlScript.text(SqlScript.tokens(columns.get(c))).equalsIgnoreCase(text))
+				return c;
+		}
+		throw new SQLException("ORDER BY " + text + " is not a column of the result, it cannot be merged");
+	}
+
+	/**
+	 * attach - Attaches the shards to the writer of a database as shard0, shard1..., for joins across files.
+	 * Returns the schema names. SQLite attaches only a few databases to one connection, 10 by default.
+	 */
+	public List<String> attach(SqliteJdbc sq) throws SQLException {
+		Connection conn = sq.getConnection();
+		List<String> schemas = new ArrayList<String>();
+		int n = 0;
+		for (Path shard : shards) {
+			String schema = "shard" + n++;
+			try (PreparedStatement statement = conn
+					.prepareStatement("ATTACH DATABASE ? AS " + SqliteJdbc.quote(schema))) {
+				statement.setString(1, shard.toString());
+				statement.execute();
+			}
+			schemas.add(schema);
+		}
+		return schemas;
+	}
+
+	/**
+	 * createUnionView - Creates a TEMP view with the rows of a table in all the attached shards, and the
+	 * schema of every row in a first column named shard
+	 */
+	public static void createUnionView(SqliteJdbc sq, String view, String table, List<String> schemas)
+			throws SQLException {
+		StringBuilder sb = new StringBuilder("CREATE TEMP VIEW ").append(SqliteJdbc.quote(view)).append(" AS ");
+		for (int i = 0; i < schemas.size(); i++) {
+			if (i > 0)
+				sb.append(" UNION ALL ");
+			String schema = schemas.get(i);
+			sb.append("SELECT ").append(ResultExporter.sqlLiteral(schema)).append(" AS shard, * FROM ")
+					.append(SqliteJdbc.quote(schema)).append('.').append(SqliteJdbc.quote(table));
+		}
+		try (Statement statement = sq.getConnection().createStatement()) {
+			statement.execute(sb.toString());
+		}
+		sq.invalidateCatalog();
+	}
+
+	/**
+	 * hasHaving - The query has a HAVING clause outside parentheses
+	 */
+	static boolean hasHaving(String sql) {
+		int depth = 0;
+		for (SqlScript.Token token : SqlScript.tokens(sql)) {
+			if (token.text.equals("("))
+				depth++;
+			else if (token.text.equals(")"))
+				depth--;
+			else if (depth == 0 && token.is("HAVING"))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * getGovernor - The limits of the queries; only the memory limit is used
+	 *
+	 * @return governor
+	 */
+	public QueryGovernor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * setGovernor
+	 */
+	public void setGovernor(QueryGovernor governor) {
+		this.governor = governor;
+	}
+
+	/**
+	 * cancel - Stops reading the shards, the query returns with the rows merged so far
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * close - Stops the threads of the pool
+	 */
+	public void close() {
+		cancelled = true;
+		pool.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return "Shards: " + shards.size() + " files";
+	}
+}
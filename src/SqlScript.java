@@ -0,0 +1,583 @@
+/** SqlScript.java
+ *
+ * Splits SQL text into statements with a lexer, and tells what kind every statement is.
+ *
+ * The lexer knows the tokens of SQLite: string literals, quoted names ("a", `a` and [a]), BLOB literals,
+ * numbers, parameters and comments, so a semicolon in any of them does not end a statement. The semicolons
+ * inside the BEGIN ... END body of a CREATE TRIGGER do not either; CASE ... END inside the body is counted
+ * so its END does not end the body. The script is read as it goes, so a long script does not have to fit in
+ * memory, and every statement keeps the line it starts on, for error messages, and its position in the text.
+ *
+ * The kind comes from the first keyword, or for WITH from the first SELECT, VALUES, INSERT, UPDATE, DELETE or
+ * REPLACE outside the parentheses of the common table expressions. SELECT, EXPLAIN and PRAGMA statements may
+ * return rows; whether one did is told by Statement.execute.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class SqlScript {
+
+	/**
+	 * Kind - What a statement does
+	 */
+	public enum Kind {
+		SELECT, // SELECT, VALUES and WITH ... SELECT
+		EXPLAIN, PRAGMA, DML, // INSERT, UPDATE, DELETE and REPLACE, with or without WITH
+		DDL, // CREATE, DROP and ALTER
+		TRANSACTION, // BEGIN, COMMIT, END, ROLLBACK, SAVEPOINT and RELEASE
+		OTHER; // ATTACH, DETACH, VACUUM, ANALYZE, REINDEX and anything unknown
+
+		/**
+		 * mayReturnRows - Statements of this kind can have a result set
+		 */
+		public boolean mayReturnRows() {
+			return this == SELECT || this == EXPLAIN || this == PRAGMA;
+		}
+	}
+
+	/**
+	 * TokenType - The tokens of the lexer
+	 */
+	public enum TokenType {
+		WORD, QUOTED, STRING, BLOB, NUMBER, PARAM, OPERATOR, SEMICOLON, SPACE, COMMENT
+	}
+
+	/**
+	 * Token - A token and the line it starts on
+	 */
+	public static class Token {
+		final TokenType type;
+		final String text;
+		final int line;
+
+		Token(TokenType type, String text, int line) {
+			this.type = type;
+			this.text = text;
+			this.line = line;
+		}
+
+		/**
+		 * is - The token is this keyword
+		 */
+		boolean is(String keyword) {
+			return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+
+	/**
+	 * Statement - One statement of a script, without its semicolon and comments
+	 */
+	public static class Statement {
+		private final String sql;
+		private final int line;
+		private final long offset;
+		private final Kind kind;
+		private final List<Token> tokens; // without spaces and comments
+
+		Statement(String sql, int line, long offset, List<Token> tokens) {
+			this.sql = sql;
+			this.line = line;
+			this.offset = offset;
+			this.tokens = tokens;
+			this.kind = classify(tokens);
+		}
+
+		/**
+		 * getSql
+		 *
+		 * @return sql
+		 */
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * getLine - The line of the script the statement starts on
+		 *
+		 * @return line
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * getOffset - The position in the script of the first character of the statement
+		 *
+		 * @return offset
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * getKind
+		 *
+		 * @return kind
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		List<Token> getTokens() {
+			return tokens;
+		}
+
+		@Override
+		public String toString() {
+			return sql;
+		}
+	}
+
+	private static final List<String> OPERATORS = Arrays.asList("<=", ">=", "<>", "!=", "==", "||", "<<", ">>");
+	// Keywords that start a clause whose literals are values, and ones that start any other clause
+	private static final List<String> VALUE_CLAUSES = Arrays.asList("VALUES", "SET", "WHERE", "HAVING");
+	private static final List<String> OTHER_CLAUSES = Arrays.asList("SELECT", "FROM", "GROUP", "ORDER", "LIMIT",
+			"WINDOW", "CONFLICT");
+
+	private final PushbackReader in;
+	private int line = 1; // line the lexer is on
+	private long offset = 0; // characters read
+	private long tokenOffset = 0; // position of the token read last
+
+	public SqlScript(Reader in) {
+		this.in = new PushbackReader(in, 2);
+	}
+
+	/**
+	 * split - All the statements of a text
+	 */
+	public static List<Statement> split(String sql) {
+		SqlScript script = new SqlScript(new StringReader(sql));
+		List<Statement> res = new ArrayList<Statement>();
+		try {
+			Statement statement;
+			while ((statement = script.next()) != null) {
+				res.add(statement);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // a StringReader does not throw
+		}
+		return res;
+	}
+
+	/**
+	 * tokens - All the tokens of a text, semicolons included, without spaces and comments
+	 */
+	static List<Token> tokens(String sql) {
+		SqlScript script = new SqlScript(new StringReader(sql));
+		List<Token> res = new ArrayList<Token>();
+		try {
+			Token token;
+			while ((token = script.nextToken()) != null) {
+				if (token.type != TokenType.SPACE && token.type != TokenType.COMMENT)
+					res.add(token);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // a StringReader does not throw
+		}
+		return res;
+	}
+
+	/**
+	 * shape - The text without its literals: every string, BLOB and number literal as ?, comments and the
+	 * trailing semicolons left out, one space between two tokens. Queries that differ only in their literals
+	 * have the same shape.
+	 */
+	public static String shape(String sql) {
+		List<Token> tokens = tokens(sql);
+		int end = tokens.size();
+		while (end > 0 && tokens.get(end - 1).type == TokenType.SEMICOLON) {
+			end--;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Token token : tokens.subList(0, end)) {
+			if (sb.length() > 0)
+				sb.append(' ');
+			boolean literal = token.type == TokenType.STRING || token.type == TokenType.BLOB
+					|| token.type == TokenType.NUMBER;
+			sb.append(literal ? "?" : token.text);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * classify - The kind of the first statement of a text
+	 */
+	public static Kind classify(String sql) {
+		List<Statement> statements = split(sql);
+		return statements.isEmpty() ? Kind.OTHER : statements.get(0).getKind();
+	}
+
+	/**
+	 * next - The next statement, null at the end of the script
+	 */
+	public Statement next() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		List<Token> tokens = new ArrayList<Token>();
+		int startLine = -1;
+		long startOffset = -1;
+		boolean trigger = false; // a CREATE TRIGGER, whose body has semicolons
+		boolean body = false; // in the BEGIN ... END of the trigger
+		int cases = 0; // CASE expressions open in the body
+		Token token;
+		while ((token = nextToken()) != null) {
+			if (token.type == TokenType.SEMICOLON && !(body && trigger)) {
+				if (tokens.isEmpty())
+					continue; // an empty statement
+				return new Statement(sb.toString().trim(), startLine, startOffset, Collections.unmodifiableList(tokens));
+			}
+			if (token.type == TokenType.SPACE || token.type == TokenType.COMMENT) {
+				if (!tokens.isEmpty())
+					sb.append(token.text.indexOf('\n') >= 0 ? "\n" : " ");
+				continue;
+			}
+			if (tokens.isEmpty()) {
+				startLine = token.line;
+				startOffset = tokenOffset;
+			}
+			tokens.add(token);
+			sb.append(token.text);
+			if (tokens.size() <= 3 && token.is("TRIGGER") && tokens.get(0).is("CREATE")) {
+				trigger = true;
+			} else if (trigger && !body && token.is("BEGIN")) {
+				body = true;
+			} else if (body && token.is("CASE")) {
+				cases++;
+			} else if (body && token.is("END")) {
+				if (cases > 0)
+					cases--;
+				else
+					body = false; // the end of the trigger body, the next semicolon ends the statement
+			}
+		}
+		if (tokens.isEmpty())
+			return null;
+		return new Statement(sb.toString().trim(), startLine, startOffset, Collections.unmodifiableList(tokens));
+	}
+
+	private int read() throws IOException {
+		int c = in.read();
+		if (c == '\n')
+			line++;
+		if (c != -1)
+			offset++;
+		return c;
+	}
+
+	private int peek() throws IOException {
+		int c = in.read();
+		if (c != -1)
+			in.unread(c);
+		return c;
+	}
+
+	/**
+	 * nextToken - The next token, null at the end of the text
+	 */
+	private Token nextToken() throws IOException {
+		int tokenLine = line;
+		tokenOffset = offset;
+		int c = read();
+		if (c == -1)
+			return null;
+		StringBuilder sb = new StringBuilder();
+		sb.append((char) c);
+		if (Character.isWhitespace(c)) {
+			while (peek() != -1 && Character.isWhitespace(peek())) {
+				sb.append((char) read());
+			}
+			return new Token(TokenType.SPACE, sb.toString(), tokenLine);
+		}
+		if (c == '-' && peek() == '-') {
+			while (peek() != -1 && peek() != '\n') {
+				sb.append((char) read());
+			}
+			return new Token(TokenType.COMMENT, sb.toString(), tokenLine);
+		}
+		if (c == '/' && peek() == '*') {
+			sb.append((char) read());
+			int prev = 0;
+			while ((c = read()) != -1) {
+				sb.append((char) c);
+				if (prev == '*' && c == '/')
+					break;
+				prev = c;
+			}
+			return new Token(TokenType.COMMENT, sb.toString(), tokenLine);
+		}
+		if ((c == 'x' || c == 'X') && peek() == '\'') {
+			readQuoted(sb, read(), '\'');
+			return new Token(TokenType.BLOB, sb.toString(), tokenLine);
+		}
+		if (c == '\'') {
+			readQuoted(sb, -1, '\'');
+			return new Token(TokenType.STRING, sb.toString(), tokenLine);
+		}
+		if (c == '"' || c == '`' || c == '[') {
+			readQuoted(sb, -1, c == '[' ? ']' : c);
+			return new Token(TokenType.QUOTED, sb.toString(), tokenLine);
+		}
+		if (Character.isDigit(c) || (c == '.' && peek() != -1 && Character.isDigit(peek()))) {
+			while (peek() != -1 && (Character.isLetterOrDigit(peek()) || peek() == '.'
+					|| ((peek() == '+' || peek() == '-') && "eE".indexOf(sb.charAt(sb.length() - 1)) >= 0
+							&& !sb.toString().startsWith("0x")))) {
+				sb.append((char) read());
+			}
+			return new Token(TokenType.NUMBER, sb.toString(), tokenLine);
+		}
+		if (isNameChar(c)) {
+			while (peek() != -1 && (isNameChar(peek()) || Character.isDigit(peek()))) {
+				sb.append((char) read());
+			}
+			return new Token(TokenType.WORD, sb.toString(), tokenLine);
+		}
+		if (c == '?' || ((c == ':' || c == '@' || c == '$') && peek() != -1 && isNameChar(peek()))) {
+			while (peek() != -1 && (isNameChar(peek()) || Character.isDigit(peek()))) {
+				sb.append((char) read());
+			}
+			return new Token(TokenType.PARAM, sb.toString(), tokenLine);
+		}
+		if (c == ';')
+			return new Token(TokenType.SEMICOLON, ";", tokenLine);
+		if (peek() != -1 && OPERATORS.contains(sb.toString() + (char) peek()))
+			sb.append((char) read()); // <=, >=, <>, !=, ==, ||, << and >> are one token
+		return new Token(TokenType.OPERATOR, sb.toString(), tokenLine);
+	}
+
+	/**
+	 * readQuoted - Reads up to the closing quote, a doubled quote being part of the text
+	 */
+	private void readQuoted(StringBuilder sb, int open, int close) throws IOException {
+		if (open != -1)
+			sb.append((char) open);
+		int c;
+		while ((c = read()) != -1) {
+			sb.append((char) c);
+			if (c == close) {
+				if (close != ']' && peek() == close) {
+					sb.append((char) read()); // escaped quote
+				} else {
+					break;
+				}
+			}
+		}
+	}
+
+	private static boolean isNameChar(int c) {
+		return Character.isLetter(c) || c == '_' || c == '$' || c > 127;
+	}
+
+	/**
+	 * classify - The kind of a statement from its tokens
+	 */
+	static Kind classify(List<Token> tokens) {
+		if (tokens.isEmpty())
+			return Kind.OTHER;
+		String first = tokens.get(0).text.toUpperCase(Locale.ROOT);
+		if (first.equals("WITH")) {
+			int depth = 0;
+			for (Token token : tokens) {
+				if (token.text.equals("("))
+					depth++;
+				else if (token.text.equals(")"))
+					depth--;
+				else if (depth == 0 && token.type == TokenType.WORD) {
+					Kind kind = kindOf(token.text.toUpperCase(Locale.ROOT));
+					if (kind == Kind.SELECT || kind == Kind.DML)
+						return kind;
+				}
+			}
+			return Kind.OTHER;
+		}
+		return kindOf(first);
+	}
+
+	private static Kind kindOf(String keyword) {
+		switch (keyword) {
+		case "SELECT":
+		case "VALUES":
+			return Kind.SELECT;
+		case "EXPLAIN":
+			return Kind.EXPLAIN;
+		case "PRAGMA":
+			return Kind.PRAGMA;
+		case "INSERT":
+		case "UPDATE":
+		case "DELETE":
+		case "REPLACE":
+			return Kind.DML;
+		case "CREATE":
+		case "DROP":
+		case "ALTER":
+			return Kind.DDL;
+		case "BEGIN":
+		case "COMMIT":
+		case "END":
+		case "ROLLBACK":
+		case "SAVEPOINT":
+		case "RELEASE":
+			return Kind.TRANSACTION;
+		default:
+			return Kind.OTHER;
+		}
+	}
+
+	/**
+	 * unquote - The name of a plain or quoted name token
+	 */
+	static String unquote(Token name) {
+		if (name.type != TokenType.QUOTED)
+			return name.text;
+		String text = name.text.substring(1, name.text.length() - 1);
+		char quote = name.text.charAt(0);
+		return quote == '[' ? text : text.replace("" + quote + quote, "" + quote);
+	}
+
+	/**
+	 * text - The tokens as SQL, one space between two tokens
+	 */
+	static String text(List<Token> tokens) {
+		StringBuilder sb = new StringBuilder();
+		for (Token token : tokens) {
+			if (sb.length() > 0)
+				sb.append(' ');
+			sb.append(token.text);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Parameterized - A statement with its literals turned into parameters, and their values
+	 */
+	static class Parameterized {
+		final String sql;
+		final Object[] values;
+
+		Parameterized(String sql, Object[] values) {
+			this.sql = sql;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * parameterize - The DML statement with its string, BLOB and number literals as ? parameters, so that
+	 * statements that differ only in their literals share one prepared statement. Only the literals of VALUES,
+	 * SET, WHERE and HAVING are values for sure: elsewhere a number may be a column, as in GROUP BY 1, and a
+	 * string a name, as in INSERT INTO 'tbl', so they stay in the text, as do a SET target and a qualified name
+	 * that are strings. A subquery in parentheses has its own clauses. Null if the statement has parameters of
+	 * its own or a RETURNING, whose rows a batch cannot return.
+	 */
+	static Parameterized parameterize(Statement statement) {
+		if (statement.getKind() != Kind.DML)
+			return null;
+		List<Token> tokens = statement.getTokens();
+		StringBuilder sb = new StringBuilder();
+		List<Object> values = new ArrayList<Object>();
+		List<Boolean> outer = new ArrayList<Boolean>(); // the clause state outside the open parentheses
+		boolean literals = false; // in a clause whose literals are values
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			if (token.type == TokenType.PARAM || token.is("RETURNING"))
+				return null;
+			if (token.text.equals("(")) {
+				outer.add(literals);
+			} else if (token.text.equals(")") && !outer.isEmpty()) {
+				literals = outer.remove(outer.size() - 1);
+			} else if (token.type == TokenType.WORD) {
+				String word = token.text.toUpperCase(Locale.ROOT);
+				if (VALUE_CLAUSES.contains(word))
+					literals = true;
+				else if (OTHER_CLAUSES.contains(word))
+					literals = false;
+			}
+			Object value = null;
+			if (literals && !isName(tokens, i)) {
+				switch (token.type) {
+				case STRING:
+					value = token.text.substring(1, token.text.length() - 1).replace("''", "'");
+					break;
+				case BLOB:
+					value = hexBytes(token.text.substring(2, token.text.length() - 1));
+					break;
+				case NUMBER:
+					value = number(token.text);
+					break;
+				default:
+					break;
+				}
+			}
+			if (sb.length() > 0)
+				sb.append(' '); // one space between all tokens, so the same shape always gives the same text
+			if (value == null) {
+				sb.append(token.text);
+			} else {
+				sb.append('?');
+				values.add(value);
+			}
+		}
+		return new Parameterized(sb.toString(), values.toArray());
+	}
+
+	/**
+	 * isName - The string token at position i is a name: qualified, as in 'tbl'.col, or the target of a SET
+	 */
+	private static boolean isName(List<Token> tokens, int i) {
+		if (tokens.get(i).type != TokenType.STRING)
+			return false;
+		String prev = i > 0 ? tokens.get(i - 1).text : "";
+		String next = i + 1 < tokens.size() ? tokens.get(i + 1).text : "";
+		return prev.equals(".") || next.equals(".")
+				|| (next.equals("=") && (prev.equals(",") || prev.equalsIgnoreCase("SET")));
+	}
+
+	/**
+	 * number - The value of a number literal: Long for integers that fit, Double otherwise, null if it is not a
+	 * number
+	 */
+	private static Object number(String text) {
+		try {
+			if (text.startsWith("0x") || text.startsWith("0X"))
+				return Long.parseUnsignedLong(text.substring(2), 16);
+			if (text.matches("\\d+"))
+				return Long.parseLong(text);
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return null; // too big for a long, or not a number at all: leave it in the text
+		}
+	}
+
+	private static byte[] hexBytes(String hex) {
+		if (hex.length() % 2 != 0)
+			return null;
+		byte[] res = new byte[hex.length() / 2];
+		for (int i = 0; i < res.length; i++) {
+			int hi = Character.digit(hex.charAt(2 * i), 16);
+			int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+			if (hi < 0 || lo < 0)
+				return null;
+			res[i] = (byte) (hi << 4 | lo);
+		}
+		return res;
+	}
+}
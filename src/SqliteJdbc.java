@@ -2,7 +2,8 @@
  * 
  * JDBC communication with the SQL database.
  * 
- * This file is self-contained. It can be tested by itself.
+ * This file is self-contained. It can be tested by itself. It does not use JavaFX, so it also runs headless,
+ * like in the command line runner NiSqliteCli; GUI code hears about changes through a Listener.
  * 
  * @since 0.1
  * @author Nick Hatzigeorgiu
@@ -12,52 +13,96 @@
 package nisqlite;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-
-import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @ClassInfo(created = "July 5, 2015", createdBy = "Nick", lastModified = "August 17, 2015", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 1))
 public class SqliteJdbc {
 
+	/**
+	 * Listener - Hears about changes of the database. Called on the thread that noticed the change.
+	 */
+	public interface Listener {
+		/**
+		 * schemaChanged - The schema was read again because PRAGMA schema_version changed
+		 */
+		void schemaChanged(SqliteJdbc sq, SchemaCatalog catalog);
+	}
+
+	// SELECT * FROM table, with a plain or a double quoted table name
+	private static final Pattern BROWSE_PATTERN = Pattern.compile("(?i)select\\s+\\*\\s+from\\s+(?:\"((?:[^\"]|\"\")+)\"|(\\w+))\\s*;?");
+
 	// These parameters contain all the SQL information and results
 	private String filename = "--- Select a file ---"; // SQLite Filename
-	private Connection conn = null; // JDBC connection to DB
-	private boolean dbLoaded = false; // SQLite DB is loaded or not
+	private Connection conn = null; // JDBC connection to DB, the writer of the connection manager
+	private ConnectionManager connections = null; // the writer and the read-only readers
+	private volatile boolean dbLoaded = false; // SQLite DB is loaded or not
 	private String sqlCommand = ""; // SQL command to run
-	private boolean sqlIsSelect = false; // SQL command is SELECT or not, only for select we have a result set
+	private volatile boolean sqlIsSelect = false; // SQL command is SELECT or not, only for select we have a result set
 	private ResultSet rs = null; // The SELECT result set
-	private ObservableList<String> tableList = FXCollections.observableArrayList("");
-	private String sqlResultMessage = ""; // SQL result string
-	private boolean sqlHasError = false; // SQL execution resulted in an error
-	private String sqlErrorMessage = ""; // the error message
+	private final List<String> tableList = new ArrayList<String>(); // tables found by the last getTables
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private volatile String sqlResultMessage = ""; // SQL result string
+	private volatile boolean sqlHasError = false; // SQL execution resulted in an error
+	private volatile String sqlErrorMessage = ""; // the error message
+	private StatementCache statements = null; // prepared statements of the connection
+	private ResultCache results = null; // results of read only queries, dropped on writes
+	private volatile PreparedStatement runningStatement = null; // statement of the last query, its result set may still be read
+	private String runningSql = ""; // SQL of runningStatement, to give it back to the cache
+	private SchemaCatalog catalog = null; // the schema, read again when PRAGMA schema_version changes
+	private volatile long catalogCheckedAt = 0; // when the schema version was last checked, 0 to check now
+	private static final long SCHEMA_CHECK_MILLIS = 2000; // how often to look for schema changes by others
+	private long prepareNanos = 0; // time to get the statement of the last query
+	private long executeNanos = 0; // time to execute the last query, up to its first row
+	private final QueryHistory history = new QueryHistory(); // statements run through runSql, for the index advisor
+	private final TableStats tableStats = new TableStats(this); // sizes and column profiles, kept per schema
+	private volatile QueryPlan plan = null; // EXPLAIN QUERY PLAN of the last statement, null if none
+	private boolean capturePlans = true; // read the plan of every query and write run through runSql
+	private QueryGovernor governor = new QueryGovernor(); // limits of the queries run through runSql
+	private int chunkRows = 0; // rows per chunk of a large UPDATE or DELETE, 0 to run them whole
 
 	public SqliteJdbc() {
 		super();
 	}
 
 	public SqliteJdbc(String path) {
+		this(path, false);
+	}
+
+	/**
+	 * SqliteJdbc - Opens a database, read-only if asked: then nothing of the file is changed, not even its
+	 * journal mode, and every write fails
+	 */
+	public SqliteJdbc(String path, boolean readOnly) {
 		initialize();
-		String fname = "jdbc:sqlite:" + path.replace("\\", "/");
-		if (fname.startsWith("---")) {
+		if (path.startsWith("---")) {
 			return;
 		}
 		try {
-			conn = DriverManager.getConnection(fname);
+			connections = new ConnectionManager(path, ConnectionManager.DEFAULT_READERS, readOnly);
+			conn = connections.getWriter();
 			dbLoaded = true;
 			filename = path;
-			Statement statement = conn.createStatement();
-			ResultSet rsTables = statement.executeQuery("SELECT name FROM sqlite_master WHERE type='table'");
-			rsTables.close();
+			try (Statement statement = conn.createStatement()) {
+				statement.executeQuery("SELECT name FROM sqlite_master WHERE type='table'").close();
+			}
+			statements = connections.getWriterStatements();
+			results = new ResultCache(connections, path, ResultCache.DEFAULT_BUDGET);
 		} catch (SQLException e) {
 			// System.err.println(e.getMessage());
+			if (connections != null)
+				connections.close();
+			connections = null;
 			conn = null;
 			dbLoaded = false;
 			filename = path;
@@ -131,13 +176,205 @@ public class SqliteJdbc {
 	}
 
 	/**
-	 * getTableList
+	 * getTableList - Reads the tables and returns them
 	 * 
 	 * @return tableList
 	 */
-	public final ObservableList<String> getTableList() {
+	public final List<String> getTableList() {
 		getTables();
-		return tableList;
+		return Collections.unmodifiableList(tableList);
+	}
+
+	/**
+	 * addListener
+	 * 
+	 */
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * removeListener
+	 * 
+	 */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * getCatalog - The schema of the database, read again only when PRAGMA schema_version has changed.
+	 * 
+	 * The version is checked after statements run here that may have changed the schema, and otherwise at
+	 * most every couple of seconds, to notice changes made by other processes.
+	 */
+	public synchronized SchemaCatalog getCatalog() throws SQLException {
+		if (!dbLoaded)
+			throw new SQLException("No database loaded");
+		long now = System.currentTimeMillis();
+		if (catalog == null || now - catalogCheckedAt > SCHEMA_CHECK_MILLIS) {
+			SchemaCatalog old = catalog;
+			SchemaCatalog current = read((reader, cache) -> old == null
+					|| SchemaCatalog.getSchemaVersion(reader) != old.getSchemaVersion()
+							? SchemaCatalog.load(reader, hasReaders() && reader.getAutoCommit()) : old);
+			if (current != old) {
+				boolean changed = old != null;
+				catalog = current;
+				if (changed) {
+					for (Listener listener : listeners) {
+						listener.schemaChanged(this, catalog);
+					}
+				}
+			}
+			catalogCheckedAt = now;
+		}
+		return catalog;
+	}
+
+	/**
+	 * invalidateCatalog - Makes the next getCatalog check the schema version, after the schema may have changed
+	 * 
+	 */
+	public void invalidateCatalog() {
+		catalogCheckedAt = 0;
+	}
+
+	/**
+	 * invalidateResults - Drops the cached results, after a write that did not go through runSql
+	 * 
+	 */
+	public void invalidateResults() {
+		ResultCache cache = results;
+		if (cache != null)
+			cache.clear();
+	}
+
+	/**
+	 * runCached - Answers a SELECT from the result cache. On a hit the state is set as if runSql had run it
+	 * and the cached rows are returned; on a miss nothing changes and null is returned.
+	 * 
+	 */
+	public ResultStore runCached(String sql) {
+		sql = sql.trim();
+		ResultCache cache = results;
+		if (!dbLoaded || cache == null || !isCacheableQuery(sql))
+			return null;
+		ResultStore cached = (ResultStore) cache.get(StatementCache.normalize(sql));
+		if (cached == null)
+			return null;
+		initialize();
+		sqlCommand = sql;
+		sqlIsSelect = true;
+		sqlResultMessage = "OK";
+		return cached;
+	}
+
+	/**
+	 * cacheResult - Keeps all the rows of a SELECT that ran through runSql, for runCached
+	 * 
+	 */
+	public void cacheResult(String sql, ResultStore store) {
+		ResultCache cache = results;
+		if (cache != null && isCacheableQuery(sql.trim()))
+			cache.put(StatementCache.normalize(sql), store, store.getByteSize());
+	}
+
+	/**
+	 * getResultCache
+	 * 
+	 * @return results
+	 */
+	public ResultCache getResultCache() {
+		return results;
+	}
+
+	/**
+	 * getConnection - The JDBC connection, for the jobs that run their own statements (import, export)
+	 * 
+	 * @return conn
+	 */
+	public Connection getConnection() throws SQLException {
+		if (!dbLoaded)
+			throw new SQLException("No database loaded");
+		return conn;
+	}
+
+	/**
+	 * getConnectionManager - The writer and the readers of the database, null if none is loaded
+	 * 
+	 * @return connections
+	 */
+	public ConnectionManager getConnectionManager() {
+		return connections;
+	}
+
+	/**
+	 * hasReaders - Reads can run on readers in parallel with the query worker. Without readers they run on the
+	 * writer, so they have to be queued on the query worker.
+	 */
+	public boolean hasReaders() {
+		ConnectionManager manager = connections;
+		return manager != null && manager.getReaderCount() > 0;
+	}
+
+	/**
+	 * acquireReader - Borrows a read-only connection, for the jobs that run their own statements (export). It
+	 * must be given back with releaseReader.
+	 */
+	public ConnectionManager.Reader acquireReader() throws SQLException {
+		ConnectionManager manager = connections;
+		if (!dbLoaded || manager == null)
+			throw new SQLException("No database loaded");
+		return manager.acquireReader();
+	}
+
+	/**
+	 * releaseReader - Gives back a borrowed reader
+	 */
+	public void releaseReader(ConnectionManager.Reader reader) {
+		ConnectionManager manager = connections;
+		if (manager != null)
+			manager.releaseReader(reader);
+		else if (reader != null)
+			reader.close(); // the database was closed while it was borrowed
+	}
+
+	/**
+	 * ReadJob - Reads with a borrowed connection and its statement cache
+	 */
+	interface ReadJob<T> {
+		T run(Connection reader, StatementCache statements) throws SQLException;
+	}
+
+	/**
+	 * read - Runs a read job on a reader
+	 */
+	<T> T read(ReadJob<T> job) throws SQLException {
+		ConnectionManager.Reader reader = acquireReader();
+		try {
+			return job.run(reader.getConnection(), reader.getStatementCache());
+		} finally {
+			releaseReader(reader);
+		}
+	}
+
+	/**
+	 * acquire - Borrows a prepared statement from the cache of the connection
+	 * 
+	 */
+	private PreparedStatement acquire(String sql) throws SQLException {
+		StatementCache cache = statements;
+		if (!dbLoaded || cache == null)
+			throw new SQLException("No database loaded");
+		return cache.acquire(sql);
+	}
+
+	/**
+	 * getStatementCache
+	 * 
+	 * @return statements
+	 */
+	public StatementCache getStatementCache() {
+		return statements;
 	}
 
 	/**
@@ -149,41 +386,105 @@ public class SqliteJdbc {
 		return rs;
 	}
 
+	/**
+	 * getPrepareNanos - Time to get the prepared statement of the last query, from the cache or SQLite
+	 * 
+	 * @return prepareNanos
+	 */
+	public long getPrepareNanos() {
+		return prepareNanos;
+	}
+
+	/**
+	 * getExecuteNanos - Time to execute the last query. For a SELECT that is up to its first step.
+	 * 
+	 * @return executeNanos
+	 */
+	public long getExecuteNanos() {
+		return executeNanos;
+	}
+
 	/**
 	 * initialize - Initializes all parameters for a new connection
 	 * 
 	 */
 	public void initialize() {
+		releaseStatement();
 		sqlCommand = "";
 		sqlIsSelect = false;
 		rs = null;
 		sqlResultMessage = "";
 		sqlHasError = false;
 		sqlErrorMessage = "";
+		prepareNanos = 0;
+		plan = null;
+		executeNanos = 0;
 		tableList.clear();
 	}
 
 	/**
-	 * close - Closes the connection
+	 * releaseStatement - Closes the result set of the last query and gives its statement back to the cache
 	 * 
 	 */
-	public void close() {
-		if (dbLoaded) {
+	private void releaseStatement() {
+		if (rs != null) {
 			try {
-				conn.close();
+				rs.close();
 			} catch (SQLException e) {
 				System.err.println(e.getMessage());
 			}
+			rs = null;
+		}
+		PreparedStatement statement = runningStatement;
+		runningStatement = null;
+		if (statement != null && statements != null) {
+			statements.release(runningSql, statement);
+		}
+		governor.finish();
+	}
+
+	/**
+	 * endFetch - The rows of the last query are read: closes its result set and gives its statement back, so
+	 * cancel does not interrupt what runs on the writer after it
+	 */
+	public void endFetch() {
+		releaseStatement();
+	}
+
+	/**
+	 * close - Closes the connection
+	 * 
+	 */
+	public void close() {
+		tableStats.cancel();
+		releaseStatement();
+		statements = null;
+		results = null;
+		if (connections != null) {
+			connections.close();
+			connections = null;
 		}
 		conn = null;
 		dbLoaded = false;
 		filename = "";
+		catalog = null;
 		initialize();
 	}
 
-	public StringProperty getTablesString() {
-		return (StringProperty) tableList;
-
+	/**
+	 * cancel - Interrupts the last query, while it executes or while its result set is being read.
+	 * 
+	 * Can be called from any thread. SQLite stops the query at its next opcode.
+	 */
+	public void cancel() {
+		Statement statement = runningStatement;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
 	}
 
 	/**
@@ -193,17 +494,8 @@ public class SqliteJdbc {
 	public void getTables() {
 		tableList.clear();
 		if (dbLoaded) {
-			Statement statement;
 			try {
-				statement = conn.createStatement();
-				statement.setQueryTimeout(30); // set timeout to 30 sec.
-				ResultSet rsTables = statement.executeQuery("SELECT name FROM sqlite_master WHERE type='table'");
-				while (rsTables.next()) {
-					String s = rsTables.getString("name");
-					if (!s.equals("sqlite_sequence")) {
-						tableList.add(s);
-					}
-				}
+				tableList.addAll(getCatalog().getTableNames());
 			} catch (SQLException e) {
 				// Something went wrong, initialize and report
 				initialize();
@@ -213,14 +505,20 @@ public class SqliteJdbc {
 	}
 
 	/**
-	 * isSelect - Returns true if it is a SELECT query
+	 * isSelect - Returns true if the statement may return rows: SELECT, VALUES, WITH ... SELECT, EXPLAIN or
+	 * PRAGMA. Whether it did is told by Statement.execute.
 	 * 
 	 */
 	public boolean isSelect(String sql) {
-		boolean result = false;
-		if (sql.trim().toLowerCase().startsWith("select"))
-			result = true;
-		return result;
+		return SqlScript.classify(sql).mayReturnRows();
+	}
+
+	/**
+	 * isCacheableQuery - A plain query whose rows can go to the result cache; not PRAGMA or EXPLAIN, whose rows
+	 * are not the data
+	 */
+	private static boolean isCacheableQuery(String sql) {
+		return SqlScript.classify(sql) == SqlScript.Kind.SELECT && ResultCache.isCacheable(sql);
 	}
 
 	/**
@@ -231,20 +529,32 @@ public class SqliteJdbc {
 		List<String> res = new ArrayList<String>();
 		if (!isLoaded())
 			return res;
+		try {
+			SchemaCatalog.Table table = getCatalog().getTable(tablename);
+			if (table != null)
+				return table.getColumnNames();
+		} catch (SQLException e) {
+			System.err.println(e.getMessage());
+		}
 		String sql = "select * from " + tablename + " LIMIT 0";
-		Statement statement;
 		try {
-			statement = conn.createStatement();
-			ResultSet rsFields = statement.executeQuery(sql);
-			ResultSetMetaData mrs = rsFields.getMetaData();
-			for (int i = 1; i <= mrs.getColumnCount(); i++) {
-				Object row[] = new Object[3];
-				row[0] = mrs.getColumnLabel(i);
-				/*
-				 * row[1] = mrs.getColumnTypeName(i); row[2] = mrs.getPrecision(i);
-				 */
-				res.add(row[0].toString());
-			}
+			read((reader, cache) -> {
+				PreparedStatement statement = cache.acquire(sql);
+				try (ResultSet rsFields = statement.executeQuery()) {
+					ResultSetMetaData mrs = rsFields.getMetaData();
+					for (int i = 1; i <= mrs.getColumnCount(); i++) {
+						Object row[] = new Object[3];
+						row[0] = mrs.getColumnLabel(i);
+						/*
+						 * row[1] = mrs.getColumnTypeName(i); row[2] = mrs.getPrecision(i);
+						 */
+						res.add(row[0].toString());
+					}
+				} finally {
+					cache.release(sql, statement);
+				}
+				return res;
+			});
 		} catch (SQLException e) {
 			// Something went wrong, initialize and report
 			initialize();
@@ -261,7 +571,9 @@ public class SqliteJdbc {
 		String sql = "select * from " + tablename;
 		Statement statement;
 		try {
+			// The caller owns the result set, the statement goes away when it is closed
 			statement = conn.createStatement();
+			statement.closeOnCompletion();
 			lc = statement.executeQuery(sql);
 
 		} catch (SQLException e) {
@@ -271,6 +583,258 @@ public class SqliteJdbc {
 		return lc;
 	}
 
+	/**
+	 * quote - Quotes an identifier (table or column name) for use in SQL
+	 * 
+	 */
+	public static String quote(String identifier) {
+		return "\"" + identifier.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * getBrowseTable - Returns the table name if the SQL is a plain "SELECT * FROM table", null otherwise
+	 * 
+	 */
+	public String getBrowseTable(String sql) {
+		Matcher m = BROWSE_PATTERN.matcher(sql.trim());
+		if (!m.matches())
+			return null;
+		String name = m.group(1) != null ? m.group(1).replace("\"\"", "\"") : m.group(2);
+		for (String table : getTableList()) {
+			if (table.equalsIgnoreCase(name))
+				return table;
+		}
+		return null;
+	}
+
+	/**
+	 * chunked - A run of the statement in chunks of chunkRows rows, each committed on its own, or null if
+	 * chunked runs are off or it is not an UPDATE or DELETE that can be chunked
+	 * 
+	 */
+	public ChunkedDml chunked(String sql) {
+		if (chunkRows <= 0 || !isLoaded())
+			return null;
+		return ChunkedDml.parse(this, sql, chunkRows);
+	}
+
+	/**
+	 * setChunkRows - Rows per chunk of a large UPDATE or DELETE, 0 to run them as one statement
+	 * 
+	 */
+	public void setChunkRows(int chunkRows) {
+		this.chunkRows = Math.max(0, chunkRows);
+	}
+
+	/**
+	 * getChunkRows
+	 * 
+	 * @return chunkRows
+	 */
+	public int getChunkRows() {
+		return chunkRows;
+	}
+
+	/**
+	 * hasRowid - Returns true if the table can be read in rowid order (not a view or a WITHOUT ROWID table)
+	 * 
+	 */
+	public boolean hasRowid(String tablename) {
+		if (!isLoaded())
+			return false;
+		try {
+			SchemaCatalog.Table table = getCatalog().getTable(tablename);
+			return table != null && table.hasRowid();
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * getRowids - Gets up to limit rowids of a table that are greater than afterRowid, in rowid order.
+	 * 
+	 * The query only needs the rowid, so SQLite reads the smallest index instead of the whole table. The rowids
+	 * are not kept in the ResultCache: they are read once per scan, and would only evict the results of queries.
+	 */
+	public long[] getRowids(String tablename, long afterRowid, int limit) throws SQLException {
+		String sql = "SELECT rowid FROM " + quote(tablename) + " WHERE rowid > ? ORDER BY rowid LIMIT ?";
+		return read((reader, statementCache) -> {
+			PreparedStatement statement = statementCache.acquire(sql);
+			long[] res = new long[limit];
+			int n = 0;
+			try {
+				statement.setLong(1, afterRowid);
+				statement.setInt(2, limit);
+				try (ResultSet rsRowids = statement.executeQuery()) {
+					while (rsRowids.next()) {
+						res[n++] = rsRowids.getLong(1);
+					}
+				}
+			} finally {
+				statementCache.release(sql, statement);
+			}
+			return Arrays.copyOf(res, n);
+		});
+	}
+
+	/**
+	 * getRowidRange - Gets the rowids of a table from fromRowid to toRowid, both included, in rowid order.
+	 * This is the part of a parallel scan, which splits the table by rowid. Like getRowids, it is not cached.
+	 */
+	public long[] getRowidRange(String tablename, long fromRowid, long toRowid) throws SQLException {
+		if (toRowid < fromRowid)
+			return new long[0];
+		String sql = "SELECT rowid FROM " + quote(tablename) + " WHERE rowid BETWEEN ? AND ? ORDER BY rowid";
+		long span = toRowid - fromRowid + 1; // negative when it overflows
+		int capacity = span > 0 && span < 1024 ? (int) span : 1024;
+		return read((reader, statementCache) -> {
+			PreparedStatement statement = statementCache.acquire(sql);
+			long[] res = new long[capacity];
+			int n = 0;
+			try {
+				statement.setLong(1, fromRowid);
+				statement.setLong(2, toRowid);
+				try (ResultSet rsRowids = statement.executeQuery()) {
+					while (rsRowids.next()) {
+						if (n == res.length)
+							res = Arrays.copyOf(res, n * 2);
+						res[n++] = rsRowids.getLong(1);
+					}
+				}
+			} finally {
+				statementCache.release(sql, statement);
+			}
+			return Arrays.copyOf(res, n);
+		});
+	}
+
+	/**
+	 * getWindow - Gets up to limit rows of a table, starting at fromRowid, in rowid order.
+	 * 
+	 * Column 0 of the result is the rowid, the previews of the table columns follow, so large BLOB and TEXT
+	 * values are not read (see LargeValue). This is keyset pagination: SQLite seeks straight to fromRowid, the
+	 * cost does not grow with the position in the table as it does with OFFSET. The timing of every read goes to
+	 * the query metrics, as that of a query does.
+	 */
+	public ResultStore getWindow(String tablename, long fromRowid, int limit) throws SQLException {
+		String sql = "SELECT rowid, " + LargeValue.previewColumns(getFields(tablename)) + " FROM " + quote(tablename)
+				+ " WHERE rowid >= ? ORDER BY rowid LIMIT ?";
+		String key = sql + " -- " + fromRowid + ", " + limit;
+		QueryTiming timing = new QueryTiming(sql);
+		long t0 = System.nanoTime();
+		ResultCache cache = results;
+		ResultStore cached = cache != null ? (ResultStore) cache.get(key) : null;
+		if (cached != null) {
+			timing.setCached(true);
+			timing.setFetchNanos(System.nanoTime() - t0);
+			recordWindow(timing, cached);
+			return cached;
+		}
+		ResultStore res = read((reader, statementCache) -> {
+			long start = System.nanoTime();
+			PreparedStatement statement = statementCache.acquire(sql);
+			try {
+				statement.setLong(1, fromRowid);
+				statement.setInt(2, limit);
+				long executed = System.nanoTime();
+				timing.setPrepareNanos(executed - start);
+				try (ResultSet rsWindow = statement.executeQuery()) {
+					long fetched = System.nanoTime();
+					timing.setExecuteNanos(fetched - executed);
+					ResultStore window = ResultStore.forResultSet(rsWindow);
+					while (rsWindow.next()) {
+						window.addRow(rsWindow);
+						if (window.getRowCount() == 1)
+							timing.setFirstRowNanos(System.nanoTime() - fetched);
+					}
+					timing.setFetchNanos(System.nanoTime() - fetched);
+					return window;
+				}
+			} finally {
+				statementCache.release(sql, statement);
+			}
+		});
+		if (cache != null)
+			cache.put(key, res, res.getByteSize());
+		recordWindow(timing, res);
+		return res;
+	}
+
+	/**
+	 * recordWindow - Adds the timing of a window read to the query metrics, where the windows of a table share
+	 * one shape
+	 */
+	private static void recordWindow(QueryTiming timing, ResultStore window) {
+		timing.setRows(window.getRowCount());
+		timing.setBytes(window.getByteSize());
+		QueryMetrics.getInstance().record(timing);
+	}
+
+	/**
+	 * recordPlan - Reads the plan of the statement that ran and adds it to the history. A statement is only
+	 * prepared for its plan, not run again.
+	 * 
+	 */
+	private void recordPlan(String sql) {
+		try {
+			plan = QueryPlan.explain(conn, sql);
+		} catch (SQLException e) {
+			plan = null; // the plan is not worth an error of the statement
+		}
+		history.record(sql, prepareNanos + executeNanos, plan);
+	}
+
+	/**
+	 * getPlan - The EXPLAIN QUERY PLAN of the last query or write run through runSql, null if none was read
+	 * 
+	 * @return plan
+	 */
+	public QueryPlan getPlan() {
+		return plan;
+	}
+
+	/**
+	 * getHistory - The queries and writes run through runSql
+	 * 
+	 * @return history
+	 */
+	public QueryHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * getTableStats - The sizes and column profiles of the tables, gathered by its collect
+	 * 
+	 * @return tableStats
+	 */
+	public TableStats getTableStats() {
+		return tableStats;
+	}
+
+	/**
+	 * getGovernor - The limits of the queries run through runSql
+	 *
+	 * @return governor
+	 */
+	public QueryGovernor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * setGovernor - Shares the limits of another database, the GUI keeps one set for all the files it opens
+	 */
+	public void setGovernor(QueryGovernor governor) {
+		this.governor = governor;
+	}
+
+	/**
+	 * setCapturePlans - Reads the plan of every query and write run through runSql, on by default
+	 * 
+	 */
+	public void setCapturePlans(boolean capturePlans) {
+		this.capturePlans = capturePlans;
+	}
+
 	/**
 	 * runSql - Runs an SQL query
 	 * 
@@ -280,31 +844,61 @@ public class SqliteJdbc {
 		sql = sql.trim();
 		sqlCommand = sql;
 		if (dbLoaded) {
-			Statement statement;
+			PreparedStatement statement;
+			SqlScript.Kind kind = SqlScript.classify(sql);
 			try {
-				statement = conn.createStatement();
-				statement.setQueryTimeout(30); // set timeout to 30 sec.
-				if (isSelect(sql)) { // SELECT query
+				long t0 = System.nanoTime();
+				statement = acquire(sql);
+				long t1 = System.nanoTime();
+				prepareNanos = t1 - t0;
+				runningSql = sql;
+				runningStatement = statement;
+				if (kind.mayReturnRows())
+					governor.start(conn); // until the rows are read, see QueryTask
+				else
+					governor.finish(); // writes are not stopped by the limits of a query
+				if (statement.execute()) { // it returned rows: SELECT, PRAGMA, EXPLAIN, WITH ... SELECT
 					sqlIsSelect = true;
-					rs = statement.executeQuery(sql);
+					rs = statement.getResultSet();
+					executeNanos = System.nanoTime() - t1;
 					sqlResultMessage = "OK";
 					sqlHasError = false;
 					sqlErrorMessage = "";
-				} else {// not a SELECT query (UPDATE, INSERT, ALTER etc)
+				} else {// no rows (UPDATE, INSERT, ALTER etc)
 					sqlIsSelect = false;
-					statement.execute(sql);
+					executeNanos = System.nanoTime() - t1;
 					rs = null;
+					releaseStatement();
 					sqlResultMessage = "OK";
 					sqlHasError = false;
 					sqlErrorMessage = "";
 				}
+				if (kind != SqlScript.Kind.SELECT) { // it may have written or changed the schema
+					invalidateCatalog();
+					invalidateResults();
+				}
+				if (capturePlans && (kind == SqlScript.Kind.SELECT || kind == SqlScript.Kind.DML))
+					recordPlan(sql);
 			} catch (SQLException e) {
 				sqlResultMessage = "Error";
 				sqlHasError = true;
 				sqlErrorMessage = e.getMessage();
-				if (sqlErrorMessage.startsWith("[SQLITE_NOTADB]")) { // db is not loaded
+				if (kind.mayReturnRows() && governor.getLimit() == QueryGovernor.Limit.TIME) {
+					sqlErrorMessage = "Stopped at " + governor.describe(QueryGovernor.Limit.TIME)
+							+ " (Query > Query Limits... to change it)";
+				}
+				releaseStatement();
+				if (sqlErrorMessage.startsWith("[SQLITE_NOTADB]")) { // db is not loaded, closed as close() does
+					tableStats.cancel();
 					rs = null;
+					statements = null;
+					results = null;
+					if (connections != null) {
+						connections.close(); // the writer with its statements, the readers and the monitor
+						connections = null;
+					}
 					conn = null;
+					catalog = null;
 					dbLoaded = false;
 				}
 			}
@@ -0,0 +1,166 @@
+/** StatementCache.java
+ *
+ * A bounded cache of prepared statements for one connection.
+ *
+ * Statements are borrowed with acquire and given back with release. A borrowed statement belongs to the
+ * borrower until it is released, so a statement whose result set is still being read is never handed out
+ * twice. Idle statements are kept in least recently used order; the oldest one is closed when the cache is
+ * full, and all of them are closed with the cache.
+ *
+ * The key is the SQL text as tokens, without comments, so the same query typed with different spacing or
+ * comments reuses the same statement.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class StatementCache {
+
+	public static final int DEFAULT_CAPACITY = 64; // idle statements kept per connection
+
+	private final Connection conn;
+	private final int capacity;
+	private final LinkedHashMap<String, PreparedStatement> idle; // idle statements, least recently used first
+	private boolean closed = false;
+	private long hits = 0; // statements reused
+	private long misses = 0; // statements prepared
+	private long evictions = 0; // idle statements closed to make room
+
+	public StatementCache(Connection conn, int capacity) {
+		this.conn = conn;
+		this.capacity = capacity;
+		this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= StatementCache.this.capacity)
+					return false;
+				evictions++;
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * acquire - Borrows a prepared statement for the SQL, preparing it if there is no idle one
+	 */
+	public synchronized PreparedStatement acquire(String sql) throws SQLException {
+		if (closed)
+			throw new SQLException("Statement cache is closed");
+		PreparedStatement statement = idle.remove(normalize(sql));
+		if (statement != null && !statement.isClosed()) {
+			hits++;
+			return statement;
+		}
+		misses++;
+		return conn.prepareStatement(sql);
+	}
+
+	/**
+	 * release - Gives back a borrowed statement. Its result set must be closed.
+	 */
+	public synchronized void release(String sql, PreparedStatement statement) {
+		if (statement == null)
+			return;
+		String key = normalize(sql);
+		if (closed || idle.containsKey(key)) {
+			closeQuietly(statement); // the cache is closed, or an idle copy is already kept
+			return;
+		}
+		try {
+			if (statement.isClosed())
+				return;
+			statement.clearParameters();
+		} catch (SQLException e) {
+			closeQuietly(statement);
+			return;
+		}
+		idle.put(key, statement);
+	}
+
+	/**
+	 * close - Closes all idle statements. Statements released later are closed right away.
+	 */
+	public synchronized void close() {
+		closed = true;
+		for (PreparedStatement statement : idle.values()) {
+			closeQuietly(statement);
+		}
+		idle.clear();
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * normalize - The cache key of an SQL text: its tokens without comments and the trailing semicolons, one
+	 * space between two tokens. The lexer of SqlScript keeps literals and quoted names as they are, so only SQL
+	 * that differs in its spaces and comments shares a key.
+	 */
+	public static String normalize(String sql) {
+		List<SqlScript.Token> tokens = SqlScript.tokens(sql);
+		int end = tokens.size();
+		while (end > 0 && tokens.get(end - 1).type == SqlScript.TokenType.SEMICOLON) {
+			end--;
+		}
+		return SqlScript.text(tokens.subList(0, end));
+	}
+
+	/**
+	 * getHits
+	 *
+	 * @return hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * getMisses
+	 *
+	 * @return misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * getEvictions
+	 *
+	 * @return evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * getIdleCount - Idle statements in the cache
+	 */
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Statements: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, " + idle.size()
+				+ " idle";
+	}
+}
@@ -0,0 +1,449 @@
+/** TableStats.java
+ *
+ * The size of every table of a database, and a profile of its columns, gathered in the background.
+ *
+ * First the pages and bytes of every table and of its indexes are read from the dbstat virtual table, with
+ * the rows estimated from the cells of its leaf pages. Without dbstat the rows come from sqlite_stat1, if
+ * ANALYZE was run, and the sizes stay unknown. Both are quick, so the big tables are known before any is
+ * read. Then every table, the smallest first, is read once from start to end: the exact rows, and for every
+ * column its NULLs, its smallest and largest value and an approximate count of its distinct values, with a
+ * HyperLogLog. Every table borrows a reader on its own, so the windows and the queries get readers in
+ * between.
+ *
+ * The statistics are kept until the schema changes, by PRAGMA schema_version; rows written since are not
+ * counted until clear is called.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class TableStats {
+
+	private static final int MAX_SHOWN = 40; // characters of a smallest or largest text value shown
+
+	/**
+	 * Listener - Gets the statistics of a table, first estimated and then again once the table was read
+	 */
+	public interface Listener {
+		void tableStats(Table table);
+	}
+
+	/**
+	 * Column - The profile of one column
+	 */
+	public static class Column {
+		private final String name;
+		private long rows = 0;
+		private long nulls = 0;
+		private long blobs = 0;
+		private Object min = null; // smallest number or text, blobs left out
+		private Object max = null;
+		private final HyperLogLog distinct = new HyperLogLog();
+
+		Column(String name) {
+			this.name = name;
+		}
+
+		private void add(Object value) {
+			rows++;
+			if (value == null) {
+				nulls++;
+				return;
+			}
+			if (value instanceof Integer)
+				value = ((Integer) value).longValue();
+			distinct.add(value);
+			if (value instanceof byte[]) {
+				blobs++;
+			} else {
+				if (min == null || ShardSession.compareValues(value, min) < 0)
+					min = value;
+				if (max == null || ShardSession.compareValues(value, max) > 0)
+					max = value;
+			}
+		}
+
+		/**
+		 * getName
+		 *
+		 * @return name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * getNulls
+		 *
+		 * @return nulls
+		 */
+		public long getNulls() {
+			return nulls;
+		}
+
+		/**
+		 * getNullRatio - Part of the rows that are NULL, from 0 to 1
+		 */
+		public double getNullRatio() {
+			return rows == 0 ? 0 : (double) nulls / rows;
+		}
+
+		/**
+		 * getBlobs - Rows that hold a blob
+		 *
+		 * @return blobs
+		 */
+		public long getBlobs() {
+			return blobs;
+		}
+
+		/**
+		 * getMin - The smallest value that is not a blob, null if there is none
+		 *
+		 * @return min
+		 */
+		public Object getMin() {
+			return min;
+		}
+
+		/**
+		 * getMax - The largest value that is not a blob, null if there is none
+		 *
+		 * @return max
+		 */
+		public Object getMax() {
+			return max;
+		}
+
+		/**
+		 * getDistinct - Approximate number of distinct values, NULL not counted
+		 */
+		public long getDistinct() {
+			return Math.min(distinct.estimate(), rows - nulls);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(name).append(": ");
+			sb.append(String.format("%.0f%% NULL, ~%d distinct", getNullRatio() * 100, getDistinct()));
+			if (min != null)
+				sb.append(", ").append(shown(min)).append(" .. ").append(shown(max));
+			if (blobs > 0)
+				sb.append(", ").append(blobs).append(" blobs");
+			return sb.toString();
+		}
+
+		private static String shown(Object value) {
+			String s = value.toString();
+			if (!(value instanceof String))
+				return s;
+			return "'" + (s.length() > MAX_SHOWN ? s.substring(0, MAX_SHOWN) + "..." : s) + "'";
+		}
+	}
+
+	/**
+	 * Table - The size and the profile of one table
+	 */
+	public static class Table {
+		private final String name;
+		private final long rows; // -1 if not known yet
+		private final boolean exact; // rows were counted, not estimated, and the columns profiled
+		private final long pages; // -1 if dbstat is missing
+		private final long bytes; // of the table, -1 if dbstat is missing
+		private final long indexBytes; // of its indexes, -1 if dbstat is missing
+		private final List<Column> columns;
+
+		Table(String name, long rows, boolean exact, long pages, long bytes, long indexBytes, List<Column> columns) {
+			this.name = name;
+			this.rows = rows;
+			this.exact = exact;
+			this.pages = pages;
+			this.bytes = bytes;
+			this.indexBytes = indexBytes;
+			this.columns = Collections.unmodifiableList(columns);
+		}
+
+		/**
+		 * getName
+		 *
+		 * @return name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * getRows - Rows of the table, -1 if not known yet
+		 *
+		 * @return rows
+		 */
+		public long getRows() {
+			return rows;
+		}
+
+		/**
+		 * isExact - The rows were counted and the columns profiled, not only estimated
+		 *
+		 * @return exact
+		 */
+		public boolean isExact() {
+			return exact;
+		}
+
+		/**
+		 * getPages - Pages of the table, without its indexes, -1 if not known
+		 *
+		 * @return pages
+		 */
+		public long getPages() {
+			return pages;
+		}
+
+		/**
+		 * getBytes - Bytes of the pages of the table, -1 if not known
+		 *
+		 * @return bytes
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * getIndexBytes - Bytes of the pages of the indexes of the table, -1 if not known
+		 *
+		 * @return indexBytes
+		 */
+		public long getIndexBytes() {
+			return indexBytes;
+		}
+
+		/**
+		 * getColumns - The column profiles, empty until the table was read
+		 *
+		 * @return columns
+		 */
+		public List<Column> getColumns() {
+			return columns;
+		}
+
+		/**
+		 * getSummary - Rows and size in a few words, like "1,000,000 rows, 41.2 MB"
+		 */
+		public String getSummary() {
+			String res = rows < 0 ? "? rows" : (exact ? "" : "~") + String.format("%,d rows", rows);
+			if (bytes >= 0)
+				res += ", " + size(bytes + Math.max(0, indexBytes));
+			return res;
+		}
+
+		private static String size(long bytes) {
+			if (bytes < 1024 * 1024)
+				return String.format("%.1f KB", bytes / 1024.0);
+			if (bytes < 1024L * 1024 * 1024)
+				return String.format("%.1f MB", bytes / (1024.0 * 1024));
+			return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(name).append(": ").append(getSummary());
+			if (bytes >= 0)
+				sb.append("\n").append(pages).append(" pages, table ").append(size(bytes)).append(", indexes ")
+						.append(size(Math.max(0, indexBytes)));
+			for (Column column : columns) {
+				sb.append("\n").append(column);
+			}
+			return sb.toString();
+		}
+	}
+
+	private final SqliteJdbc sq;
+	private final Map<String, Table> tables = new HashMap<String, Table>();
+	private long schemaVersion = -1; // of the statistics kept
+	private volatile boolean cancelled = false;
+	private volatile Statement running = null; // statement reading a table now, for cancel
+
+	public TableStats(SqliteJdbc sq) {
+		this.sq = sq;
+	}
+
+	/**
+	 * collect - Gathers the statistics of the tables that have none for this schema yet. The listener gets
+	 * every table twice, estimated and read.
+	 */
+	public void collect(Listener listener) throws SQLException {
+		SchemaCatalog catalog = sq.getCatalog();
+		List<SchemaCatalog.Table> todo = new ArrayList<SchemaCatalog.Table>();
+		synchronized (this) {
+			if (catalog.getSchemaVersion() != schemaVersion) {
+				tables.clear();
+				schemaVersion = catalog.getSchemaVersion();
+			}
+			for (SchemaCatalog.Table table : catalog.getTables()) {
+				Table old = tables.get(table.name);
+				if (!table.isView() && (old == null || !old.exact))
+					todo.add(table);
+			}
+		}
+		if (todo.isEmpty())
+			return;
+
+		Map<String, Table> estimates = sq.read((reader, statements) -> estimate(reader, todo));
+		for (SchemaCatalog.Table table : todo) {
+			Table estimate = estimates.get(table.name);
+			put(estimate);
+			listener.tableStats(estimate);
+		}
+		todo.sort((a, b) -> Long.compare(estimates.get(a.name).bytes + estimates.get(a.name).rows,
+				estimates.get(b.name).bytes + estimates.get(b.name).rows));
+		for (SchemaCatalog.Table table : todo) {
+			if (cancelled)
+				break;
+			Table estimate = estimates.get(table.name);
+			Table profile = sq.read((reader, statements) -> profile(reader, estimate));
+			if (profile == null)
+				break; // cancelled
+			put(profile);
+			listener.tableStats(profile);
+		}
+	}
+
+	private synchronized void put(Table table) {
+		tables.put(table.name, table);
+	}
+
+	/**
+	 * estimate - Sizes from dbstat, or rows from sqlite_stat1 without it
+	 */
+	private static Map<String, Table> estimate(Connection conn, List<SchemaCatalog.Table> todo) {
+		Map<String, long[]> sizes = new HashMap<String, long[]>(); // name: leaf cells, pages, bytes
+		boolean dbstat = true;
+		try (Statement statement = conn.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT name, sum(CASE WHEN pagetype = 'leaf' THEN ncell "
+						+ "ELSE 0 END), count(*), sum(pgsize) FROM dbstat GROUP BY name")) {
+			while (rs.next()) {
+				sizes.put(rs.getString(1), new long[] { rs.getLong(2), rs.getLong(3), rs.getLong(4) });
+			}
+		} catch (SQLException e) {
+			dbstat = false; // SQLite built without SQLITE_ENABLE_DBSTAT_VTAB
+		}
+		Map<String, Long> stat1 = new HashMap<String, Long>();
+		if (!dbstat) {
+			try (Statement statement = conn.createStatement();
+					ResultSet rs = statement.executeQuery("SELECT tbl, stat FROM sqlite_stat1")) {
+				while (rs.next()) {
+					String stat = rs.getString(2);
+					if (stat != null && !stat.isEmpty())
+						stat1.put(rs.getString(1), Long.parseLong(stat.split(" ")[0]));
+				}
+			} catch (SQLException | NumberFormatException e) {
+				// never analyzed
+			}
+		}
+
+		Map<String, Table> res = new HashMap<String, Table>();
+		for (SchemaCatalog.Table table : todo) {
+			long[] size = sizes.get(table.name);
+			if (!dbstat || size == null) {
+				Long rows = stat1.get(table.name);
+				res.put(table.name, new Table(table.name, rows != null ? rows : -1, false, -1, -1, -1,
+						new ArrayList<Column>()));
+				continue;
+			}
+			long indexBytes = 0;
+			for (SchemaCatalog.Index index : table.indexes) {
+				long[] indexSize = sizes.get(index.name);
+				if (indexSize != null)
+					indexBytes += indexSize[2];
+			}
+			res.put(table.name, new Table(table.name, size[0], false, size[1], size[2], indexBytes,
+					new ArrayList<Column>()));
+		}
+		return res;
+	}
+
+	/**
+	 * profile - Reads the table once, and counts its rows and profiles its columns. Null when cancelled.
+	 */
+	private Table profile(Connection conn, Table estimate) throws SQLException {
+		List<Column> columns = new ArrayList<Column>();
+		long rows = 0;
+		try (Statement statement = conn.createStatement()) {
+			running = statement;
+			if (cancelled)
+				return null;
+			try (ResultSet rs = statement.executeQuery("SELECT * FROM " + SqliteJdbc.quote(estimate.name))) {
+				ResultSetMetaData meta = rs.getMetaData();
+				int count = meta.getColumnCount();
+				for (int i = 1; i <= count; i++) {
+					columns.add(new Column(meta.getColumnName(i)));
+				}
+				while (rs.next()) {
+					for (int i = 0; i < count; i++) {
+						columns.get(i).add(rs.getObject(i + 1));
+					}
+					rows++;
+				}
+			}
+		} catch (SQLException e) {
+			if (cancelled)
+				return null;
+			throw e;
+		} finally {
+			running = null;
+		}
+		if (cancelled)
+			return null;
+		return new Table(estimate.name, rows, true, estimate.pages, estimate.bytes, estimate.indexBytes, columns);
+	}
+
+	/**
+	 * get - The statistics of a table, null if there are none yet
+	 */
+	public synchronized Table get(String name) {
+		return tables.get(name);
+	}
+
+	/**
+	 * clear - Forgets the statistics, so the next collect reads all the tables again
+	 */
+	public synchronized void clear() {
+		tables.clear();
+	}
+
+	/**
+	 * cancel - Stops collecting for good, when the database is closed; the table read now is interrupted and
+	 * left out
+	 */
+	public void cancel() {
+		cancelled = true;
+		Statement statement = running;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				System.err.println(e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return tables.size() + " tables, schema version " + schemaVersion;
+	}
+}
@@ -0,0 +1,441 @@
+/** WindowedResult.java
+ *
+ * The contents of a table, loaded a window of rows at a time.
+ *
+ * Only the windows around the rows that are being looked at are kept in memory. Windows are read with rowid
+ * keyset pagination: a background scan of the rowids records the first rowid of every window, and a window is
+ * then read by seeking to that rowid. The scan is a ParallelScan over the readers, whose parts arrive in
+ * rowid order, so the first window shows up right away and the row count grows while the rest of the table
+ * is scanned.
+ *
+ * After a commit, refresh brings the rows up to date without reading them all again: the rowids past the last
+ * one found are read as the scan read them, and the loaded windows are read again, only their rows whose
+ * values changed being replaced. Rows deleted or inserted between others move the rows after them to other
+ * positions; when a window read shows that, by rowids that are not the ones it had or is to start at, the
+ * table is scanned again from the start.
+ *
+ * All the state is owned by the ui thread. The SQL runs on the read threads of the query executor, with
+ * reader connections, so windows load in parallel with each other, with the scan and with the query on the
+ * writer; the results are handed back through the ui executor.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class WindowedResult {
+
+	/**
+	 * Listener - Receives the changes of a windowed result. Called on the ui thread.
+	 */
+	public interface Listener {
+		void rowsAdded(int from, int to);
+
+		void rowsLoaded(int from, int to);
+
+		void rowsRemoved(int from, int to);
+
+		void failed(String message);
+	}
+
+	public static final int WINDOW_SIZE = 500; // rows per window
+	private static final int MAX_WINDOWS = 12; // windows kept in memory
+	private static final int APPEND_PART = 10000; // rowids read at a time by a refresh
+
+	private final SqliteJdbc sq;
+	private final String table;
+	private final List<String> columns;
+	private final QueryExecutor worker; // runs the SQL
+	private final Executor ui; // runs the results on the ui thread
+	private Listener listener = null;
+
+	private long[] anchors = new long[64]; // first rowid of every window
+	private int anchorCount = 0;
+	private int rowCount = 0; // rows found by the scan so far
+	private long lastRowid = Long.MIN_VALUE; // of the last row found, the rows are found in rowid order
+	private boolean scanDone = false;
+	private boolean refreshing = false; // a refresh is reading
+	private boolean stale = false; // a commit came while the scan or a refresh was reading
+	private int generation = 0; // scans of the table, reads of an earlier one are dropped
+	private final Map<Integer, Window> windows = new HashMap<Integer, Window>(); // loaded windows
+	private final Set<Integer> pending = new HashSet<Integer>(); // windows being loaded
+	private volatile int lastWindow = 0; // window of the last row asked for
+	private volatile boolean closed = false;
+	private volatile ParallelScan rowidScan = null; // the scan while it runs
+
+	/**
+	 * Window - The rows of one window, column 0 is the rowid
+	 */
+	private static class Window {
+		final ResultStore rows;
+
+		Window(ResultStore rows) {
+			this.rows = rows;
+		}
+	}
+
+	public WindowedResult(SqliteJdbc sq, String table, List<String> columns, QueryExecutor worker, Executor ui) {
+		this.sq = sq;
+		this.table = table;
+		this.columns = columns;
+		this.worker = worker;
+		this.ui = ui;
+	}
+
+	/**
+	 * open - Starts the rowid scan. Rows are reported to the listener as they are found.
+	 */
+	public void open(Listener listener) {
+		this.listener = listener;
+		scan();
+	}
+
+	/**
+	 * close - Stops the scan and the pending loads, and drops the loaded windows
+	 */
+	public void close() {
+		closed = true;
+		ParallelScan running = rowidScan;
+		if (running != null)
+			running.cancel();
+		windows.clear();
+		pending.clear();
+	}
+
+	/**
+	 * scan - Reads the rowids of the table with a parallel scan, handing every part to the ui thread in order
+	 */
+	private void scan() {
+		int gen = generation;
+		worker.executeRead(sq, () -> {
+			if (closed)
+				return;
+			ParallelScan scan = new ParallelScan(sq, table);
+			rowidScan = scan;
+			try {
+				scan.scanRowids(rowids -> {
+					if (closed)
+						scan.cancel();
+					else if (rowids.length > 0)
+						ui.execute(() -> addAnchors(gen, rowids));
+				});
+				ui.execute(() -> finishScan(gen));
+			} catch (SQLException | IOException e) {
+				ui.execute(() -> listener.failed(e.getMessage()));
+			} finally {
+				rowidScan = null;
+			}
+		});
+	}
+
+	/**
+	 * addAnchors - Records the window starts among a part of the rowids and grows the row count
+	 */
+	private void addAnchors(int gen, long[] rowids) {
+		if (closed || gen != generation)
+			return;
+		// Parts have any length, the next window starts where the rows so far leave off
+		for (int j = (WINDOW_SIZE - rowCount % WINDOW_SIZE) % WINDOW_SIZE; j < rowids.length; j += WINDOW_SIZE) {
+			if (anchorCount == anchors.length) {
+				anchors = Arrays.copyOf(anchors, anchorCount * 2);
+			}
+			anchors[anchorCount++] = rowids[j];
+		}
+		int from = rowCount;
+		rowCount += rowids.length;
+		lastRowid = rowids[rowids.length - 1];
+		listener.rowsAdded(from, rowCount);
+	}
+
+	/**
+	 * finishScan - The scan has found all the rows, the row count is final
+	 */
+	private void finishScan(int gen) {
+		if (closed || gen != generation)
+			return;
+		scanDone = true;
+		listener.rowsAdded(rowCount, rowCount);
+		if (stale)
+			refresh(); // a commit came while the scan ran
+	}
+
+	/**
+	 * rescan - Drops all the rows and scans the table again, after rows were deleted or inserted between others
+	 */
+	private void rescan() {
+		ParallelScan running = rowidScan;
+		if (running != null)
+			running.cancel();
+		generation++;
+		int removed = rowCount;
+		anchorCount = 0;
+		rowCount = 0;
+		lastRowid = Long.MIN_VALUE;
+		scanDone = false;
+		refreshing = false;
+		stale = false;
+		windows.clear();
+		pending.clear();
+		listener.rowsRemoved(0, removed);
+		scan();
+	}
+
+	/**
+	 * refresh - Brings the rows up to date after a commit: reads the loaded windows again and the rows past the
+	 * last one. A commit while the scan or another refresh runs is taken in when it is done.
+	 */
+	public void refresh() {
+		if (closed)
+			return;
+		if (!scanDone || refreshing) {
+			stale = true;
+			return;
+		}
+		refreshing = true;
+		stale = false;
+		int gen = generation;
+		long after = lastRowid;
+		Map<Integer, Long> reload = new HashMap<Integer, Long>();
+		for (int w : windows.keySet()) {
+			reload.put(w, anchors[w]);
+		}
+		worker.executeRead(sq, () -> {
+			if (closed)
+				return;
+			try {
+				for (Map.Entry<Integer, Long> entry : reload.entrySet()) {
+					ResultStore res = sq.getWindow(table, entry.getValue(), WINDOW_SIZE);
+					ui.execute(() -> reloaded(gen, entry.getKey(), new Window(res)));
+				}
+				// After the windows, so a window never holds fewer of the rows added than the row count
+				long last = after;
+				long[] rowids;
+				do {
+					rowids = sq.getRowids(table, last, APPEND_PART);
+					if (rowids.length > 0) {
+						long[] part = rowids;
+						ui.execute(() -> addAnchors(gen, part));
+						last = rowids[rowids.length - 1];
+					}
+				} while (rowids.length == APPEND_PART && !closed);
+				ui.execute(() -> finishRefresh(gen));
+			} catch (SQLException e) {
+				ui.execute(() -> {
+					finishRefresh(gen);
+					listener.failed(e.getMessage());
+				});
+			}
+		});
+	}
+
+	/**
+	 * finishRefresh - The refresh is done; runs the next one if a commit came meanwhile
+	 */
+	private void finishRefresh(int gen) {
+		if (closed || gen != generation)
+			return;
+		refreshing = false;
+		if (stale)
+			refresh();
+	}
+
+	/**
+	 * reloaded - Replaces a window read again by a refresh, reporting only the rows whose values changed
+	 */
+	private void reloaded(int gen, int w, Window win) {
+		if (closed || gen != generation)
+			return;
+		Window old = windows.get(w);
+		if (old == null)
+			return; // evicted while it was read
+		int count = Math.min(old.rows.getRowCount(), win.rows.getRowCount());
+		for (int i = 0; i < count; i++) {
+			if (old.rows.getLong(i, 0) != win.rows.getLong(i, 0)) {
+				rescan(); // a row was deleted or inserted before this one
+				return;
+			}
+		}
+		if (!fits(w, win)) {
+			rescan();
+			return;
+		}
+		windows.put(w, win);
+		int from = w * WINDOW_SIZE;
+		int changed = -1; // start of the run of changed rows
+		for (int i = 0; i <= count; i++) {
+			boolean same = i < count && sameRow(old.rows, win.rows, i);
+			if (!same && changed < 0 && i < count) {
+				changed = i;
+			} else if (same || i == count) {
+				if (changed >= 0)
+					listener.rowsLoaded(from + changed, from + i);
+				changed = -1;
+			}
+		}
+		// Rows the old window did not have yet, shown empty until now
+		int end = Math.min(from + win.rows.getRowCount(), rowCount);
+		if (end > from + count)
+			listener.rowsLoaded(from + count, end);
+	}
+
+	private static boolean sameRow(ResultStore a, ResultStore b, int row) {
+		for (int column = 1; column < a.getColumnCount(); column++) {
+			if (!Objects.deepEquals(a.getValue(row, column), b.getValue(row, column)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * fits - The window starts at its anchor and ends before the next one, holding the rows it should. One
+	 * that does not fit has lost or gained rows since the scan.
+	 */
+	private boolean fits(int w, Window win) {
+		int rows = win.rows.getRowCount();
+		if (rows > 0 && win.rows.getLong(0, 0) != anchors[w])
+			return false;
+		if (w + 1 < anchorCount)
+			return rows == WINDOW_SIZE && win.rows.getLong(rows - 1, 0) < anchors[w + 1];
+		// The last window; it may have rows the row count does not have yet
+		return rows >= rowCount - w * WINDOW_SIZE;
+	}
+
+	/**
+	 * getRow - Returns a row, or null if its window is not loaded yet. A missing window is requested, and the
+	 * neighbouring window is prefetched when the row is in its half of the window.
+	 */
+	public ResultRow getRow(int index) {
+		int w = index / WINDOW_SIZE;
+		int offset = index % WINDOW_SIZE;
+		lastWindow = w;
+		Window win = windows.get(w);
+		if (win == null) {
+			load(w);
+			return null;
+		}
+		load(offset < WINDOW_SIZE / 2 ? w - 1 : w + 1);
+		if (offset >= win.rows.getRowCount()) {
+			// The last window, read before rows were added after it
+			windows.remove(w);
+			load(w);
+			return null;
+		}
+		return column -> win.rows.getValue(offset, column + 1);
+	}
+
+	/**
+	 * getRowid - Returns the rowid of a loaded row, or null if its window is not loaded
+	 */
+	public Long getRowid(int index) {
+		Window win = windows.get(index / WINDOW_SIZE);
+		int offset = index % WINDOW_SIZE;
+		return win != null && offset < win.rows.getRowCount() ? win.rows.getLong(offset, 0) : null;
+	}
+
+	/**
+	 * load - Loads a window on a read thread, unless it is loaded or on its way
+	 */
+	private void load(int w) {
+		if (w < 0 || w >= anchorCount || windows.containsKey(w) || pending.contains(w))
+			return;
+		pending.add(w);
+		int gen = generation;
+		long fromRowid = anchors[w];
+		worker.executeRead(sq, () -> {
+			// Fast scrolling queues many windows, skip the ones that went out of view while they waited
+			if (closed || Math.abs(w - lastWindow) > MAX_WINDOWS / 2) {
+				ui.execute(() -> {
+					if (gen == generation)
+						pending.remove(w);
+				});
+				return;
+			}
+			try {
+				ResultStore res = sq.getWindow(table, fromRowid, WINDOW_SIZE);
+				ui.execute(() -> loaded(gen, w, new Window(res)));
+			} catch (SQLException e) {
+				ui.execute(() -> {
+					if (gen == generation)
+						pending.remove(w);
+					listener.failed(e.getMessage());
+				});
+			}
+		});
+	}
+
+	/**
+	 * loaded - Keeps a loaded window and evicts the window farthest from the last row asked for
+	 */
+	private void loaded(int gen, int w, Window win) {
+		if (closed || gen != generation)
+			return;
+		pending.remove(w);
+		if (!fits(w, win)) {
+			rescan(); // rows were deleted since the scan
+			return;
+		}
+		windows.put(w, win);
+		while (windows.size() > MAX_WINDOWS) {
+			int farthest = w;
+			for (int key : windows.keySet()) {
+				if (Math.abs(key - lastWindow) > Math.abs(farthest - lastWindow))
+					farthest = key;
+			}
+			windows.remove(farthest);
+		}
+		if (!windows.containsKey(w))
+			return; // evicted right away, nobody is looking at it
+		int from = w * WINDOW_SIZE;
+		listener.rowsLoaded(from, Math.min(from + win.rows.getRowCount(), rowCount));
+	}
+
+	/**
+	 * getRowCount - Rows found so far
+	 *
+	 * @return rowCount
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * isScanDone - The whole table has been scanned and the row count is final
+	 *
+	 * @return scanDone
+	 */
+	public boolean isScanDone() {
+		return scanDone;
+	}
+
+	/**
+	 * getColumns
+	 *
+	 * @return columns
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * getTable
+	 *
+	 * @return table
+	 */
+	public String getTable() {
+		return table;
+	}
+}
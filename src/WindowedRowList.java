@@ -0,0 +1,76 @@
+/** WindowedRowList.java
+ *
+ * Adapts a WindowedResult to the items list of the results TableView.
+ *
+ * The TableView only asks for the rows it shows, so only those windows are loaded. Rows that are not loaded
+ * yet show as empty rows and are replaced when their window arrives.
+ *
+ * @since 0.2
+ * @author Nick Hatzigeorgiu
+ * @version 0.2
+ */
+
+package nisqlite;
+
+import java.util.Collections;
+
+import javafx.collections.ObservableListBase;
+
+@ClassInfo(created = "October 18, 2026", createdBy = "Nick", lastModified = "October 18, 2026", lastModifiedBy = "Nick", revision = @Revision(major = 0, minor = 2))
+public class WindowedRowList extends ObservableListBase<ResultRow> implements WindowedResult.Listener {
+
+	private final WindowedResult result;
+	private final ResultRow emptyRow = column -> null; // shown while a window loads
+	private final Runnable onChange; // called after rows are added or loaded
+
+	public WindowedRowList(WindowedResult result, Runnable onChange) {
+		this.result = result;
+		this.onChange = onChange;
+	}
+
+	@Override
+	public ResultRow get(int index) {
+		ResultRow row = result.getRow(index);
+		return row == null ? emptyRow : row;
+	}
+
+	@Override
+	public int size() {
+		return result.getRowCount();
+	}
+
+	@Override
+	public void rowsAdded(int from, int to) {
+		if (to > from) {
+			beginChange();
+			nextAdd(from, to);
+			endChange();
+		}
+		onChange.run();
+	}
+
+	@Override
+	public void rowsLoaded(int from, int to) {
+		if (to <= from)
+			return;
+		beginChange();
+		nextReplace(from, to, Collections.nCopies(to - from, emptyRow));
+		endChange();
+		onChange.run();
+	}
+
+	@Override
+	public void rowsRemoved(int from, int to) {
+		if (to > from) {
+			beginChange();
+			nextRemove(from, Collections.nCopies(to - from, emptyRow));
+			endChange();
+		}
+		onChange.run();
+	}
+
+	@Override
+	public void failed(String message) {
+		System.err.println("Error loading table " + result.getTable() + ": " + message);
+	}
+}
@@ -7,12 +7,12 @@
  * Developed as the final project of the x436 Java class. 
  * 
  * Information on SQLite: https://www.sqlite.org/
- * Information on SQLite JDBC driver: https://bitbucket.org/xerial/sqlite-jdbc
+ * Information on SQLite JDBC driver: https://github.com/xerial/sqlite-jdbc
  * Information on JavaFX: https://en.wikipedia.org/wiki/JavaFX
  * 
  * Requirements:
  * 				1. Java 8u40 or later
- * 				2. sqlite-jdbc-3.8.10.1.jar
+ * 				2. sqlite-jdbc-3.45.3.0.jar, with slf4j-api-1.7.36.jar, which it needs
  * 
  * @since 0.1
  * @author Nick Hatzigeorgiu